@@ -0,0 +1,45 @@
+package org.example.benchmark;
+
+import org.example.Algorithm;
+import org.example.AllocatorMetrics;
+import org.example.PaymentMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark pełnego przebiegu Algorithm.optimize dla całej listy zamówień.
+ * Każde wywołanie tworzy nowy Algorithm na świeżej kopii metod płatności (koszt pomijalny przy
+ * kilku metodach), więc wszystkie wywołania zaczynają od pełnych limitów.
+ * Parametr metrics porównuje przebieg bez metryk i z włączonymi metrykami (AllocatorMetrics).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AllocationBenchmark {
+
+    @Param({"BIG_DECIMAL", "FIXED_POINT"})
+    public Algorithm.Arithmetic arithmetic;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    @Benchmark
+    public Algorithm optimize(Workload workload) {
+        List<PaymentMethod> methods = workload.methods();
+        Algorithm optimizer = new Algorithm(methods, arithmetic);
+        optimizer.setReportWriter(Workload.discardingReport());
+        if (metrics) {
+            optimizer.setMetrics(new AllocatorMetrics(methods));
+        }
+        optimizer.optimize(workload.orders);
+        return optimizer;
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.benchmark;
+
+import org.example.AllocationServer;
+import org.example.Main;
+import org.example.PaymentMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lokalny generator obciążenia dla trybu serwerowego (uruchamiany ręcznie, poza JMH):
+ * java -cp benchmarks/target/benchmarks.jar org.example.benchmark.AllocationServerLoadGenerator 16 10
+ *
+ * Uruchamia AllocationServer w tym samym procesie, a potem N klientów w pętli zamkniętej wysyła po jednym zamówieniu
+ * na żądanie przez czas D sekund. Wypisuje przepustowość, percentyle p50/p99 czasu odpowiedzi oraz liczbę błędów
+ * (odpowiedzi innych niż 200 i błędów połączenia) – żądania z błędem nie wchodzą do percentyli.
+ * Klient to HttpURLConnection (keep-alive, nagłówki i treść w jednym zapisie) – java.net.http.HttpClient wysyła
+ * treść POST osobnym pakietem i przy algorytmie Nagle'a dokłada ok. 40 ms opóźnionego ACK do każdego żądania.
+ *
+ * Generator sam włącza sun.net.httpserver.nodelay (jak flaga -D przy uruchamianiu serwera, patrz AllocationServer).
+ *
+ * Argumenty: [klienci=16] [sekundy=20] [rozmiar partii] [pojemność kolejki]
+ */
+public class AllocationServerLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 20;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : AllocationServer.DEFAULT_BATCH_SIZE;
+        int queueCapacity = args.length > 3 ? Integer.parseInt(args[3]) : AllocationServer.DEFAULT_QUEUE_CAPACITY;
+        System.setProperty("sun.net.httpserver.nodelay", "true");                      // Przed pierwszym użyciem HttpServer w tym procesie.
+
+        List<PaymentMethod> methods = Arrays.asList(Main.createMapper().readValue(
+                "[{\"id\":\"PUNKTY\",\"discount\":\"15\",\"limit\":\"1000000000.00\"},"
+                        + "{\"id\":\"mZysk\",\"discount\":\"10\",\"limit\":\"1000000000.00\"},"
+                        + "{\"id\":\"BosBankrut\",\"discount\":\"5\",\"limit\":\"1000000000.00\"}]", PaymentMethod[].class));
+
+        try (AllocationServer server = new AllocationServer(methods, 0, batchSize, queueCapacity)) {
+            URL url = new URL("http://127.0.0.1:" + server.getPort() + "/allocate");
+
+            run(url, clients, 3, new LongAdder());                                      // Rozgrzewka JIT, wyniki pomijamy.
+            LongAdder errors = new LongAdder();
+            long[] latencies = run(url, clients, seconds, errors);
+
+            Arrays.sort(latencies);
+            System.out.printf("clients=%d batch=%d queue=%d requests=%d errors=%d throughput=%.0f req/s p50=%.3f ms p99=%.3f ms%n",
+                    clients, batchSize, queueCapacity, latencies.length, errors.sum(), latencies.length / (double) seconds,
+                    percentile(latencies, 0.5) / 1e6, percentile(latencies, 0.99) / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted.length == 0 ? Double.NaN : sorted[(int) (sorted.length * fraction)];
+    }
+
+    /**
+     * Wysyła żądania z podanej liczby wątków przez podany czas.
+     *
+     * @param errors Licznik żądań zakończonych błędem.
+     * @return Czasy udanych odpowiedzi w nanosekundach.
+     */
+    private static long[] run(URL url, int clients, long seconds, LongAdder errors) throws InterruptedException {
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        List<long[]> perClient = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int c = 0; c < clients; c++) {
+            int seed = c;
+            new Thread(() -> {
+                Random random = new Random(seed);
+                long[] samples = new long[1 << 16];
+                int count = 0;
+                try {
+                    while (System.nanoTime() < end) {
+                        String body = "{\"id\":\"ORDER" + random.nextInt() + "\",\"value\":\""
+                                + BigDecimal.valueOf(1 + random.nextInt(50_000), 2).toPlainString()
+                                + "\",\"promotions\":[\"" + (random.nextBoolean() ? "mZysk" : "BosBankrut") + "\"]}";
+                        long start = System.nanoTime();
+                        if (!post(url, body)) {
+                            errors.increment();
+                            continue;
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - start;
+                    }
+                } finally {
+                    perClient.add(Arrays.copyOf(samples, count));
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        return perClient.stream().flatMapToLong(Arrays::stream).toArray();
+    }
+
+    /**
+     * Wysyła jedno żądanie i odczytuje całą odpowiedź (także błędu), co zwalnia połączenie do ponownego użycia.
+     *
+     * @return True, jeśli serwer odpowiedział 200; false przy innym kodzie lub błędzie połączenia.
+     */
+    private static boolean post(URL url, String body) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+            boolean ok = connection.getResponseCode() == 200;
+            try (InputStream in = ok ? connection.getInputStream() : connection.getErrorStream()) {
+                if (in != null) {
+                    in.readAllBytes();
+                }
+            }
+            return ok;
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return false;
+        }
+    }
+}
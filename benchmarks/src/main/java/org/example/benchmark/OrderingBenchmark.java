@@ -0,0 +1,104 @@
+package org.example.benchmark;
+
+import org.example.Algorithm;
+import org.example.Main;
+import org.example.Order;
+import org.example.OrderPriority;
+import org.example.PaymentMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark strategii kolejności alokacji (OrderPriority) – czas Algorithm.optimize(List, OrderPriority),
+ * łącznie z sortowaniem, oraz osobno samo sortowanie.
+ *
+ * Łączny rabat nie jest czasem, więc JMH go nie raportuje – przy przygotowaniu benchmarku jest liczony dla
+ * wybranej strategii i dla kolejności z wejścia i wypisywany na stderr (np. "REGRET: discount 1234.56, INPUT 1200.00, +34.56").
+ *
+ * Parametr orders wybiera dane: "generated" (Workload) albo ścieżkę do pliku zamówień – wtedy metody płatności
+ * są czytane z pliku podanego w paymentMethods, np. przykładowe dane z repozytorium:
+ * -p orders=orders.json -p paymentMethods=paymentmethods.json
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OrderingBenchmark {
+
+    @Param({"INPUT", "VALUE", "DISCOUNT", "SCARCITY", "REGRET"})
+    public OrderPriority priority;
+
+    @Param({"FIXED_POINT"})
+    public Algorithm.Arithmetic arithmetic;
+
+    @Param({"generated"})
+    public String orders;
+
+    @Param({"paymentmethods.json"})
+    public String paymentMethods;
+
+    private List<Order> orderList;
+    private Workload workload;
+    private List<PaymentMethod> fileMethods;
+
+    @Setup
+    public void load(Workload workload) throws IOException {
+        this.workload = workload;
+        if (orders.equals("generated")) {
+            orderList = workload.orders;
+        } else {
+            orderList = Main.readOrders(Main.createMapper(), new File(orders));
+            fileMethods = Main.readPaymentMethods(Main.createMapper(), new File(paymentMethods));
+        }
+        BigDecimal discount = optimize(priority).getTotalDiscount();
+        BigDecimal input = optimize(OrderPriority.INPUT).getTotalDiscount();
+        System.err.printf("%s: discount %.2f, INPUT %.2f, %+.2f%n", priority, discount, input, discount.subtract(input));
+    }
+
+    @Benchmark
+    public Algorithm optimize() {
+        return optimize(priority);
+    }
+
+    @Benchmark
+    public int[] sort() {
+        return priority.sort(methods(), orderList);
+    }
+
+    private Algorithm optimize(OrderPriority priority) {
+        Algorithm optimizer = new Algorithm(methods(), arithmetic);
+        optimizer.setReportWriter(Workload.discardingReport());
+        optimizer.optimize(orderList, priority);
+        return optimizer;
+    }
+
+    /**
+     * Zwraca świeżą kopię metod płatności (patrz Workload.methods).
+     */
+    private List<PaymentMethod> methods() {
+        if (fileMethods == null) {
+            return workload.methods();
+        }
+        List<PaymentMethod> copy = new ArrayList<>(fileMethods.size());
+        for (PaymentMethod pm : fileMethods) {
+            PaymentMethod clone = new PaymentMethod();
+            clone.id = pm.id;
+            clone.discount = pm.discount;
+            clone.limit = pm.limit;
+            copy.add(clone);
+        }
+        return copy;
+    }
+}
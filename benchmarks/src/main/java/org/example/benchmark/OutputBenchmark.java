@@ -0,0 +1,36 @@
+package org.example.benchmark;
+
+import org.example.Algorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark Algorithm.printResults na wynikach gotowej alokacji. Wyjście trafia do pustego strumienia
+ * (patrz Workload.discardingReport), więc mierzony jest koszt formatowania, a nie terminala.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OutputBenchmark {
+
+    private Algorithm optimizer;
+
+    @Setup
+    public void allocate(Workload workload) {
+        optimizer = new Algorithm(workload.methods());
+        optimizer.setReportWriter(Workload.discardingReport());
+        optimizer.optimize(workload.orders);
+    }
+
+    @Benchmark
+    public void printResults() {
+        optimizer.printResults();
+    }
+}
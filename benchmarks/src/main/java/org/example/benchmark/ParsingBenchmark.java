@@ -0,0 +1,89 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.Main;
+import org.example.Order;
+import org.example.OrderReader;
+import org.example.PaymentMethod;
+import org.example.Snapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark odczytu plików wejściowych tak, jak robi to Main: cała tablica zamówień (readOrders),
+ * tryb strumieniowy (OrderReader), migawka binarna (Snapshot) oraz metody płatności.
+ * Pliki są zapisywane raz, w katalogu tymczasowym.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParsingBenchmark {
+
+    private ObjectMapper mapper;
+    private File ordersFile;
+    private File methodsFile;
+    private File snapshotFile;
+
+    @Setup
+    public void writeFiles(Workload workload) throws IOException {
+        mapper = Main.createMapper();
+        ordersFile = File.createTempFile("orders", ".json");
+        methodsFile = File.createTempFile("paymentmethods", ".json");
+        mapper.writeValue(ordersFile, workload.orders);
+        mapper.writeValue(methodsFile, workload.methods());
+        snapshotFile = File.createTempFile("orders", ".snap");
+        Snapshot.writeOrders(workload.orders.iterator(), snapshotFile.toPath());
+    }
+
+    @TearDown
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(ordersFile.toPath());
+        Files.deleteIfExists(methodsFile.toPath());
+        Files.deleteIfExists(snapshotFile.toPath());
+    }
+
+    @Benchmark
+    public List<Order> readOrders() throws IOException {
+        return Main.readOrders(mapper, ordersFile);
+    }
+
+    @Benchmark
+    public void readOrdersStreaming(Blackhole blackhole) throws IOException {
+        try (OrderReader orders = new OrderReader(mapper, ordersFile)) {
+            while (orders.hasNext()) {
+                blackhole.consume(orders.next());
+            }
+        }
+    }
+
+    /**
+     * Otwarcie migawki i przejście po kolumnie wartości – tyle, ile alokacja czyta z każdego zamówienia.
+     */
+    @Benchmark
+    public long readOrdersSnapshot() throws IOException {
+        Snapshot orders = Snapshot.open(snapshotFile.toPath());
+        long sum = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            sum += orders.valueInGrosze(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public List<PaymentMethod> readPaymentMethods() throws IOException {
+        return Main.readPaymentMethods(mapper, methodsFile);
+    }
+}
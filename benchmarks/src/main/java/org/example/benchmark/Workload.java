@@ -0,0 +1,120 @@
+package org.example.benchmark;
+
+import org.example.Order;
+import org.example.PaymentMethod;
+import org.example.ReportWriter;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Klasa Workload generuje syntetyczny zestaw zamówień i metod płatności, wspólny dla wszystkich benchmarków.
+ *
+ * Parametry (nadpisywane z linii poleceń JMH, np. -p orderCount=1000000):
+ * - orderCount: liczba zamówień,
+ * - promotionsPerOrder: liczba promocji przypisanych do każdego zamówienia,
+ * - methodCount: liczba metod płatności łącznie z "PUNKTY",
+ * - limitRatio: suma limitów wszystkich metod jako ułamek sumy wartości zamówień – poniżej 1 część zamówień
+ *   nie zostanie opłacona, a im mniejsza wartość, tym częściej algorytm schodzi do kroków 3 i 4.
+ *
+ * Dane są generowane deterministycznie (stałe ziarno), więc wyniki z różnych uruchomień są porównywalne.
+ * Benchmarki, które piszą komunikaty "Failed to pay" lub wydatki, ustawiają w Algorithm wyjście z discardingReport,
+ * żeby nie mierzyć szybkości terminala; System.out pozostaje bez zmian.
+ */
+@State(Scope.Benchmark)
+public class Workload {
+
+    private static final long SEED = 42;
+
+    @Param({"100000"})
+    public int orderCount;
+
+    @Param({"2"})
+    public int promotionsPerOrder;
+
+    @Param({"5"})
+    public int methodCount;
+
+    @Param({"0.6", "2.0"})
+    public double limitRatio;
+
+    List<Order> orders;
+    private List<PaymentMethod> methods;
+
+    @Setup
+    public void generate() {
+        if (methodCount < 2 || promotionsPerOrder < 0 || promotionsPerOrder > methodCount - 1) {
+            throw new IllegalArgumentException("Invalid workload: " + methodCount + " methods, "
+                    + promotionsPerOrder + " promotions per order");
+        }
+        Random random = new Random(SEED);
+        orders = new ArrayList<>(orderCount);
+        long totalCents = 0;
+        for (int i = 0; i < orderCount; i++) {
+            Order order = new Order();
+            order.id = "ORDER" + i;
+            long cents = 100 + random.nextInt(50_000);                                 // Wartości od 1.00 do 500.99.
+            order.value = BigDecimal.valueOf(cents, 2);
+            totalCents += cents;
+            if (promotionsPerOrder > 0) {
+                order.promotions = new ArrayList<>(promotionsPerOrder);
+                int first = random.nextInt(methodCount - 1);
+                for (int p = 0; p < promotionsPerOrder; p++) {                          // Kolejne karty (cyklicznie), bez powtórzeń.
+                    order.promotions.add(cardId((first + p) % (methodCount - 1)));
+                }
+            }
+            orders.add(order);
+        }
+
+        long limitCents = (long) (totalCents * limitRatio / methodCount);
+        methods = new ArrayList<>(methodCount);
+        methods.add(method("PUNKTY", 15, limitCents));
+        for (int c = 0; c < methodCount - 1; c++) {
+            methods.add(method(cardId(c), 5 + random.nextInt(16), limitCents));         // Rabaty kart od 5% do 20%.
+        }
+    }
+
+    /**
+     * Zwraca świeżą kopię metod płatności – Algorithm zmniejsza limity w obiektach PaymentMethod,
+     * więc każde wywołanie benchmarku musi zaczynać od pełnych limitów.
+     *
+     * @return Nowa lista metod płatności.
+     */
+    List<PaymentMethod> methods() {
+        List<PaymentMethod> copy = new ArrayList<>(methods.size());
+        for (PaymentMethod pm : methods) {
+            PaymentMethod clone = new PaymentMethod();
+            clone.id = pm.id;
+            clone.discount = pm.discount;
+            clone.limit = pm.limit;
+            copy.add(clone);
+        }
+        return copy;
+    }
+
+    private static String cardId(int card) {
+        return "CARD" + card;
+    }
+
+    private static PaymentMethod method(String id, int discount, long limitCents) {
+        PaymentMethod pm = new PaymentMethod();
+        pm.id = id;
+        pm.discount = BigDecimal.valueOf(discount);
+        pm.limit = BigDecimal.valueOf(limitCents, 2);
+        return pm;
+    }
+
+    /**
+     * Zwraca wyjście raportu do pustego strumienia – formatowanie wierszy jest mierzone, zapis na terminal nie.
+     */
+    static ReportWriter discardingReport() {
+        return new ReportWriter(OutputStream.nullOutputStream());
+    }
+}
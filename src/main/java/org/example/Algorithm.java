@@ -3,7 +3,9 @@ package org.example;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 
 /**
  * Klasa Algorithm odpowiada za optymalizację sposobu alokacji płatności dla zamówień.
@@ -13,9 +15,37 @@ import java.util.stream.Collectors;
 
 public class Algorithm {
 
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);                                  // Stała 100, używana przy obliczeniach procentowych rabatów.
+    private static final BigDecimal TEN_PERCENT = BigDecimal.valueOf(0.10);                             // Stały rabat 10% przy częściowej płatności punktami.
+
+    /**
+     * Rodzaj arytmetyki używanej do obliczeń kwot.
+     * BIG_DECIMAL – obliczenia na BigDecimal (domyślnie),
+     * FIXED_POINT – obliczenia na typie long w jednostkach 0.001 zł (patrz FixedPoint), z identycznymi wynikami.
+     */
+    public enum Arithmetic {
+        BIG_DECIMAL,
+        FIXED_POINT
+    }
+
     private final List<PaymentMethod> paymentMethods;                                                   // Lista wszystkich dostępnych metod płatności
-    private final Map<String, PaymentMethod> methodMap;                                                 // Mapa dla szybkiego dostępu – kluczem jest identyfikator metody płatności, a wartością obiekt metody.
+    private final Arithmetic arithmetic;                                                                // Rodzaj arytmetyki – potrzebny przy tworzeniu algorytmów dla niezależnych grup zamówień.
+    private final MethodIndex index;                                                                    // Indeks metod – numeracja identyfikatorów, ranking rabatów i lista kart.
+    private final PaymentMethod[] methods;                                                              // Metody płatności według numeracji z indeksu.
+    private final CardLimits cardLimits;                                                                // Drzewo limitów kart (tylko BIG_DECIMAL) – szybkie wyszukiwanie pierwszej karty z wystarczającym limitem.
     private final Map<String, BigDecimal> methodSpendings = new HashMap<>();                            // Mapa "wydatków" - przechowuje, ile środków (w kwotach) zostało użytych dla każdej metody płatności.
+    private final FixedPointEngine fixedPointEngine;                                                    // Silnik stałoprzecinkowy – null, jeśli używamy arytmetyki BigDecimal.
+    private BigDecimal totalDiscount = BigDecimal.ZERO;                                                 // Suma rabatów naliczonych dla wszystkich opłaconych zamówień.
+    private Consumer<OrderResult> resultListener;                                                       // Odbiorca wyników poszczególnych zamówień – null, jeśli nie są potrzebne.
+    private AllocatorMetrics metrics;                                                                   // Metryki – null, jeśli są wyłączone.
+    private ReportWriter reportWriter;                                                                  // Wyjście komunikatów i wydatków – null oznacza System.out.
+    private ReportWriter standardOutput;                                                                // Bufor na System.out w bieżącym wywołaniu (gdy reportWriter == null).
+
+    private OrderResult.Rule lastRule;                                                                  // Szczegóły ostatniej alokacji (ścieżka BigDecimal) – zapisywane zawsze,
+    private final int[] lastMethods = new int[2];                                                       // a zamieniane na OrderResult tylko wtedy, gdy ustawiono odbiorcę wyników.
+    private final BigDecimal[] lastAmounts = new BigDecimal[2];
+    private int lastCount;
+    private BigDecimal lastDiscount;
 
 
     public Map<String, BigDecimal> getMethodSpendings()
@@ -23,6 +53,15 @@ public class Algorithm {
         return new HashMap<>(methodSpendings);
     }
 
+    /**
+     * Zwraca sumę rabatów naliczonych dla wszystkich zamówień opłaconych do tej pory.
+     *
+     * @return Łączny rabat.
+     */
+    public BigDecimal getTotalDiscount() {
+        return totalDiscount;
+    }
+
     /**
      * Konstruktor klasy Algorithm.
      * Inicjuje listę metod płatności, tworzy mapę dla szybkiego dostępu oraz ustawia początkowe wydatki na zero.
@@ -30,11 +69,77 @@ public class Algorithm {
      * @param paymentMethods Lista dostępnych metod płatności.
      */
     public Algorithm(List<PaymentMethod> paymentMethods) {
+        this(paymentMethods, Arithmetic.BIG_DECIMAL);
+    }
+
+    /**
+     * Konstruktor klasy Algorithm z wyborem rodzaju arytmetyki.
+     * Przy arytmetyce FIXED_POINT wartości zamówień mogą mieć co najwyżej 2 miejsca po przecinku,
+     * limity – 3, a rabaty – 4; w przeciwnym razie alokacja zgłasza ArithmeticException.
+     *
+     * @param paymentMethods Lista dostępnych metod płatności.
+     * @param arithmetic Rodzaj arytmetyki używanej do obliczeń.
+     */
+    public Algorithm(List<PaymentMethod> paymentMethods, Arithmetic arithmetic) {
         this.paymentMethods = paymentMethods;
-        this.methodMap = paymentMethods.stream().collect(Collectors.toMap(pm -> pm.id, pm -> pm));      // Tworzymy mapę, aby można było szybko wyszukać metodę płatności po jej identyfikatorze.
+        this.arithmetic = arithmetic;
+        this.fixedPointEngine = arithmetic == Arithmetic.FIXED_POINT ? new FixedPointEngine(paymentMethods) : null;
+        this.index = fixedPointEngine != null ? fixedPointEngine.index() : new MethodIndex(paymentMethods);  // Budujemy indeks raz (przy FIXED_POINT – ten z silnika), dalej metody są identyfikowane liczbami.
+        this.methods = paymentMethods.toArray(new PaymentMethod[0]);
+        this.cardLimits = fixedPointEngine == null ? new CardLimits() : null;                           // Silnik stałoprzecinkowy ma własne drzewo limitów.
         paymentMethods.forEach(pm -> methodSpendings.put(pm.id, BigDecimal.ZERO));                      // Inicjalizacja sumy wydatków dla każdej metody – początkowo wszystkie mają wartość zero.
     }
 
+    /**
+     * Ustawia odbiorcę wyników poszczególnych zamówień (np. ResultWriter).
+     * Wyniki są przekazywane w kolejności zamówień, również przy optimizeParallel.
+     * Bez odbiorcy alokacja nie tworzy żadnych obiektów wyników.
+     *
+     * @param resultListener Odbiorca wyników lub null, aby wyłączyć raportowanie.
+     */
+    public void setResultListener(Consumer<OrderResult> resultListener) {
+        this.resultListener = resultListener;
+    }
+
+    /**
+     * Ustawia wyjście komunikatów o nieopłaconych zamówieniach i wydatków z printResults (np. plik).
+     * Bez niego algorytm pisze na System.out przez własny bufor, opróżniany na końcu każdego wywołania
+     * optimize i printResults. Ustawionego wyjścia algorytm nie opróżnia – robi to wywołujący.
+     *
+     * @param reportWriter Wyjście lub null, aby pisać na System.out.
+     */
+    public void setReportWriter(ReportWriter reportWriter) {
+        this.reportWriter = reportWriter;
+    }
+
+    /**
+     * Włącza zbieranie metryk (kroki algorytmu, nieopłacone zamówienia, rabaty) i ustawia ten algorytm
+     * jako źródło pozostałych limitów w metrykach.
+     *
+     * @param metrics Metryki lub null, aby wyłączyć zbieranie.
+     */
+    public void setMetrics(AllocatorMetrics metrics) {
+        this.metrics = metrics;
+        if (metrics != null) {
+            metrics.setRemainingLimits(this::getRemainingLimits);
+        }
+    }
+
+    /**
+     * Zwraca pozostałe limity metod płatności. W trakcie optymalizacji arytmetyką stałoprzecinkową
+     * stan jest odczytywany wprost z silnika, więc może być przybliżony.
+     *
+     * @return Mapa identyfikator metody -> pozostały limit, w kolejności z listy metod.
+     */
+    public Map<String, BigDecimal> getRemainingLimits() {
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+        for (int i = 0; i < paymentMethods.size(); i++) {
+            result.put(paymentMethods.get(i).id, fixedPointEngine != null
+                    ? FixedPoint.toBigDecimal(fixedPointEngine.limit(i)) : paymentMethods.get(i).limit);
+        }
+        return result;
+    }
+
     /**
      * Metoda publiczna do optymalizacji alokacji płatności dla listy zamówień.
      * Iteruje po każdym zamówieniu oraz dokonuje przypisania odpowiedniej metody płatności.
@@ -43,8 +148,229 @@ public class Algorithm {
      */
     public void optimize(List<Order> orders) {
         for (Order order : orders) {
-            allocatePayment(order);                                                                     // Dla każdego zamówienia wywołujemy metodę, która przypisze sposób płatności.
+            allocateAndReport(order);                                                                   // Dla każdego zamówienia wywołujemy metodę, która przypisze sposób płatności.
+        }
+        syncFixedPointState();
+        flushStandardOutput();
+    }
+
+    /**
+     * Wariant metody optimize alokujący zamówienia w kolejności wyznaczonej przez strategię (patrz OrderPriority).
+     * Odbiorca wyników nadal dostaje wyniki w kolejności z listy – przy strategii innej niż INPUT są one
+     * zbierane w tablicy i przekazywane po alokacji; tak samo komunikaty o nieopłaconych zamówieniach.
+     * Przy arytmetyce FIXED_POINT zamówienia są najpierw zapisywane kolumnowo (OrderColumns) i przestawiane
+     * w nowej kolejności, więc alokacja czyta pamięć sekwencyjnie.
+     *
+     * @param orders Lista zamówień, które mają być opłacone.
+     * @param priority Strategia kolejności alokacji.
+     */
+    public void optimize(List<Order> orders, OrderPriority priority) {
+        if (priority == OrderPriority.INPUT) {
+            optimize(orders);
+            return;
+        }
+        OrderColumns columns = fixedPointEngine != null ? new OrderColumns(orders, fixedPointEngine) : null;
+        int[] sequence = columns != null ? priority.sort(paymentMethods, columns) : priority.sort(paymentMethods, orders);
+        OrderColumns sorted = columns != null ? columns.permute(sequence) : null;                       // Alokacja czyta kolumny sekwencyjnie, a nie obiekty Order w nowej kolejności.
+        OrderResult[] results = resultListener != null ? new OrderResult[orders.size()] : null;
+        boolean[] failed = new boolean[orders.size()];
+        for (int i = 0; i < sequence.length; i++) {
+            int position = sequence[i];
+            boolean paid = sorted != null ? sorted.allocate(fixedPointEngine, i) : allocatePayment(orders.get(position));
+            if (metrics != null) {
+                recordMetrics();
+            }
+            if (results != null) {
+                results[position] = sorted != null ? fixedPointEngine.lastResult(orders.get(position).id) : lastResult(orders.get(position));
+            }
+            failed[position] = !paid;
+        }
+        for (int position = 0; position < failed.length; position++) {                                 // Komunikaty o nieopłaconych zamówieniach – jak wyniki, w kolejności z listy.
+            if (failed[position]) {
+                reportFailure(orders.get(position).id);
+            }
+        }
+        if (results != null) {
+            for (OrderResult result : results) {
+                resultListener.accept(result);
+            }
+        }
+        syncFixedPointState();
+        flushStandardOutput();
+    }
+
+    /**
+     * Wariant strumieniowy metody optimize.
+     * Zamówienia są pobierane z iteratora po jednym i od razu alokowane, dzięki czemu
+     * cała lista zamówień nigdy nie musi znajdować się w pamięci (np. przy odczycie przez OrderReader).
+     *
+     * @param orders Iterator zamówień, które mają być opłacone.
+     */
+    public void optimize(Iterator<Order> orders) {
+        while (orders.hasNext()) {
+            allocateAndReport(orders.next());
+        }
+        syncFixedPointState();
+        flushStandardOutput();
+    }
+
+    /**
+     * Wariant metody optimize dla migawki zamówień (patrz Snapshot). Zamówienia są alokowane wprost z mapowanych
+     * kolumn – bez obiektów Order; identyfikator zamówienia jest dekodowany tylko dla odbiorcy wyników
+     * i nieopłaconych zamówień. Wymaga arytmetyki FIXED_POINT (migawka przechowuje kwoty w groszach).
+     *
+     * @param orders Migawka zamówień.
+     * @throws IllegalStateException Jeśli algorytm używa arytmetyki BIG_DECIMAL.
+     */
+    public void optimize(Snapshot orders) {
+        if (fixedPointEngine == null) {
+            throw new IllegalStateException("Snapshots require FIXED_POINT arithmetic");
+        }
+        int[] promotionMethods = fixedPointEngine.methodsOf(orders.promotionIds());                    // Numer promocji w słowniku migawki -> indeks metody, raz na całą migawkę.
+        int[] promotions = new int[orders.maxPromotions()];
+        for (int i = 0; i < orders.size(); i++) {
+            int count = orders.promotions(i, promotionMethods, promotions);
+            boolean paid = fixedPointEngine.allocate(FixedPoint.groszeToUnits(orders.valueInGrosze(i)), promotions, 0, count);
+            if (metrics != null) {
+                recordMetrics();
+            }
+            if (resultListener != null) {
+                resultListener.accept(fixedPointEngine.lastResult(orders.id(i)));
+            }
+            if (!paid) {
+                reportFailure(orders.id(i));
+            }
+        }
+        syncFixedPointState();
+        flushStandardOutput();
+    }
+
+    /**
+     * Alokuje płatność dla zamówienia, przekazuje wynik odbiorcy (jeśli jest) i zgłasza nieopłacone zamówienie.
+     */
+    private void allocateAndReport(Order order) {
+        boolean paid = allocatePayment(order);
+        if (metrics != null) {
+            recordMetrics();
+        }
+        if (resultListener != null) {
+            resultListener.accept(lastResult(order));
+        }
+        if (!paid) {
+            reportFailure(order.id);
+        }
+    }
+
+    /**
+     * Równoległy wariant metody optimize, korzystający ze wspólnej puli ForkJoinPool.
+     *
+     * @param orders Lista zamówień, które mają być opłacone.
+     */
+    public void optimizeParallel(List<Order> orders) {
+        optimizeParallel(orders, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Równoległy wariant metody optimize.
+     * Zamówienia są dzielone na grupy, które nie mogą sięgnąć do wspólnej metody płatności (patrz ConflictGraph).
+     * Każda grupa jest alokowana na osobnym wątku przez własną instancję Algorithm, zawierającą tylko metody tej grupy,
+     * a na końcu wydatki grup są scalane. Kolejność zamówień w grupie jest zachowana, więc wydatki, limity, łączny
+     * rabat i komunikaty o nieopłaconych zamówieniach (wypisywane w kolejności z listy) są identyczne jak przy optimize.
+     *
+     * Wyniki poszczególnych zamówień (jeśli ustawiono odbiorcę) są zbierane w tablicy i przekazywane po scaleniu,
+     * w kolejności z listy.
+     *
+     * Przyspieszenie zależy od danych: jeśli wszystkie zamówienia mogą sięgnąć do wspólnej metody
+     * (np. punktów lub karty z dużym limitem), powstaje jedna grupa i alokacja przebiega jak sekwencyjnie.
+     *
+     * @param orders Lista zamówień, które mają być opłacone.
+     * @param pool Pula wątków, na której wykonywane są grupy.
+     */
+    public void optimizeParallel(List<Order> orders, ForkJoinPool pool) {
+        List<Integer> failed = new ArrayList<>();
+        List<ConflictGraph.Component> components = ConflictGraph.partition(methods, index, orders, failed);
+        OrderResult[] results = resultListener != null ? new OrderResult[orders.size()] : null;        // Każdy wątek zapisuje tylko pozycje zamówień swojej grupy.
+        if (metrics != null) {
+            for (int i = 0; i < failed.size(); i++) {                                                   // Zamówienia odrzucone przed podziałem nie trafią do żadnej grupy.
+                metrics.recordOrder(OrderResult.Rule.UNPAID, null, 0);
+            }
+        }
+
+        List<ForkJoinTask<Algorithm>> tasks = new ArrayList<>();
+        List<List<Integer>> failedByComponent = new ArrayList<>();
+        for (ConflictGraph.Component component : components) {
+            List<PaymentMethod> componentMethods = new ArrayList<>();
+            for (int method : component.methods) {
+                componentMethods.add(methods[method]);                                                  // Te same obiekty PaymentMethod – grupy nie dzielą metod, więc nie ma wyścigów.
+            }
+            List<Integer> componentFailed = new ArrayList<>();
+            failedByComponent.add(componentFailed);
+            tasks.add(pool.submit(() -> {
+                Algorithm part = new Algorithm(componentMethods, arithmetic);
+                part.metrics = metrics;                                                                 // Metryki są bezpieczne wątkowo i adresowane identyfikatorami metod.
+                for (int position : component.orders) {
+                    Order order = orders.get(position);
+                    if (!part.allocatePayment(order)) {
+                        componentFailed.add(position);
+                    }
+                    if (part.metrics != null) {
+                        part.recordMetrics();
+                    }
+                    if (results != null) {
+                        results[position] = part.lastResult(order);
+                    }
+                }
+                part.syncFixedPointState();
+                return part;
+            }));
+        }
+
+        for (int c = 0; c < components.size(); c++) {                                                   // Scalanie wyników – grupy mają rozłączne zbiory metod.
+            Algorithm part = tasks.get(c).join();
+            int[] componentMethods = components.get(c).methods;
+            for (int local = 0; local < componentMethods.length; local++) {
+                int method = componentMethods[local];
+                if (fixedPointEngine != null) {
+                    fixedPointEngine.absorb(method, part.fixedPointEngine.spending(local), part.fixedPointEngine.limit(local));
+                } else {
+                    applyPayment(methods[method].id, part.methodSpendings.get(methods[method].id));
+                    cardLimits.limitChanged(method);
+                }
+            }
+            if (fixedPointEngine != null) {
+                fixedPointEngine.absorbDiscount(part.fixedPointEngine.totalDiscount());
+            } else {
+                totalDiscount = totalDiscount.add(part.totalDiscount);
+            }
+            failed.addAll(failedByComponent.get(c));
+        }
+
+        if (results != null) {
+            for (int position = 0; position < results.length; position++) {                            // Zamówienia odrzucone przed podziałem nie trafiły do żadnej grupy.
+                resultListener.accept(results[position] != null ? results[position] : unpaid(orders.get(position)));
+            }
+        }
+        Collections.sort(failed);
+        for (int position : failed) {
+            reportFailure(orders.get(position).id);
         }
+        syncFixedPointState();
+        flushStandardOutput();
+    }
+
+    /**
+     * Przepisuje wydatki i pozostałe limity z silnika stałoprzecinkowego do mapy wydatków i obiektów PaymentMethod,
+     * tak aby po optymalizacji stan był taki sam jak przy arytmetyce BigDecimal.
+     */
+    private void syncFixedPointState() {
+        if (fixedPointEngine == null) {
+            return;
+        }
+        for (int i = 0; i < fixedPointEngine.methodCount(); i++) {
+            methodSpendings.put(fixedPointEngine.methodId(i), FixedPoint.toBigDecimal(fixedPointEngine.spending(i)));
+            paymentMethods.get(i).limit = FixedPoint.toBigDecimal(fixedPointEngine.limit(i));
+        }
+        totalDiscount = FixedPoint.toBigDecimal(fixedPointEngine.totalDiscount());
     }
 
     /**
@@ -65,54 +391,72 @@ public class Algorithm {
      *    o wystarczającym limicie na całość zamówienia.
      *
      * @param order Zamówienie, dla którego przydzielamy metodę płatności.
+     * @return True, jeśli zamówienie zostało opłacone; false, jeśli nie znaleziono żadnego sposobu płatności.
      */
-    private void allocatePayment(Order order) {
+    private boolean allocatePayment(Order order) {
+        if (fixedPointEngine != null) {                                                                 // Przy arytmetyce stałoprzecinkowej te same kroki wykonuje FixedPointEngine.
+            return fixedPointEngine.allocate(order);
+        }
+
         BigDecimal orderValue = order.value;                                                            // Pobieramy wartość zamówienia
-        BigDecimal hundred = BigDecimal.valueOf(100);                                                   // Utworzenie stałej reprezentującej 100, używanej przy obliczeniach procentowych rabatów.
-        PaymentMethod points = methodMap.get("PUNKTY");                                                 // Pobieramy obiekt reprezentujący metodę "PUNKTY" – punkty lojalnościowe.
+        PaymentMethod points = index.points() >= 0 ? methods[index.points()] : null;                   // Pobieramy obiekt reprezentujący metodę "PUNKTY" – punkty lojalnościowe.
 
         //  1. Pełna płatność punktami
         if (points != null && points.limit.compareTo(orderValue) >= 0) {                                // Sprawdzamy, czy metoda "PUNKTY" jest dostępna oraz czy jej limit jest wystarczający by opłacić całe zamówienie.
             BigDecimal discount = orderValue.multiply(points.discount)                                  // Obliczamy rabat w oparciu o procentowy rabat przypisany do punktów.
-                    .divide(hundred, 2, RoundingMode.HALF_UP);
+                    .divide(HUNDRED, 2, RoundingMode.HALF_UP);
             BigDecimal toPay = orderValue.subtract(discount);                                           // Obliczamy kwotę do zapłaty po naliczeniu rabatu.
             applyPayment("PUNKTY", toPay);                                                     // Rejestrujemy płatność dla metody "PUNKTY".
+            totalDiscount = totalDiscount.add(discount);
             points.limit = points.limit.subtract(toPay);                                                // Aktualizujemy limit dostępnych środków punktowych, odejmując użyte środki.
-            return;
+            record(OrderResult.Rule.FULL_POINTS, discount, index.points(), toPay);
+            return true;
         }
 
         //  2. Pełna płatność promocyjną kartą
         if (order.promotions != null) {                                                                 // Sprawdzamy, czy zamówienie posiada listę promocji (czyli możliwe metody płatności ze specjalnymi rabatami).
-            Optional<String> best = order.promotions.stream()                                           // Przeglądamy listę promocji.
-                    .filter(methodMap::containsKey)                                                     // Filtrujemy tylko te, które są zdefiniowane w systemie (istnieją w methodMap).
-                    .sorted((a, b) -> methodMap.get(b).discount.compareTo(methodMap.get(a).discount))   // Sortujemy malejąco według wartości rabatu (metoda z najwyższym rabatem będzie pierwsza).
-                    .filter(m -> methodMap.get(m).limit.compareTo(orderValue) >= 0)                     // Wybieramy tę metodę, która ma wystarczający limit do opłacenia całego zamówienia.
-                    .findFirst();
-
-            if (best.isPresent()) {                                                                     // Jeśli znaleziono odpowiednią metodę płatności promocyjnej
-                String methodId = best.get();
-                BigDecimal discount = orderValue.multiply(methodMap.get(methodId).discount)             // Obliczamy rabat wg specyfikacji tej metody (procentowo).
-                        .divide(hundred, 2, RoundingMode.HALF_UP);
+            int best = -1;
+            for (String promotion : order.promotions) {                                                 // Przeglądamy listę promocji.
+                Integer candidate = index.indexOf(promotion);                                           // Pomijamy promocje, które nie są zdefiniowane w systemie.
+                if (candidate != null
+                        && (best < 0 || index.discountRank(candidate) < index.discountRank(best))       // Szukamy metody z najwyższym rabatem (przy równym rabacie wygrywa wcześniejsza na liście promocji),
+                        && methods[candidate].limit.compareTo(orderValue) >= 0) {                       // która ma wystarczający limit do opłacenia całego zamówienia.
+                    best = candidate;
+                }
+            }
+
+            if (best >= 0) {                                                                            // Jeśli znaleziono odpowiednią metodę płatności promocyjnej
+                PaymentMethod method = methods[best];
+                BigDecimal discount = orderValue.multiply(method.discount)                              // Obliczamy rabat wg specyfikacji tej metody (procentowo).
+                        .divide(HUNDRED, 2, RoundingMode.HALF_UP);
                 BigDecimal toPay = orderValue.subtract(discount);                                       // Obliczamy kwotę do zapłaty po naliczeniu rabatu.
-                applyPayment(methodId, toPay);                                                          // Rejestrujemy płatność przypisaną tej metodzie (np. "mZysk").
-                methodMap.get(methodId).limit = methodMap.get(methodId).limit.subtract(toPay);          // Aktualizujemy limit danej metody, odejmując kwotę, za jaką zamówienie zostało opłacone.
-                return;
+                applyPayment(method.id, toPay);                                                         // Rejestrujemy płatność przypisaną tej metodzie (np. "mZysk").
+                totalDiscount = totalDiscount.add(discount);
+                method.limit = method.limit.subtract(toPay);                                            // Aktualizujemy limit danej metody, odejmując kwotę, za jaką zamówienie zostało opłacone.
+                cardLimits.limitChanged(best);
+                record(OrderResult.Rule.PROMOTION_CARD, discount, best, toPay);
+                return true;
             }
         }
 
         //  3. Częściowa płatność punktami + karta (z 10% rabatem)
-        if (points != null && points.limit.compareTo(orderValue.multiply(BigDecimal.valueOf(0.10))) >= 0) {     // Sprawdzamy, czy dostępne są punkty, a ich limit wynosi co najmniej 10% wartości zamówienia.
-            BigDecimal discount = orderValue.multiply(BigDecimal.valueOf(0.10));                        // Naliczamy stały rabat 10% – niezależnie od rabatu z punktów, gdyż stosujemy specjalną regułę.
+        if (points != null && points.limit.compareTo(orderValue.multiply(TEN_PERCENT)) >= 0) {          // Sprawdzamy, czy dostępne są punkty, a ich limit wynosi co najmniej 10% wartości zamówienia.
+            BigDecimal discount = orderValue.multiply(TEN_PERCENT);                                     // Naliczamy stały rabat 10% – niezależnie od rabatu z punktów, gdyż stosujemy specjalną regułę.
             BigDecimal toPayAfterDiscount = orderValue.subtract(discount);                              // Kwota do zapłaty po odjęciu rabatu.
 
             BigDecimal pointsUsed = points.limit.min(toPayAfterDiscount);                               // Obliczamy, ile punktów możemy użyć – nie więcej niż dostępny limit oraz nie więcej niż wymagana kwota.
             BigDecimal remaining = toPayAfterDiscount.subtract(pointsUsed);                             // Pozostała kwota, którą trzeba opłacić kartą.
 
-            boolean success = allocateWithBestAvailableMethod(order, remaining);                        // Próba alokacji pozostałej kwoty przy użyciu dostępnych metod (z wyłączeniem "PUNKTY").
-            if (success) {
+            int card = allocateWithBestAvailableMethod(order, remaining);                               // Próba alokacji pozostałej kwoty przy użyciu dostępnych metod (z wyłączeniem "PUNKTY").
+            if (card >= 0) {
                 applyPayment("PUNKTY", pointsUsed);                                            // Jeśli udało się opłacić resztę kwoty kartą, rejestrujemy wydatkowanie punktów.
                 points.limit = points.limit.subtract(pointsUsed);                                       // Aktualizujemy limit punktów po użyciu.
-                return;
+                totalDiscount = totalDiscount.add(discount);
+                record(OrderResult.Rule.PARTIAL_POINTS, discount, index.points(), pointsUsed);
+                lastMethods[1] = card;
+                lastAmounts[1] = remaining;
+                lastCount = 2;
+                return true;
             }
         }
 
@@ -120,30 +464,154 @@ public class Algorithm {
         // Jeśli żaden z powyższych przypadków nie został zastosowany,
         // próbujemy znaleźć dowolną metodę, która ma wystarczający limit,
         // aby opłacić całość zamówienia.
-        boolean fallback = allocateWithBestAvailableMethod(order, orderValue);
-        if (!fallback) {
-            System.out.println("Failed to pay for order: " + order.id);                    // Jeśli nie udało się znaleźć żadnej metody, wypisujemy komunikat o błędzie.
+        int card = allocateWithBestAvailableMethod(order, orderValue);
+        if (card < 0) {
+            lastRule = OrderResult.Rule.UNPAID;
+            lastCount = 0;
+            lastDiscount = BigDecimal.ZERO;
+            return false;
         }
+        record(OrderResult.Rule.CARD, BigDecimal.ZERO, card, orderValue);
+        return true;
+    }
+
+    /**
+     * Zapamiętuje szczegóły alokacji opłaconej jedną metodą (ścieżka BigDecimal).
+     */
+    private void record(OrderResult.Rule rule, BigDecimal discount, int method, BigDecimal amount) {
+        lastRule = rule;
+        lastDiscount = discount;
+        lastMethods[0] = method;
+        lastAmounts[0] = amount;
+        lastCount = 1;
     }
 
+    /**
+     * Zwraca wynik ostatniego wywołania allocatePayment.
+     *
+     * @param order Zamówienie przekazane do ostatniego wywołania allocatePayment.
+     * @return Wynik alokacji tego zamówienia.
+     */
+    private OrderResult lastResult(Order order) {
+        if (fixedPointEngine != null) {
+            return fixedPointEngine.lastResult(order.id);
+        }
+        List<PaymentAllocation> allocations;
+        if (lastCount == 0) {
+            allocations = Collections.emptyList();
+        } else if (lastCount == 1) {
+            allocations = Collections.singletonList(new PaymentAllocation(methods[lastMethods[0]].id, lastAmounts[0]));
+        } else {
+            allocations = new ArrayList<>(lastCount);
+            for (int i = 0; i < lastCount; i++) {
+                allocations.add(new PaymentAllocation(methods[lastMethods[i]].id, lastAmounts[i]));
+            }
+        }
+        return new OrderResult(order.id, lastRule, allocations, lastDiscount);
+    }
+
+    /**
+     * Przekazuje do metryk krok i rabat ostatniego wywołania allocatePayment; rabat przypisywany jest pierwszej metodzie.
+     */
+    private void recordMetrics() {
+        if (fixedPointEngine != null) {
+            fixedPointEngine.recordLast(metrics);
+        } else {
+            metrics.recordOrder(lastRule, lastCount > 0 ? methods[lastMethods[0]].id : null, lastDiscount);
+        }
+    }
+
+    private static OrderResult unpaid(Order order) {
+        return new OrderResult(order.id, OrderResult.Rule.UNPAID, Collections.emptyList(), BigDecimal.ZERO);
+    }
+
+    /**
+     * Zgłasza zamówienie, którego nie udało się opłacić żadną metodą.
+     *
+     * @param orderId Identyfikator nieopłaconego zamówienia.
+     */
+    private void reportFailure(String orderId) {
+        output().failure(orderId);                                                          // Jeśli nie udało się znaleźć żadnej metody, zapisujemy komunikat o błędzie.
+    }
+
+    /**
+     * Zwraca ustawione wyjście albo bufor na bieżący System.out (tworzony przy pierwszym zapisie w wywołaniu,
+     * więc przekierowanie System.out między wywołaniami działa jak przy println).
+     */
+    private ReportWriter output() {
+        if (reportWriter != null) {
+            return reportWriter;
+        }
+        if (standardOutput == null) {
+            standardOutput = ReportWriter.standardOutput();
+        }
+        return standardOutput;
+    }
+
+    private void flushStandardOutput() {
+        if (standardOutput != null) {
+            standardOutput.flush();
+            standardOutput = null;
+        }
+    }
+
+
     /**
      * Metoda pomocnicza, która próbuje przypisać płatność dla określonej kwoty
      * przy użyciu dowolnej dostępnej metody (karty, pomijając "PUNKTY").
-     * Iterujemy po liście metod i wybieramy pierwszą, która ma wystarczający dostępny limit.
+     * Wybieramy pierwszą (w kolejności z listy) metodę, która ma wystarczający dostępny limit –
+     * wyszukiwanie odbywa się w drzewie limitów kart w czasie O(log n).
      *
      * @param order Zamówienie, dla którego dokonujemy alokacji (może być użyte do rozszerzenia logiki).
      * @param amount Kwota, którą trzeba opłacić.
-     * @return True, jeśli udało się znaleźć metodę płatności i opłacić zamówienie; false w przeciwnym razie.
+     * @return Indeks metody, która opłaciła kwotę, lub -1, jeśli żadna metoda nie ma wystarczającego limitu.
+     */
+    private int allocateWithBestAvailableMethod(Order order, BigDecimal amount) {
+        int position = cardLimits.firstAtLeast(amount);                                     // Drzewo zawiera tylko karty – metoda "PUNKTY" była rozpatrywana osobno.
+        if (position < 0) {
+            return -1;                                                                      // Jeśli żadna metoda nie ma wystarczających środków, zwracamy -1.
+        }
+        int method = index.card(position);
+        PaymentMethod pm = methods[method];
+        applyPayment(pm.id, amount);                                                        // Jeśli metoda ma wystarczający limit, przypisujemy kwotę.
+        pm.limit = pm.limit.subtract(amount);                                               // Aktualizujemy limit metody – odejmujemy wykorzystaną kwotę.
+        cardLimits.limitChanged(method);
+        return method;                                                                      // Zwracamy metodę, która opłaciła kwotę.
+    }
+
+    /**
+     * Drzewo limitów kart dla arytmetyki BigDecimal – limity czytane są bezpośrednio z obiektów PaymentMethod.
      */
-    private boolean allocateWithBestAvailableMethod(Order order, BigDecimal amount) {
-        for (PaymentMethod pm : paymentMethods) {                                           // Iterujemy po wszystkich metodach płatności.
-            if (!pm.id.equals("PUNKTY") && pm.limit.compareTo(amount) >= 0) {               // Pomijamy metodę "PUNKTY", ponieważ ta opcja była rozpatrywana osobno.
-                applyPayment(pm.id, amount);                                                // Jeśli metoda ma wystarczający limit, przypisujemy kwotę.
-                pm.limit = pm.limit.subtract(amount);                                       // Aktualizujemy limit metody – odejmujemy wykorzystaną kwotę.
-                return true;                                                                // Zwracamy sukces, bo kwota została opłacona.
+    private final class CardLimits extends LimitTree {
+
+        private BigDecimal threshold;                                                       // Kwota szukana w bieżącym zapytaniu.
+
+        CardLimits() {
+            super(index.cardCount());
+            build();
+        }
+
+        int firstAtLeast(BigDecimal amount) {
+            threshold = amount;
+            return firstCovering();
+        }
+
+        void limitChanged(int method) {
+            int position = index.cardPosition(method);
+            if (position >= 0) {
+                update(position);
             }
         }
-        return false;                                                                       // Jeśli żadna metoda nie ma wystarczających środków, zwracamy false.
+
+        @Override
+        protected int compareLimits(int a, int b) {
+            return methods[index.card(a)].limit.compareTo(methods[index.card(b)].limit);
+        }
+
+        @Override
+        protected boolean covers(int position) {
+            return methods[index.card(position)].limit.compareTo(threshold) >= 0;
+        }
     }
 
     /**
@@ -160,13 +628,11 @@ public class Algorithm {
     /**
      * Metoda wypisująca wyniki alokacji płatności.
      * Dla każdej metody, dla której zostały użyte środki, wypisuje identyfikator metody oraz sumaryczną kwotę użytych środków.
-     * Format: <id_metody> <wydana_kwota> (kwota formatowana do dwóch miejsc po przecinku).
+     * Format: <id_metody> <wydana_kwota> (kwota formatowana do dwóch miejsc po przecinku), metody posortowane po identyfikatorze.
+     * Wiersze trafiają do wyjścia ustawionego przez setReportWriter albo na System.out (patrz ReportWriter).
      */
     public void printResults() {
-        methodSpendings.forEach((id, amount) -> {                                           // Iterujemy po mapie "methodSpendings"
-            if (amount.compareTo(BigDecimal.ZERO) > 0) {                                    // Wypisujemy tylko te metody, dla których suma wydatków jest większa niż zero.
-                System.out.printf("%s %.2f%n", id, amount);
-            }
-        });
+        output().spendings(methodSpendings);
+        flushStandardOutput();
     }
 }
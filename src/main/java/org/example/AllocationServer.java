@@ -0,0 +1,337 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Klasa AllocationServer to długo działający tryb serwerowy: metody płatności są wczytywane raz, a zamówienia
+ * przychodzą przez lokalny endpoint HTTP (JDK HttpServer). Dzięki temu start JVM, rozgrzewka Jacksona i kompilacja JIT
+ * są ponoszone jednorazowo, a nie przy każdym zamówieniu.
+ *
+ * Endpoint: POST /allocate z jednym zamówieniem lub tablicą zamówień (ten sam format co orders.json).
+ * Odpowiedź to tablica wyników w kolejności zamówień z żądania: {"orderId": ..., "allocations": [{"methodId": ..., "amount": ...}]};
+ * pusta lista alokacji oznacza, że zamówienia nie udało się opłacić.
+ * GET /metrics zwraca metryki alokatora w formacie Prometheusa; te same metryki są zarejestrowane w JMX
+ * (patrz AllocatorMetrics), a czas alokacji każdej partii trafia do fazy BATCH.
+ *
+ * Żądania trafiają do jednej ograniczonej kolejki (queueCapacity żądań); gdy jest pełna, żądanie jest odrzucane
+ * z kodem 503, a klient powinien spróbować ponownie. Osobny wątek czeka na pierwsze żądanie, a potem bez czekania
+ * dobiera to, co już jest w kolejce (do maxBatchSize żądań), i alokuje zamówienia całej mikro-partii jednym
+ * przebiegiem (ConcurrentAllocator), po czym kończy przyszłe wyniki żądań. Partia nie dokłada więc opóźnienia:
+ * przy małym ruchu ma jedno żądanie, a pod obciążeniem zbiera to, co nadeszło w trakcie poprzedniej partii.
+ * Wątki HTTP nie czekają na wynik – odpowiedź jest wysyłana z puli HTTP.
+ *
+ * Zamówienia są walidowane przed wstawieniem do kolejki, więc żądanie odrzucone kodem 400 nie zmienia limitów.
+ * ConcurrentAllocator nie cofa alokacji, dlatego nieoczekiwany wyjątek w trakcie alokacji żądania daje 500,
+ * a limity mogły zostać zużyte przez jego wcześniejsze zamówienia.
+ *
+ * JDK HttpServer wysyła nagłówki i treść odpowiedzi osobnymi pakietami; bez TCP_NODELAY algorytm Nagle'a i opóźniony
+ * ACK klienta dokładają ok. 40 ms do każdej odpowiedzi. Serwer należy więc uruchamiać z
+ * -Dsun.net.httpserver.nodelay=true (właściwość dotyczy wszystkich HttpServer w JVM, dlatego klasa jej nie ustawia).
+ */
+public final class AllocationServer implements Closeable {
+
+    public static final int DEFAULT_BATCH_SIZE = 256;                                   // Domyślny maksymalny rozmiar mikro-partii (w żądaniach).
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;                              // Domyślna pojemność kolejki żądań.
+
+    /**
+     * Wynik alokacji pojedynczego zamówienia zwracany klientowi.
+     */
+    public static final class Response {
+        public String orderId;
+        public List<PaymentAllocation> allocations;
+
+        public Response() {
+        }
+
+        Response(String orderId, List<PaymentAllocation> allocations) {
+            this.orderId = orderId;
+            this.allocations = allocations;
+        }
+    }
+
+    /**
+     * Żądanie oczekujące w kolejce: jego zamówienia wraz z przyszłymi wynikami.
+     */
+    private static final class Pending {
+        final Order[] orders;
+        final CompletableFuture<List<Response>> result = new CompletableFuture<>();
+
+        Pending(Order[] orders) {
+            this.orders = orders;
+        }
+    }
+
+    private static final Pending STOP = new Pending(null);                              // Znacznik końca pracy wątku partii.
+    private static final int SHUTDOWN_SECONDS = 5;                                      // Czas na wysłanie ostatnich odpowiedzi przy close.
+
+    private final ConcurrentAllocator allocator;
+    private final AllocatorMetrics metrics;
+    private final ObjectName metricsName;
+    private final ObjectMapper mapper;
+    private final int maxBatchSize;
+    private final BlockingQueue<Pending> queue;
+    private final HttpServer server;
+    private final ExecutorService httpExecutor;
+    private final Thread batcher;
+    private volatile boolean closed;                                                    // Po close nowe żądania dostają 503.
+
+    /**
+     * Konstruktor klasy AllocationServer. Uruchamia serwer na adresie lokalnym (127.0.0.1).
+     *
+     * @param paymentMethods Lista dostępnych metod płatności.
+     * @param port Port nasłuchu; 0 oznacza dowolny wolny port (patrz getPort).
+     * @param maxBatchSize Maksymalna liczba żądań w mikro-partii.
+     * @param queueCapacity Maksymalna liczba żądań czekających w kolejce; kolejne dostają 503.
+     * @throws IOException Jeśli nie udało się otworzyć portu.
+     */
+    public AllocationServer(List<PaymentMethod> paymentMethods, int port, int maxBatchSize, int queueCapacity) throws IOException {
+        if (maxBatchSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Invalid batch settings: size " + maxBatchSize + ", queue capacity " + queueCapacity);
+        }
+        this.allocator = new ConcurrentAllocator(paymentMethods);
+        this.metrics = new AllocatorMetrics(paymentMethods);
+        this.allocator.setMetrics(metrics);
+        this.mapper = Main.createMapper();
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.batcher = new Thread(this::runBatches, "allocation-batcher");
+        this.batcher.setDaemon(true);
+        this.batcher.start();
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.httpExecutor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        this.server.setExecutor(httpExecutor);
+        this.server.createContext("/allocate", this::handleAllocate);
+        this.server.createContext("/metrics", this::handleMetrics);
+        this.server.start();
+        this.metricsName = metrics.registerMBean("server-" + getPort());
+    }
+
+    /**
+     * Zwraca port, na którym nasłuchuje serwer.
+     *
+     * @return Numer portu.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Zwraca alokator, na którym pracuje serwer (np. do odczytu wydatków).
+     *
+     * @return Alokator serwera.
+     */
+    public ConcurrentAllocator getAllocator() {
+        return allocator;
+    }
+
+    /**
+     * Zwraca metryki serwera.
+     *
+     * @return Metryki alokatora serwera.
+     */
+    public AllocatorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Obsługuje żądanie GET /metrics: zwraca bieżące metryki w formacie tekstowym Prometheusa.
+     */
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            send(exchange, 405, "Only GET is supported.\n".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        byte[] body = metrics.getPrometheusText().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Obsługuje żądanie POST /allocate: odczytuje zamówienia, wstawia żądanie do kolejki i odsyła wyniki,
+     * gdy wszystkie zamówienia zostaną opłacone. Błędne żądanie (także null lub tablica z null) dostaje 400 bez zmiany
+     * limitów, przy pełnej kolejce lub po close – 503, a błąd w trakcie alokacji – 500.
+     */
+    private void handleAllocate(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            send(exchange, 405, "Only POST is supported.\n".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        Order[] orders;
+        try (InputStream body = exchange.getRequestBody()) {
+            orders = mapper.readValue(body, Order[].class);
+        } catch (JsonProcessingException e) {
+            send(exchange, 400, ("Invalid orders: " + e.getOriginalMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        if (orders == null) {                                                           // Treść "null".
+            send(exchange, 400, "Invalid orders: null\n".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        for (Order order : orders) {                                                    // Walidacja przed wstawieniem do kolejki – żądanie jest przyjmowane w całości albo wcale.
+            if (order == null) {
+                send(exchange, 400, "Invalid orders: null order\n".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if (order.value == null) {
+                send(exchange, 400, ("Order without value: " + order.id + "\n").getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            order.value = new BigDecimal(String.valueOf(order.value));                  // Ta sama normalizacja co w Main.readOrders.
+            try {
+                FixedPoint.orderValueToUnits(order.value);
+            } catch (ArithmeticException e) {
+                send(exchange, 400, (e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+        }
+
+        Pending pending = new Pending(orders);
+        boolean accepted = !closed && queue.offer(pending);
+        if (accepted && closed && queue.remove(pending)) {                              // close mógł już opróżnić kolejkę; jeśli żądanie wciąż w niej jest,
+            accepted = false;                                                           // nikt go nie opłaci. Jeśli nie – wziął je wątek partii albo close.
+        }
+        if (!accepted) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            send(exchange, 503, (closed ? "Server is shutting down.\n" : "Server is busy.\n").getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        pending.result.whenCompleteAsync((responses, error) -> {
+            try {
+                if (error instanceof ShuttingDownException) {
+                    send(exchange, 503, (error.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+                } else if (error != null) {                                             // Błąd w trakcie alokacji – wcześniejsze zamówienia żądania mogły już zużyć limity.
+                    send(exchange, 500, ("Allocation failed, limits may be partly consumed: " + error.getMessage() + "\n")
+                            .getBytes(StandardCharsets.UTF_8));
+                } else {
+                    send(exchange, 200, mapper.writeValueAsBytes(responses));
+                }
+            } catch (IOException e) {
+                exchange.close();                                                       // Klient rozłączył się przed odpowiedzią.
+            }
+        }, httpExecutor);                                                               // Odpowiedź wysyła pula HTTP, a nie wątek partii.
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", status == 200 ? "application/json" : "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Pętla wątku partii: czeka na pierwsze żądanie, dobiera bez czekania żądania już obecne w kolejce
+     * i alokuje ich zamówienia w kolejności nadejścia. Kończy się po znaczniku STOP, gdy opłaci wszystko przed nim.
+     */
+    private void runBatches() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        boolean stopped = false;
+        while (!stopped) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+
+            long start = System.nanoTime();
+            for (Pending pending : batch) {
+                if (pending == STOP) {
+                    stopped = true;
+                    continue;
+                }
+                List<Response> responses = new ArrayList<>(pending.orders.length);
+                try {
+                    for (Order order : pending.orders) {
+                        responses.add(new Response(order.id, allocator.allocate(order)));
+                    }
+                    pending.result.complete(responses);
+                } catch (RuntimeException e) {
+                    pending.result.completeExceptionally(e);
+                }
+            }
+            metrics.recordPhase(AllocatorMetrics.Phase.BATCH, System.nanoTime() - start);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Zatrzymuje serwer. Nowe żądania dostają 503, żądania, które już są w kolejce, zostają opłacone, a serwer
+     * czeka do 5 s na wysłanie ich odpowiedzi. Żądania, których nie zdążono opłacić, dostają 503.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            queue.put(STOP);                                                            // Wątek partii opróżnia kolejkę, więc miejsce się zwolni.
+            batcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batcher.interrupt();
+        }
+        for (Pending pending; (pending = queue.poll()) != null; ) {                     // Żądania wstawione po STOP albo nieopłacone po przerwaniu.
+            if (pending != STOP) {
+                pending.result.completeExceptionally(new ShuttingDownException());
+            }
+        }
+        server.stop(SHUTDOWN_SECONDS);                                                  // Czeka, aż odpowiedzi z puli HTTP zostaną wysłane.
+        AllocatorMetrics.unregisterMBean(metricsName);
+        httpExecutor.shutdown();
+    }
+
+    /**
+     * Wyjątek kończący żądania, których serwer nie zdążył opłacić przed zatrzymaniem.
+     */
+    private static final class ShuttingDownException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        ShuttingDownException() {
+            super("Server is shutting down.");
+        }
+    }
+
+    /**
+     * Uruchamia serwer z domyślnymi ustawieniami partii i działa do zatrzymania procesu.
+     *
+     * @param paymentMethods Lista dostępnych metod płatności.
+     * @param port Port nasłuchu.
+     * @throws IOException Jeśli nie udało się otworzyć portu.
+     */
+    static void run(List<PaymentMethod> paymentMethods, int port) throws IOException {
+        AllocationServer server = new AllocationServer(paymentMethods, port, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        if (!Boolean.getBoolean("sun.net.httpserver.nodelay")) {
+            System.err.println("Warning: run with -Dsun.net.httpserver.nodelay=true, otherwise every response waits ~40 ms for a delayed ACK");
+        }
+        System.err.println("Listening on http://127.0.0.1:" + server.getPort() + "/allocate (methods: "
+                + Arrays.toString(paymentMethods.stream().map(m -> m.id).toArray()) + ")");
+    }
+}
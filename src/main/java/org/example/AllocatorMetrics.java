@@ -0,0 +1,249 @@
+package org.example;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Klasa AllocatorMetrics zbiera metryki alokatora: liczbę zamówień opłaconych każdym krokiem algorytmu,
+ * liczbę nieopłaconych zamówień, rabat naliczony przez każdą metodę, pozostałe limity oraz czasy faz
+ * (odczyt, optymalizacja, wypisanie wyników, partie serwera).
+ *
+ * Liczniki to LongAdder, a czasy trafiają do LatencyHistogram, więc zapis jest tani i bezpieczny wątkowo.
+ * Pozostałe limity nie są zapisywane przy każdym zamówieniu – są odczytywane z alokatora dopiero przy odczycie metryk.
+ * Metryki są udostępniane przez JMX (registerMBean) oraz jako tekst w formacie Prometheusa (getPrometheusText).
+ *
+ * Bez obiektu metryk alokator wykonuje jedynie sprawdzenie referencji null na zamówienie.
+ */
+public final class AllocatorMetrics implements AllocatorMetricsMXBean {
+
+    /**
+     * Mierzone fazy pracy.
+     */
+    public enum Phase {
+        PARSE,
+        OPTIMIZE,
+        PRINT,
+        BATCH
+    }
+
+    private static final OrderResult.Rule[] RULES = OrderResult.Rule.values();
+    private static final Phase[] PHASES = Phase.values();
+
+    private final LongAdder[] ordersByRule = new LongAdder[RULES.length];
+    private final Map<String, LongAdder> discountByMethod;                              // Jednostki 0.001 zł (patrz FixedPoint); mapa nie zmienia się po utworzeniu.
+    private final LatencyHistogram[] phases = new LatencyHistogram[PHASES.length];
+    private volatile Supplier<Map<String, BigDecimal>> remainingLimits = Collections::emptyMap;
+
+    /**
+     * Konstruktor klasy AllocatorMetrics.
+     *
+     * @param paymentMethods Lista metod płatności, dla których zbierany jest rabat.
+     */
+    public AllocatorMetrics(List<PaymentMethod> paymentMethods) {
+        for (int i = 0; i < RULES.length; i++) {
+            ordersByRule[i] = new LongAdder();
+        }
+        for (int i = 0; i < PHASES.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+        Map<String, LongAdder> discounts = new LinkedHashMap<>();
+        paymentMethods.forEach(pm -> discounts.put(pm.id, new LongAdder()));
+        this.discountByMethod = Collections.unmodifiableMap(discounts);
+    }
+
+    /**
+     * Rejestruje obsłużone zamówienie.
+     *
+     * @param rule Krok algorytmu, który opłacił zamówienie (UNPAID dla nieopłaconych).
+     * @param methodId Metoda, której przypisywany jest rabat, lub null.
+     * @param discountUnits Naliczony rabat w jednostkach 0.001 zł.
+     */
+    public void recordOrder(OrderResult.Rule rule, String methodId, long discountUnits) {
+        ordersByRule[rule.ordinal()].increment();
+        if (discountUnits != 0 && methodId != null) {
+            LongAdder discount = discountByMethod.get(methodId);
+            if (discount != null) {
+                discount.add(discountUnits);
+            }
+        }
+    }
+
+    /**
+     * Rejestruje obsłużone zamówienie z rabatem jako BigDecimal (ścieżka BigDecimal algorytmu).
+     * Rabat jest zaokrąglany do 0.001 zł – ścieżka BigDecimal dopuszcza dowolną precyzję wartości zamówień.
+     *
+     * @param rule Krok algorytmu, który opłacił zamówienie (UNPAID dla nieopłaconych).
+     * @param methodId Metoda, której przypisywany jest rabat, lub null.
+     * @param discount Naliczony rabat.
+     */
+    public void recordOrder(OrderResult.Rule rule, String methodId, BigDecimal discount) {
+        recordOrder(rule, methodId, discount.signum() == 0 ? 0
+                : discount.movePointRight(FixedPoint.SCALE).setScale(0, RoundingMode.HALF_UP).longValue());
+    }
+
+    /**
+     * Rejestruje czas trwania fazy.
+     *
+     * @param phase Faza.
+     * @param nanos Czas w nanosekundach.
+     */
+    public void recordPhase(Phase phase, long nanos) {
+        phases[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Zwraca histogram czasów fazy.
+     *
+     * @param phase Faza.
+     * @return Histogram czasów w nanosekundach.
+     */
+    public LatencyHistogram getPhase(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    /**
+     * Ustawia źródło pozostałych limitów, odczytywane przy każdym odczycie metryk.
+     *
+     * @param remainingLimits Funkcja zwracająca mapę identyfikator metody -> pozostały limit.
+     */
+    public void setRemainingLimits(Supplier<Map<String, BigDecimal>> remainingLimits) {
+        this.remainingLimits = remainingLimits;
+    }
+
+    /**
+     * Rejestruje metryki w platformowym serwerze MBean pod nazwą org.example:type=AllocatorMetrics,name=&lt;name&gt;.
+     *
+     * @param name Nazwa instancji (np. "cli" lub "server").
+     * @return Nazwa obiektu JMX.
+     * @throws IllegalStateException Jeśli rejestracja się nie powiodła (np. nazwa jest zajęta).
+     */
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("org.example:type=AllocatorMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics MBean: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Wyrejestrowuje metryki z platformowego serwera MBean. Brak rejestracji nie jest błędem.
+     *
+     * @param objectName Nazwa zwrócona przez registerMBean.
+     */
+    public static void unregisterMBean(ObjectName objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            // Już wyrejestrowane.
+        }
+    }
+
+    @Override
+    public Map<String, Long> getOrdersByRule() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (OrderResult.Rule rule : RULES) {
+            result.put(rule.name(), ordersByRule[rule.ordinal()].sum());
+        }
+        return result;
+    }
+
+    @Override
+    public long getFailures() {
+        return ordersByRule[OrderResult.Rule.UNPAID.ordinal()].sum();
+    }
+
+    @Override
+    public Map<String, BigDecimal> getDiscountByMethod() {
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+        discountByMethod.forEach((id, discount) -> result.put(id, FixedPoint.toBigDecimal(discount.sum())));
+        return result;
+    }
+
+    @Override
+    public Map<String, BigDecimal> getRemainingLimits() {
+        return new LinkedHashMap<>(remainingLimits.get());
+    }
+
+    @Override
+    public Map<String, Double> getPhaseP50Millis() {
+        return phaseMillis(50);
+    }
+
+    @Override
+    public Map<String, Double> getPhaseP99Millis() {
+        return phaseMillis(99);
+    }
+
+    private Map<String, Double> phaseMillis(double percentile) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Phase phase : PHASES) {
+            result.put(phase.name(), phases[phase.ordinal()].valueAtPercentile(percentile) / 1e6);
+        }
+        return result;
+    }
+
+    /**
+     * Zwraca wszystkie metryki w tekstowym formacie ekspozycji Prometheusa.
+     *
+     * @return Tekst metryk.
+     */
+    @Override
+    public String getPrometheusText() {
+        StringBuilder out = new StringBuilder(2048);
+        out.append("# HELP allocator_orders_total Orders handled, by the rule that paid them.\n");
+        out.append("# TYPE allocator_orders_total counter\n");
+        getOrdersByRule().forEach((rule, hits) -> out.append("allocator_orders_total{rule=\"").append(rule).append("\"} ").append(hits).append('\n'));
+
+        out.append("# HELP allocator_failures_total Orders that could not be paid.\n");
+        out.append("# TYPE allocator_failures_total counter\n");
+        out.append("allocator_failures_total ").append(getFailures()).append('\n');
+
+        out.append("# HELP allocator_discount_total Discount granted, by payment method.\n");
+        out.append("# TYPE allocator_discount_total counter\n");
+        getDiscountByMethod().forEach((id, discount) -> appendSample(out, "allocator_discount_total", "method", id, number(discount)));
+
+        out.append("# HELP allocator_remaining_limit Remaining limit, by payment method.\n");
+        out.append("# TYPE allocator_remaining_limit gauge\n");
+        getRemainingLimits().forEach((id, limit) -> appendSample(out, "allocator_remaining_limit", "method", id, number(limit)));
+
+        out.append("# HELP allocator_phase_seconds Duration of processing phases.\n");
+        out.append("# TYPE allocator_phase_seconds summary\n");
+        for (Phase phase : PHASES) {
+            LatencyHistogram histogram = phases[phase.ordinal()];
+            String name = phase.name().toLowerCase(Locale.ROOT);
+            for (double quantile : new double[]{0.5, 0.9, 0.99}) {
+                out.append("allocator_phase_seconds{phase=\"").append(name).append("\",quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(histogram.valueAtPercentile(quantile * 100))).append('\n');
+            }
+            out.append("allocator_phase_seconds_sum{phase=\"").append(name).append("\"} ").append(seconds(histogram.getSum())).append('\n');
+            out.append("allocator_phase_seconds_count{phase=\"").append(name).append("\"} ").append(histogram.getCount()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void appendSample(StringBuilder out, String metric, String label, String value, String sample) {
+        out.append(metric).append('{').append(label).append("=\"")
+                .append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))      // Escaping wartości etykiety wg formatu Prometheusa.
+                .append("\"} ").append(sample).append('\n');
+    }
+
+    private static String number(BigDecimal value) {
+        return value.signum() == 0 ? "0" : value.stripTrailingZeros().toPlainString();
+    }
+
+    private static String seconds(long nanos) {
+        return BigDecimal.valueOf(nanos, 9).toPlainString();
+    }
+}
@@ -0,0 +1,24 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Interfejs JMX metryk alokatora (patrz AllocatorMetrics). Mapy są widoczne w konsoli JMX jako tabele.
+ */
+public interface AllocatorMetricsMXBean {
+
+    Map<String, Long> getOrdersByRule();
+
+    long getFailures();
+
+    Map<String, BigDecimal> getDiscountByMethod();
+
+    Map<String, BigDecimal> getRemainingLimits();
+
+    Map<String, Double> getPhaseP50Millis();
+
+    Map<String, Double> getPhaseP99Millis();
+
+    String getPrometheusText();
+}
@@ -0,0 +1,274 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Klasa ConcurrentAllocator alokuje płatności dla pojedynczych zamówień przychodzących z wielu wątków naraz
+ * (np. z równoległych żądań kasy), według tych samych kroków co Algorithm.
+ *
+ * Pozostały limit każdej metody jest liczbą long (w jednostkach 0.001 zł, patrz FixedPoint) w AtomicLongArray
+ * i jest zmniejszany wyłącznie operacją compare-and-set pod warunkiem, że limit wystarcza – dzięki temu żaden limit
+ * nigdy nie spada poniżej zera, bez użycia blokad. Wydatki i rabaty są sumowane w LongAdder, bo są często
+ * zwiększane, a rzadko odczytywane.
+ *
+ * Płatność częściowa punktami (krok 3) dotyczy dwóch metod: najpierw rezerwowane są punkty, potem karta
+ * na pozostałą kwotę; jeśli żadna karta nie ma wystarczającego limitu, rezerwacja punktów jest zwracana.
+ * Przez chwilę inne wątki widzą wtedy mniej punktów, niż zostanie ostatecznie – mogą więc wybrać inny krok,
+ * ale nigdy nie przekroczą limitu.
+ *
+ * Wywoływana z jednego wątku daje dokładnie ten sam wynik co Algorithm. Przy wielu wątkach wynik odpowiada
+ * przetworzeniu zamówień w kolejności, w jakiej wygrały wyścig o limity.
+ */
+public final class ConcurrentAllocator {
+
+    private final String[] ids;                                                         // Identyfikatory metod płatności w kolejności z listy wejściowej.
+    private final long[] discounts;                                                     // Rabaty procentowe przeskalowane o 10^4.
+    private final AtomicLongArray limits;                                               // Pozostałe limity w jednostkach.
+    private final LongAdder[] spendings;                                                // Sumy wydatków w jednostkach.
+    private final LongAdder totalDiscount = new LongAdder();                            // Suma naliczonych rabatów w jednostkach.
+    private final MethodIndex index;                                                    // Numeracja metod, ranking rabatów i lista kart.
+    private final int points;                                                           // Indeks metody "PUNKTY" lub -1, jeśli jej nie ma.
+    private AllocatorMetrics metrics;                                                   // Metryki – null, jeśli są wyłączone.
+
+    /**
+     * Konstruktor klasy ConcurrentAllocator.
+     * Limity są kopiowane – obiekty PaymentMethod nie są później modyfikowane.
+     *
+     * @param paymentMethods Lista dostępnych metod płatności.
+     * @throws ArithmeticException Jeśli limit lub rabat nie daje się zapisać dokładnie w arytmetyce stałoprzecinkowej.
+     */
+    public ConcurrentAllocator(List<PaymentMethod> paymentMethods) {
+        this.index = new MethodIndex(paymentMethods);
+        int size = paymentMethods.size();
+        this.ids = new String[size];
+        this.discounts = new long[size];
+        this.spendings = new LongAdder[size];
+        long[] initialLimits = new long[size];
+        for (int i = 0; i < size; i++) {
+            PaymentMethod pm = paymentMethods.get(i);
+            ids[i] = pm.id;
+            discounts[i] = FixedPoint.toPercentUnits(pm.discount);
+            initialLimits[i] = FixedPoint.toUnits(pm.limit);
+            spendings[i] = new LongAdder();
+        }
+        this.limits = new AtomicLongArray(initialLimits);
+        this.points = index.points();
+    }
+
+    /**
+     * Włącza zbieranie metryk i ustawia ten alokator jako źródło pozostałych limitów w metrykach.
+     * Należy ją wywołać przed rozpoczęciem alokacji.
+     *
+     * @param metrics Metryki lub null, aby wyłączyć zbieranie.
+     */
+    public void setMetrics(AllocatorMetrics metrics) {
+        this.metrics = metrics;
+        if (metrics != null) {
+            metrics.setRemainingLimits(this::getRemainingLimits);
+        }
+    }
+
+    /**
+     * Alokuje płatność dla pojedynczego zamówienia. Metoda jest bezpieczna wątkowo.
+     *
+     * @param order Zamówienie, dla którego przydzielamy metody płatności.
+     * @return Kwoty pobrane z poszczególnych metod (jedna lub dwie pozycje); pusta lista, jeśli zamówienia nie da się opłacić.
+     * @throws ArithmeticException Jeśli wartość zamówienia ma więcej niż 2 miejsca po przecinku.
+     */
+    public List<PaymentAllocation> allocate(Order order) {
+        long value = FixedPoint.orderValueToUnits(order.value);
+
+        //  1. Pełna płatność punktami
+        if (points >= 0) {
+            long discount = FixedPoint.percentOf(value, discounts[points]);
+            if (tryConsume(points, value, value - discount)) {
+                totalDiscount.add(discount);
+                record(OrderResult.Rule.FULL_POINTS, points, discount);
+                return Collections.singletonList(allocation(points, value - discount));
+            }
+        }
+
+        //  2. Pełna płatność promocyjną kartą – przy nieudanej rezerwacji (inny wątek był szybszy) wybór jest powtarzany.
+        if (order.promotions != null) {
+            for (int best = bestPromotion(order, value); best >= 0; best = bestPromotion(order, value)) {
+                long discount = FixedPoint.percentOf(value, discounts[best]);
+                if (tryConsume(best, value, value - discount)) {
+                    totalDiscount.add(discount);
+                    record(OrderResult.Rule.PROMOTION_CARD, best, discount);
+                    return Collections.singletonList(allocation(best, value - discount));
+                }
+            }
+        }
+
+        //  3. Częściowa płatność punktami + karta (z 10% rabatem)
+        if (points >= 0) {
+            long discount = FixedPoint.tenPercentOf(value);
+            long toPayAfterDiscount = value - discount;
+            long pointsUsed = reservePartialPoints(discount, toPayAfterDiscount);
+            if (pointsUsed >= 0) {
+                int card = consumeFirstAvailableCard(toPayAfterDiscount - pointsUsed);
+                if (card >= 0) {
+                    spendings[points].add(pointsUsed);
+                    totalDiscount.add(discount);
+                    record(OrderResult.Rule.PARTIAL_POINTS, points, discount);
+                    List<PaymentAllocation> allocations = new ArrayList<>(2);
+                    allocations.add(allocation(points, pointsUsed));
+                    allocations.add(allocation(card, toPayAfterDiscount - pointsUsed));
+                    return allocations;
+                }
+                limits.addAndGet(points, pointsUsed);                                   // Wycofanie rezerwacji punktów – brak karty na resztę.
+            }
+        }
+
+        //  4. Fallback - opłacenie całego zamówienia przy użyciu dowolnej metody (innej niż "PUNKTY")
+        int card = consumeFirstAvailableCard(value);
+        if (card >= 0) {
+            record(OrderResult.Rule.CARD, card, 0);
+            return Collections.singletonList(allocation(card, value));
+        }
+        record(OrderResult.Rule.UNPAID, -1, 0);
+        return Collections.emptyList();
+    }
+
+    private void record(OrderResult.Rule rule, int method, long discount) {
+        if (metrics != null) {
+            metrics.recordOrder(rule, method >= 0 ? ids[method] : null, discount);
+        }
+    }
+
+    /**
+     * Wybiera promocję z najwyższym rabatem, której limit w tej chwili pokrywa całe zamówienie;
+     * przy równych rabatach wygrywa wcześniejsza na liście promocji.
+     *
+     * @return Indeks metody lub -1, jeśli żadna promocja nie ma wystarczającego limitu.
+     */
+    private int bestPromotion(Order order, long value) {
+        int best = -1;
+        for (String promotion : order.promotions) {
+            Integer candidate = index.indexOf(promotion);
+            if (candidate != null && (best < 0 || index.discountRank(candidate) < index.discountRank(best))
+                    && limits.get(candidate) >= value) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Rezerwuje punkty do częściowej płatności: tyle, ile jest (nie więcej niż kwota do zapłaty),
+     * o ile to co najmniej minimum.
+     *
+     * @return Liczba zarezerwowanych jednostek lub -1, jeśli punktów jest mniej niż minimum.
+     */
+    private long reservePartialPoints(long minimum, long toPay) {
+        while (true) {
+            long current = limits.get(points);
+            if (current < minimum) {
+                return -1;
+            }
+            long used = Math.min(current, toPay);
+            if (limits.compareAndSet(points, current, current - used)) {
+                return used;
+            }
+        }
+    }
+
+    /**
+     * Pobiera kwotę z pierwszej (w kolejności z listy) karty, która ma wystarczający limit.
+     * Jeśli wybraną kartę w międzyczasie wyczerpał inny wątek, wyszukiwanie zaczyna się od nowa.
+     *
+     * @return Indeks metody lub -1, jeśli żadna karta nie ma wystarczającego limitu.
+     */
+    private int consumeFirstAvailableCard(long amount) {
+        for (int position = 0; position < index.cardCount(); position++) {
+            int card = index.card(position);
+            if (limits.get(card) >= amount) {
+                if (tryConsume(card, amount, amount)) {
+                    return card;
+                }
+                position = -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Atomowo zmniejsza limit metody o kwotę, o ile limit wynosi co najmniej required.
+     *
+     * @return True, jeśli kwota została pobrana.
+     */
+    private boolean tryConsume(int method, long required, long amount) {
+        while (true) {
+            long current = limits.get(method);
+            if (current < required) {
+                return false;
+            }
+            if (limits.compareAndSet(method, current, current - amount)) {
+                spendings[method].add(amount);
+                return true;
+            }
+        }
+    }
+
+    private PaymentAllocation allocation(int method, long amount) {
+        return new PaymentAllocation(ids[method], FixedPoint.toBigDecimal(amount));
+    }
+
+    /**
+     * Zwraca sumy wydatków według metod płatności. Odczyt w trakcie alokacji daje przybliżony stan.
+     *
+     * @return Mapa identyfikator metody -> suma wydatków.
+     */
+    public Map<String, BigDecimal> getMethodSpendings() {
+        Map<String, BigDecimal> result = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            result.put(ids[i], FixedPoint.toBigDecimal(spendings[i].sum()));
+        }
+        return result;
+    }
+
+    /**
+     * Zwraca pozostały limit metody płatności.
+     *
+     * @param methodId Identyfikator metody.
+     * @return Pozostały limit.
+     * @throws IllegalArgumentException Jeśli metoda o takim identyfikatorze nie istnieje.
+     */
+    public BigDecimal getRemainingLimit(String methodId) {
+        Integer method = index.indexOf(methodId);
+        if (method == null) {
+            throw new IllegalArgumentException("Unknown payment method: " + methodId);
+        }
+        return FixedPoint.toBigDecimal(limits.get(method));
+    }
+
+    /**
+     * Zwraca pozostałe limity wszystkich metod płatności. Odczyt w trakcie alokacji daje przybliżony stan.
+     *
+     * @return Mapa identyfikator metody -> pozostały limit, w kolejności z listy metod.
+     */
+    public Map<String, BigDecimal> getRemainingLimits() {
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            result.put(ids[i], FixedPoint.toBigDecimal(limits.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Zwraca sumę wszystkich naliczonych rabatów.
+     *
+     * @return Łączny rabat.
+     */
+    public BigDecimal getTotalDiscount() {
+        return FixedPoint.toBigDecimal(totalDiscount.sum());
+    }
+}
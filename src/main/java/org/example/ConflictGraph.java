@@ -0,0 +1,205 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Klasa ConflictGraph dzieli zamówienia na niezależne grupy (spójne składowe grafu konfliktów zamówienie–metoda).
+ *
+ * Zamówienie "sięga" do metody płatności, jeśli wynik jego alokacji może zależeć od limitu tej metody.
+ * Zbiór takich metod szacujemy z góry, przechodząc zamówienia w kolejności alokacji i pamiętając dla każdej metody,
+ * ile najwyżej mogły z niej zużyć wcześniejsze zamówienia (każde zamówienie zużywa z jednej metody co najwyżej
+ * swoją wartość). Dzięki temu wiadomo, jaki limit metoda na pewno jeszcze ma:
+ * - "PUNKTY" – zamówienie sięga do nich, jeśli ich początkowy limit to co najmniej 10% wartości (kroki 1 i 3);
+ *   jeśli punktów na pewno wystarczy na całe zamówienie, krok 1 zawsze się powiedzie i nic więcej się nie liczy,
+ * - karty z listy promocji z początkowym limitem pokrywającym całe zamówienie (krok 2); jeśli któraś z nich na pewno
+ *   ma wystarczający limit, krok 2 zawsze się powiedzie – zamówienie sięga wtedy tylko do promocji o rabacie nie
+ *   niższym niż ta karta i nie dochodzi do kroków 3 i 4,
+ * - w przeciwnym razie również do każdej karty, której limit pokrywa dopłatę z kroku 3 (co najmniej 90% wartości
+ *   minus limit punktów) lub, gdy punkty są poza zasięgiem, całą wartość zamówienia (krok 4).
+ * Metody, których limit nie może wystarczyć, nie mogą zmienić decyzji, więc pominięcie ich niczego nie zmienia.
+ *
+ * Zamówienia sięgające do wspólnej metody trafiają do jednej grupy. Grupy nie dzielą żadnej metody, więc można
+ * je alokować równolegle, a wynik każdej z nich jest taki sam jak w przebiegu sekwencyjnym.
+ */
+final class ConflictGraph {
+
+    private static final BigDecimal NINETY_PERCENT = new BigDecimal("0.9");
+    private static final BigDecimal TEN_PERCENT = BigDecimal.valueOf(0.10);
+
+    /**
+     * Niezależna grupa zamówień wraz z metodami, do których te zamówienia sięgają.
+     */
+    static final class Component {
+        final int[] methods;                                                            // Indeksy metod, rosnąco (kolejność z listy wejściowej).
+        final int[] orders;                                                             // Pozycje zamówień na liście wejściowej, rosnąco.
+
+        Component(int[] methods, int[] orders) {
+            this.methods = methods;
+            this.orders = orders;
+        }
+    }
+
+    private final int[] parent;                                                         // Las zbiorów rozłącznych (union-find) nad metodami.
+
+    private ConflictGraph(int methodCount) {
+        this.parent = new int[methodCount];
+        for (int i = 0; i < methodCount; i++) {
+            parent[i] = i;
+        }
+    }
+
+    /**
+     * Dzieli zamówienia na niezależne grupy.
+     *
+     * @param methods Metody płatności z bieżącymi limitami.
+     * @param index Indeks tych metod.
+     * @param orders Zamówienia do podziału, w kolejności alokacji.
+     * @param unreachable Lista, do której trafiają pozycje zamówień nie sięgających do żadnej metody (nie da się ich opłacić).
+     * @return Grupy zamówień, od największej.
+     */
+    static List<Component> partition(PaymentMethod[] methods, MethodIndex index, List<Order> orders, List<Integer> unreachable) {
+        ConflictGraph graph = new ConflictGraph(methods.length);
+
+        Integer[] sorted = new Integer[index.cardCount()];                              // Karty malejąco według limitu – karty z limitem ≥ X tworzą prefiks tej listy.
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = index.card(i);
+        }
+        Arrays.sort(sorted, (a, b) -> methods[b].limit.compareTo(methods[a].limit));
+        int joinedPrefix = 1;                                                           // Długość prefiksu kart już połączonych w jeden zbiór.
+
+        BigDecimal[] used = new BigDecimal[methods.length];                             // Górne oszacowanie zużycia każdej metody przez wcześniejsze zamówienia.
+        Arrays.fill(used, BigDecimal.ZERO);
+        BigDecimal usedByFallback = BigDecimal.ZERO;                                    // To samo dla kroków 3 i 4 – liczone wspólnie dla wszystkich kart.
+
+        int points = index.points();
+        int[] anchor = new int[orders.size()];                                          // Dowolna metoda, do której sięga zamówienie (-1, jeśli żadna).
+        for (int o = 0; o < orders.size(); o++) {
+            Order order = orders.get(o);
+            BigDecimal value = order.value;
+            anchor[o] = -1;
+
+            boolean pointsReachable = points >= 0 && methods[points].limit.compareTo(value.multiply(TEN_PERCENT)) >= 0;
+            if (pointsReachable) {
+                anchor[o] = points;
+                boolean pointsGuaranteed = methods[points].limit.subtract(used[points]).compareTo(value) >= 0;
+                used[points] = used[points].add(value);
+                if (pointsGuaranteed) {                                                 // Krok 1 na pewno się powiedzie.
+                    continue;
+                }
+            }
+
+            int guaranteedRank = Integer.MAX_VALUE;                                     // Najlepszy ranking promocji, która na pewno ma wystarczający limit.
+            if (order.promotions != null) {
+                for (String promotion : order.promotions) {
+                    Integer method = index.indexOf(promotion);
+                    if (method != null && methods[method].limit.subtract(used[method]).subtract(usedByFallback).compareTo(value) >= 0) {
+                        guaranteedRank = Math.min(guaranteedRank, index.discountRank(method));
+                    }
+                }
+                for (String promotion : order.promotions) {
+                    Integer method = index.indexOf(promotion);
+                    if (method != null && methods[method].limit.compareTo(value) >= 0 && index.discountRank(method) <= guaranteedRank) {
+                        anchor[o] = graph.join(anchor[o], method);
+                        used[method] = used[method].add(value);
+                    }
+                }
+            }
+            if (guaranteedRank != Integer.MAX_VALUE) {                                  // Krok 2 na pewno się powiedzie – kroki 3 i 4 nie wystąpią.
+                continue;
+            }
+
+            BigDecimal cardThreshold = pointsReachable
+                    ? value.multiply(NINETY_PERCENT).subtract(methods[points].limit).max(BigDecimal.ZERO)
+                    : value;
+            int reachableCards = countAtLeast(sorted, methods, cardThreshold);
+            if (reachableCards > 0) {
+                while (joinedPrefix < reachableCards) {
+                    graph.union(sorted[0], sorted[joinedPrefix++]);
+                }
+                anchor[o] = graph.join(anchor[o], sorted[0]);
+                usedByFallback = usedByFallback.add(value);
+            }
+        }
+
+        Map<Integer, List<Integer>> ordersByRoot = new HashMap<>();
+        for (int o = 0; o < anchor.length; o++) {
+            if (anchor[o] < 0) {
+                unreachable.add(o);
+            } else {
+                ordersByRoot.computeIfAbsent(graph.find(anchor[o]), root -> new ArrayList<>()).add(o);
+            }
+        }
+        Map<Integer, List<Integer>> methodsByRoot = new HashMap<>();
+        for (int m = 0; m < methods.length; m++) {
+            int root = graph.find(m);
+            if (ordersByRoot.containsKey(root)) {
+                methodsByRoot.computeIfAbsent(root, r -> new ArrayList<>()).add(m);
+            }
+        }
+
+        List<Component> components = new ArrayList<>();
+        for (Map.Entry<Integer, List<Integer>> entry : ordersByRoot.entrySet()) {
+            components.add(new Component(toArray(methodsByRoot.get(entry.getKey())), toArray(entry.getValue())));
+        }
+        components.sort((a, b) -> a.orders.length != b.orders.length
+                ? Integer.compare(b.orders.length, a.orders.length)
+                : Integer.compare(a.orders[0], b.orders[0]));                          // Największe grupy najpierw – lepsze rozłożenie pracy między wątki.
+        return components;
+    }
+
+    /**
+     * Liczba kart (prefiks listy posortowanej malejąco) z limitem co najmniej równym kwocie – wyszukiwanie binarne.
+     */
+    private static int countAtLeast(Integer[] sorted, PaymentMethod[] methods, BigDecimal amount) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (methods[sorted[middle]].limit.compareTo(amount) >= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Łączy zbiór metody anchor (jeśli istnieje) ze zbiorem metody method i zwraca nowy punkt zaczepienia.
+     */
+    private int join(int anchor, int method) {
+        if (anchor >= 0) {
+            union(anchor, method);
+        }
+        return method;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    private int find(int a) {
+        while (parent[a] != a) {
+            parent[a] = parent[parent[a]];                                              // Kompresja ścieżki przez połowienie.
+            a = parent[a];
+        }
+        return a;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+}
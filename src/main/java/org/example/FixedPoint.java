@@ -0,0 +1,128 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Klasa FixedPoint zawiera operacje arytmetyki stałoprzecinkowej używane przez silnik alokacji działający na typie long.
+ *
+ * Kwoty są przechowywane w tysięcznych częściach złotego (1 jednostka = 0.001 zł = 0.1 grosza).
+ * Dodatkowe miejsce po groszach jest potrzebne, ponieważ reguła częściowej płatności punktami
+ * (stały rabat 10%) daje w obecnym algorytmie kwoty z trzecim miejscem po przecinku,
+ * np. 10% z 150.05 = 15.005. Dzięki temu wyniki są identyczne z wynikami liczonymi na BigDecimal.
+ *
+ * Rabaty procentowe są przechowywane z dokładnością do 0.0001 punktu procentowego.
+ */
+final class FixedPoint {
+
+    static final int SCALE = 3;                                                         // Liczba miejsc po przecinku jednostki kwoty (0.001 zł).
+    static final int PERCENT_SCALE = 4;                                                 // Liczba miejsc po przecinku rabatu procentowego.
+
+    private static final long GROSZ = 10;                                               // Jeden grosz w jednostkach kwoty.
+    private static final long DISCOUNT_DIVISOR = 100L * 10_000L * GROSZ;                // 100% * skala procentu * grosz – dzielnik przy wyznaczaniu rabatu zaokrąglonego do groszy.
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Zamienia kwotę na liczbę jednostek (0.001 zł).
+     *
+     * @param amount Kwota jako BigDecimal.
+     * @return Kwota w jednostkach.
+     * @throws ArithmeticException Jeśli kwota ma więcej niż 3 miejsca po przecinku lub nie mieści się w typie long.
+     */
+    static long toUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Zamienia wartość zamówienia na jednostki. Wartość zamówienia musi być wyrażona co najwyżej w groszach,
+     * inaczej stały rabat 10% nie dałby się zapisać dokładnie.
+     *
+     * @param value Wartość zamówienia.
+     * @return Wartość w jednostkach.
+     * @throws ArithmeticException Jeśli wartość ma więcej niż 2 miejsca po przecinku.
+     */
+    static long orderValueToUnits(BigDecimal value) {
+        long units = toUnits(value);
+        if (units % GROSZ != 0) {
+            throw new ArithmeticException("Order value must not have more than 2 decimal places: " + value);
+        }
+        return units;
+    }
+
+    /**
+     * Zamienia wartość zamówienia na grosze (zapis w migawce, patrz Snapshot).
+     *
+     * @param value Wartość zamówienia.
+     * @return Wartość w groszach.
+     * @throws ArithmeticException Jeśli wartość ma więcej niż 2 miejsca po przecinku.
+     */
+    static long orderValueToGrosze(BigDecimal value) {
+        return orderValueToUnits(value) / GROSZ;
+    }
+
+    /**
+     * Zamienia kwotę w groszach na jednostki.
+     *
+     * @param grosze Kwota w groszach.
+     * @return Kwota w jednostkach.
+     */
+    static long groszeToUnits(long grosze) {
+        return Math.multiplyExact(grosze, GROSZ);
+    }
+
+    /**
+     * Zamienia rabat procentowy (np. 15 lub 12.5) na liczbę całkowitą z dokładnością 0.0001.
+     *
+     * @param percent Rabat procentowy.
+     * @return Rabat przeskalowany o 10^4.
+     */
+    static long toPercentUnits(BigDecimal percent) {
+        return percent.setScale(PERCENT_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Zamienia liczbę jednostek z powrotem na BigDecimal.
+     *
+     * @param units Kwota w jednostkach.
+     * @return Kwota jako BigDecimal (3 miejsca po przecinku).
+     */
+    static BigDecimal toBigDecimal(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    /**
+     * Oblicza rabat procentowy od kwoty, zaokrąglony do groszy metodą HALF_UP –
+     * odpowiednik value.multiply(percent).divide(100, 2, HALF_UP).
+     *
+     * @param value Kwota w jednostkach.
+     * @param percentUnits Rabat procentowy przeskalowany o 10^4.
+     * @return Rabat w jednostkach (zawsze wielokrotność grosza).
+     */
+    static long percentOf(long value, long percentUnits) {
+        return divideHalfUp(Math.multiplyExact(value, percentUnits), DISCOUNT_DIVISOR) * GROSZ;
+    }
+
+    /**
+     * Stały rabat 10% z reguły częściowej płatności punktami – odpowiednik value.multiply(0.10), bez zaokrąglania.
+     *
+     * @param value Wartość zamówienia w jednostkach (wielokrotność grosza).
+     * @return Rabat w jednostkach.
+     */
+    static long tenPercentOf(long value) {
+        return value / 10;
+    }
+
+    /**
+     * Dzielenie całkowite z zaokrągleniem HALF_UP (połówki zaokrąglane od zera).
+     */
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
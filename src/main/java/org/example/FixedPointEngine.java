@@ -0,0 +1,300 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Klasa FixedPointEngine realizuje te same zasady alokacji co Algorithm, ale liczy kwoty na typie long
+ * (w jednostkach 0.001 zł, patrz FixedPoint) zamiast na BigDecimal.
+ *
+ * Metody płatności są ponumerowane (patrz MethodIndex), a limity i wydatki trzymane w tablicach,
+ * dzięki czemu alokacja pojedynczego zamówienia praktycznie nie tworzy nowych obiektów.
+ * Wyniki są identyczne z wynikami ścieżki BigDecimal.
+ */
+final class FixedPointEngine {
+
+    private final String[] ids;                                                         // Identyfikatory metod płatności w kolejności z listy wejściowej.
+    private final long[] discounts;                                                     // Rabaty procentowe przeskalowane o 10^4.
+    private final long[] limits;                                                        // Pozostałe limity w jednostkach.
+    private final long[] spendings;                                                     // Sumy wydatków w jednostkach.
+    private final MethodIndex index;                                                    // Numeracja metod, ranking rabatów i lista kart.
+    private final int points;                                                           // Indeks metody "PUNKTY" lub -1, jeśli jej nie ma.
+    private final CardLimits cardLimits;                                                // Drzewo limitów kart.
+    private long totalDiscount;                                                         // Suma naliczonych rabatów w jednostkach.
+
+    private OrderResult.Rule lastRule;                                                  // Szczegóły ostatniej alokacji – zapisywane zawsze (bez tworzenia obiektów),
+    private final int[] lastMethods = new int[2];                                       // a zamieniane na OrderResult tylko na żądanie (patrz lastResult).
+    private final long[] lastAmounts = new long[2];
+    private int lastCount;
+    private long lastDiscount;
+    private int[] promotionScratch = new int[4];                                        // Promocje bieżącego zamówienia zamienione na indeksy metod.
+
+    /**
+     * Konstruktor klasy FixedPointEngine.
+     * Przepisuje rabaty i limity metod płatności do tablic typu long.
+     *
+     * @param paymentMethods Lista dostępnych metod płatności.
+     * @throws ArithmeticException Jeśli limit lub rabat nie daje się zapisać dokładnie w arytmetyce stałoprzecinkowej.
+     */
+    FixedPointEngine(List<PaymentMethod> paymentMethods) {
+        this.index = new MethodIndex(paymentMethods);
+        int size = paymentMethods.size();
+        this.ids = new String[size];
+        this.discounts = new long[size];
+        this.limits = new long[size];
+        this.spendings = new long[size];
+        for (int i = 0; i < size; i++) {
+            PaymentMethod pm = paymentMethods.get(i);
+            ids[i] = pm.id;
+            discounts[i] = FixedPoint.toPercentUnits(pm.discount);
+            limits[i] = FixedPoint.toUnits(pm.limit);
+        }
+        this.points = index.points();
+        this.cardLimits = new CardLimits();
+    }
+
+    /**
+     * Alokuje płatność dla pojedynczego zamówienia według tych samych kroków co Algorithm.allocatePayment.
+     *
+     * @param order Zamówienie, dla którego przydzielamy metodę płatności.
+     * @return True, jeśli zamówienie zostało opłacone; false w przeciwnym razie.
+     */
+    boolean allocate(Order order) {
+        int count = 0;
+        if (order.promotions != null) {
+            if (order.promotions.size() > promotionScratch.length) {
+                promotionScratch = new int[order.promotions.size()];
+            }
+            for (String promotion : order.promotions) {
+                Integer candidate = index.indexOf(promotion);
+                promotionScratch[count++] = candidate != null ? candidate : -1;
+            }
+        }
+        return allocate(FixedPoint.orderValueToUnits(order.value), promotionScratch, 0, count);
+    }
+
+    /**
+     * Wariant allocate dla zamówienia podanego wartością i promocjami zamienionymi na indeksy metod
+     * (np. wprost z kolumn Snapshot) – bez obiektu Order.
+     *
+     * @param value Wartość zamówienia w jednostkach.
+     * @param promotions Indeksy metod z promocji zamówienia (-1 dla promocji bez metody płatności).
+     * @param offset Pozycja pierwszej promocji zamówienia w tablicy promotions.
+     * @param count Liczba promocji.
+     * @return True, jeśli zamówienie zostało opłacone; false w przeciwnym razie.
+     */
+    boolean allocate(long value, int[] promotions, int offset, int count) {
+
+        //  1. Pełna płatność punktami
+        if (points >= 0 && limits[points] >= value) {
+            long discount = FixedPoint.percentOf(value, discounts[points]);
+            pay(points, value - discount);
+            totalDiscount += discount;
+            record(OrderResult.Rule.FULL_POINTS, discount, points, value - discount);
+            return true;
+        }
+
+        //  2. Pełna płatność promocyjną kartą – metoda o najwyższym rabacie z wystarczającym limitem,
+        //     przy równych rabatach wygrywa wcześniejsza na liście promocji (jak przy stabilnym sortowaniu).
+        if (count > 0) {
+            int best = -1;
+            for (int i = offset; i < offset + count; i++) {
+                int candidate = promotions[i];
+                if (candidate >= 0 && (best < 0 || index.discountRank(candidate) < index.discountRank(best))
+                        && limits[candidate] >= value) {
+                    best = candidate;
+                }
+            }
+            if (best >= 0) {
+                long discount = FixedPoint.percentOf(value, discounts[best]);
+                pay(best, value - discount);
+                totalDiscount += discount;
+                record(OrderResult.Rule.PROMOTION_CARD, discount, best, value - discount);
+                return true;
+            }
+        }
+
+        //  3. Częściowa płatność punktami + karta (z 10% rabatem)
+        if (points >= 0 && limits[points] >= FixedPoint.tenPercentOf(value)) {
+            long toPayAfterDiscount = value - FixedPoint.tenPercentOf(value);
+            long pointsUsed = Math.min(limits[points], toPayAfterDiscount);
+            int card = payWithFirstAvailableMethod(toPayAfterDiscount - pointsUsed);
+            if (card >= 0) {
+                pay(points, pointsUsed);
+                totalDiscount += FixedPoint.tenPercentOf(value);
+                record(OrderResult.Rule.PARTIAL_POINTS, FixedPoint.tenPercentOf(value), points, pointsUsed);
+                lastMethods[1] = card;
+                lastAmounts[1] = toPayAfterDiscount - pointsUsed;
+                lastCount = 2;
+                return true;
+            }
+        }
+
+        //  4. Fallback - opłacenie całego zamówienia przy użyciu dowolnej metody (innej niż "PUNKTY")
+        int card = payWithFirstAvailableMethod(value);
+        if (card < 0) {
+            lastRule = OrderResult.Rule.UNPAID;
+            lastCount = 0;
+            lastDiscount = 0;
+            return false;
+        }
+        record(OrderResult.Rule.CARD, 0, card, value);
+        return true;
+    }
+
+    /**
+     * Opłaca kwotę pierwszą (w kolejności z listy) metodą inną niż "PUNKTY", która ma wystarczający limit.
+     *
+     * @return Indeks metody lub -1, jeśli żadna karta nie ma wystarczającego limitu.
+     */
+    private int payWithFirstAvailableMethod(long amount) {
+        int position = cardLimits.firstAtLeast(amount);
+        if (position < 0) {
+            return -1;
+        }
+        int card = index.card(position);
+        pay(card, amount);
+        return card;
+    }
+
+    /**
+     * Zapamiętuje szczegóły alokacji opłaconej jedną metodą.
+     */
+    private void record(OrderResult.Rule rule, long discount, int method, long amount) {
+        lastRule = rule;
+        lastDiscount = discount;
+        lastMethods[0] = method;
+        lastAmounts[0] = amount;
+        lastCount = 1;
+    }
+
+    /**
+     * Przekazuje do metryk krok i rabat ostatniego wywołania allocate; rabat przypisywany jest pierwszej metodzie.
+     *
+     * @param metrics Metryki alokatora.
+     */
+    void recordLast(AllocatorMetrics metrics) {
+        metrics.recordOrder(lastRule, lastCount > 0 ? ids[lastMethods[0]] : null, lastDiscount);
+    }
+
+    /**
+     * Zwraca wynik ostatniego wywołania allocate.
+     *
+     * @param orderId Identyfikator zamówienia przekazanego do ostatniego wywołania allocate.
+     * @return Wynik alokacji tego zamówienia.
+     */
+    OrderResult lastResult(String orderId) {
+        List<PaymentAllocation> allocations;
+        if (lastCount == 0) {
+            allocations = Collections.emptyList();
+        } else if (lastCount == 1) {
+            allocations = Collections.singletonList(new PaymentAllocation(ids[lastMethods[0]], FixedPoint.toBigDecimal(lastAmounts[0])));
+        } else {
+            allocations = new ArrayList<>(lastCount);
+            for (int i = 0; i < lastCount; i++) {
+                allocations.add(new PaymentAllocation(ids[lastMethods[i]], FixedPoint.toBigDecimal(lastAmounts[i])));
+            }
+        }
+        return new OrderResult(orderId, lastRule, allocations, FixedPoint.toBigDecimal(lastDiscount));
+    }
+
+    /**
+     * Rejestruje wydatek i zmniejsza limit metody.
+     */
+    private void pay(int method, long amount) {
+        spendings[method] += amount;
+        limits[method] -= amount;
+        int position = index.cardPosition(method);
+        if (position >= 0) {
+            cardLimits.update(position);
+        }
+    }
+
+    /**
+     * Drzewo limitów kart dla arytmetyki stałoprzecinkowej.
+     */
+    private final class CardLimits extends LimitTree {
+
+        private long threshold;                                                         // Kwota szukana w bieżącym zapytaniu.
+
+        CardLimits() {
+            super(index.cardCount());
+            build();
+        }
+
+        int firstAtLeast(long amount) {
+            threshold = amount;
+            return firstCovering();
+        }
+
+        @Override
+        protected int compareLimits(int a, int b) {
+            return Long.compare(limits[index.card(a)], limits[index.card(b)]);
+        }
+
+        @Override
+        protected boolean covers(int position) {
+            return limits[index.card(position)] >= threshold;
+        }
+    }
+
+    /**
+     * Przejmuje wynik alokacji wykonanej dla tej metody poza silnikiem (np. równolegle, przez osobny silnik).
+     *
+     * @param method Indeks metody.
+     * @param spent Kwota wydana poza silnikiem.
+     * @param limit Limit metody po tej alokacji.
+     */
+    void absorb(int method, long spent, long limit) {
+        spendings[method] += spent;
+        limits[method] = limit;
+        int position = index.cardPosition(method);
+        if (position >= 0) {
+            cardLimits.update(position);
+        }
+    }
+
+    void absorbDiscount(long discount) {
+        totalDiscount += discount;
+    }
+
+    /**
+     * Zamienia identyfikatory promocji (np. słownik Snapshot) na indeksy metod płatności.
+     *
+     * @param promotionIds Identyfikatory promocji.
+     * @return Tablica numer promocji -> indeks metody lub -1, jeśli takiej metody nie ma.
+     */
+    int[] methodsOf(List<String> promotionIds) {
+        int[] result = new int[promotionIds.size()];
+        for (int i = 0; i < result.length; i++) {
+            Integer method = index.indexOf(promotionIds.get(i));
+            result[i] = method != null ? method : -1;
+        }
+        return result;
+    }
+
+    int methodCount() {
+        return ids.length;
+    }
+
+    MethodIndex index() {
+        return index;
+    }
+
+    String methodId(int method) {
+        return ids[method];
+    }
+
+    long spending(int method) {
+        return spendings[method];
+    }
+
+    long limit(int method) {
+        return limits[method];
+    }
+
+    long totalDiscount() {
+        return totalDiscount;
+    }
+}
@@ -0,0 +1,673 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Klasa GlobalOptimizer szuka alokacji maksymalizującej łączny rabat dla całej partii zamówień,
+ * w odróżnieniu od zachłannego Algorithm, który rozpatruje zamówienia po kolei i bierze pierwszą pasującą regułę.
+ *
+ * Przeszukiwanie odbywa się metodą podziału i ograniczeń (branch-and-bound):
+ * - każde zamówienie ma skończoną listę wariantów płatności zgodnych z zasadami zadania:
+ *   całość punktami, całość kartą promocyjną z listy promocji zamówienia, częściowo punktami (co najmniej 10%
+ *   wartości, stały rabat 10%) z dopłatą kartą, całość dowolną kartą bez rabatu,
+ * - górne ograniczenie rabatu daje relaksacja Lagrange'a (ceny limitów metod wyznaczane metodą subgradientową),
+ *   a gałąź jest odcinana, gdy ograniczenie nie pozwala poprawić najlepszego znalezionego rozwiązania,
+ * - zamówienia są rozpatrywane od największej wartości, a warianty od największego rabatu pomniejszonego o cenę
+ *   zużytych limitów – dzięki temu już pierwsze zejście w głąb drzewa daje zwykle rozwiązanie lepsze od zachłannego.
+ *
+ * Rozwiązania porównywane są najpierw po liczbie opłaconych zamówień, a dopiero potem po łącznym rabacie,
+ * więc optymalizacja rabatu nigdy nie odbywa się kosztem nieopłaconych zamówień.
+ * Punktem startowym jest wynik algorytmu zachłannego – zwrócone rozwiązanie nigdy nie jest od niego gorsze.
+ * Przeszukiwanie ma limit czasu; po jego upływie zwracane jest najlepsze znalezione do tej pory rozwiązanie.
+ *
+ * Przestrzeń przeszukiwania jest zawężona: częściowa płatność punktami ma tylko dwa podziały (tyle punktów, ile się
+ * da, albo dokładnie 10% wartości), a dopłata i płatność kartą bez rabatu trafiają zawsze do pierwszej karty
+ * z wystarczającym limitem (jak w Algorithm). Przeszukanie całego drzewa (Result.isSearchComplete) daje więc
+ * rozwiązanie najlepsze w tej przestrzeni, a nie w ogóle – pośrednie podziały punktów lub inny wybór karty
+ * mogłyby dać więcej.
+ *
+ * Obliczenia odbywają się w arytmetyce stałoprzecinkowej (patrz FixedPoint), więc obowiązują te same
+ * ograniczenia precyzji co dla Algorithm.Arithmetic.FIXED_POINT.
+ */
+public class GlobalOptimizer {
+
+    // Rodzaje wariantów płatności – kodowane w najmłodszych bitach kodu wariantu, indeks metody w pozostałych.
+    private static final int FULL_POINTS = 0;                                           // Całość punktami.
+    private static final int PROMOTION = 1;                                             // Całość kartą promocyjną.
+    private static final int PARTIAL_MAX = 2;                                           // Częściowo punktami – tyle punktów, ile się da.
+    private static final int PARTIAL_MIN = 3;                                           // Częściowo punktami – dokładnie 10% wartości, reszta punktów zostaje dla innych zamówień.
+    private static final int CARD = 4;                                                  // Całość pierwszą kartą z wystarczającym limitem, bez rabatu.
+    private static final int UNPAID = 5;                                                // Zamówienie nieopłacone – tylko gdy żaden inny wariant nie jest możliwy.
+    private static final int TYPE_BITS = 3;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    private static final int DEADLINE_CHECK_MASK = 4095;                                // Co ile kroków przeszukiwania sprawdzamy limit czasu.
+
+    private final List<PaymentMethod> paymentMethods;
+
+    /**
+     * Wynik globalnej optymalizacji.
+     */
+    public static class Result {
+        private final Map<String, BigDecimal> methodSpendings;
+        private final BigDecimal totalDiscount;
+        private final BigDecimal greedyDiscount;
+        private final int unpaidOrders;
+        private final boolean searchComplete;
+
+        Result(Map<String, BigDecimal> methodSpendings, BigDecimal totalDiscount, BigDecimal greedyDiscount,
+               int unpaidOrders, boolean searchComplete) {
+            this.methodSpendings = methodSpendings;
+            this.totalDiscount = totalDiscount;
+            this.greedyDiscount = greedyDiscount;
+            this.unpaidOrders = unpaidOrders;
+            this.searchComplete = searchComplete;
+        }
+
+        public Map<String, BigDecimal> getMethodSpendings() {
+            return new HashMap<>(methodSpendings);
+        }
+
+        /**
+         * @return Łączny rabat znalezionego rozwiązania.
+         */
+        public BigDecimal getTotalDiscount() {
+            return totalDiscount;
+        }
+
+        /**
+         * @return Łączny rabat algorytmu zachłannego na tych samych danych (punkt odniesienia).
+         */
+        public BigDecimal getGreedyDiscount() {
+            return greedyDiscount;
+        }
+
+        /**
+         * @return Liczba zamówień, których nie udało się opłacić.
+         */
+        public int getUnpaidOrders() {
+            return unpaidOrders;
+        }
+
+        /**
+         * @return True, jeśli całe (zawężone, patrz opis klasy) drzewo przeszukano przed upływem limitu czasu –
+         *         rozwiązanie jest wtedy najlepsze wśród rozpatrywanych wariantów, ale niekoniecznie optymalne.
+         */
+        public boolean isSearchComplete() {
+            return searchComplete;
+        }
+
+        /**
+         * Wypisuje wyniki w tym samym formacie co Algorithm.printResults.
+         */
+        public void printResults() {
+            ReportWriter report = ReportWriter.standardOutput();
+            printResults(report);
+            report.flush();
+        }
+
+        /**
+         * Wariant metody printResults zapisujący do podanego wyjścia (nie jest opróżniane).
+         *
+         * @param report Wyjście.
+         */
+        public void printResults(ReportWriter report) {
+            report.spendings(methodSpendings);
+        }
+    }
+
+    /**
+     * Konstruktor klasy GlobalOptimizer.
+     * Lista metod płatności nie jest modyfikowana – optymalizator pracuje na własnej kopii limitów.
+     *
+     * @param paymentMethods Lista dostępnych metod płatności.
+     */
+    public GlobalOptimizer(List<PaymentMethod> paymentMethods) {
+        this.paymentMethods = paymentMethods;
+    }
+
+    /**
+     * Szuka alokacji o największym łącznym rabacie dla podanej partii zamówień.
+     *
+     * @param orders Lista zamówień, które mają być opłacone.
+     * @param timeBudgetMillis Limit czasu przeszukiwania w milisekundach.
+     * @return Najlepsze znalezione rozwiązanie.
+     */
+    public Result optimize(List<Order> orders, long timeBudgetMillis) {
+        long start = System.nanoTime();
+        long budget = timeBudgetMillis * 1_000_000L;
+
+        FixedPointEngine greedy = new FixedPointEngine(paymentMethods);                 // Rozwiązanie zachłanne – punkt startowy i odniesienie.
+        int greedyUnpaid = 0;
+        for (Order order : orders) {
+            if (!greedy.allocate(order)) {
+                greedyUnpaid++;
+            }
+        }
+
+        Search search = new Search(orders, greedy, greedyUnpaid);
+        search.computePrices(start + budget / 4);                                       // Co najwyżej ćwierć czasu na wyznaczenie cen, reszta na przeszukiwanie.
+        search.prepare();
+        boolean searchComplete = search.run(start + budget);
+
+        Map<String, BigDecimal> spendings = new HashMap<>();
+        for (int i = 0; i < paymentMethods.size(); i++) {
+            spendings.put(paymentMethods.get(i).id, FixedPoint.toBigDecimal(search.bestSpendings[i]));
+        }
+        return new Result(spendings, FixedPoint.toBigDecimal(search.bestDiscount),
+                FixedPoint.toBigDecimal(greedy.totalDiscount()), orders.size() - search.bestPaid, searchComplete);
+    }
+
+    /**
+     * Stan przeszukiwania.
+     *
+     * Ograniczenie górne pochodzi z relaksacji Lagrange'a: każda metoda płatności dostaje cenę λ ≥ 0 za jednostkę limitu,
+     * a wtedy dla dowolnego dopuszczalnego dokończenia rozwiązania
+     *     rabat ≤ Σ λ(m) · pozostały_limit(m) + Σ max(0, max_wariant(rabat − λ · zużycie))
+     * (druga suma po zamówieniach jeszcze nierozpatrzonych). Ceny dobieramy metodą subgradientową tak,
+     * aby ograniczenie było jak najciaśniejsze; te same ceny wyznaczają kolejność sprawdzania wariantów.
+     *
+     * Drzewo jest przeglądane iteracyjnie (bez rekurencji), więc głębokość równa liczbie zamówień
+     * nie grozi przepełnieniem stosu.
+     */
+    private final class Search {
+
+        private static final int PRICE_ITERATIONS = 200;                                // Maksymalna liczba kroków metody subgradientowej.
+
+        private final int n;                                                            // Liczba zamówień.
+        private final MethodIndex index;                                                // Numeracja metod i lista kart.
+        private final int points;                                                       // Indeks metody "PUNKTY" lub -1.
+        private final long[] discounts;                                                 // Rabaty metod (patrz FixedPoint.toPercentUnits).
+        private final long[] initialLimits;                                             // Limity metod przed alokacją.
+        private final long[] limits;                                                    // Bieżące limity metod.
+        private final long[] spendings;                                                 // Bieżące wydatki metod.
+        private final double[] prices;                                                  // Ceny λ jednostki limitu każdej metody.
+
+        // Warianty zamówień w kolejności z wejścia: warianty zamówienia o to orderOptions[orderOptionStart[o] .. orderOptionStart[o + 1]).
+        private final long[] orderValues;
+        private final int[] orderOptionStart;
+        private final int[] orderOptions;
+
+        // Te same dane w kolejności przeszukiwania (po prepare).
+        private long[] values;
+        private int[] optionStart;
+        private int[] options;
+        private double[] suffixBound;                                                   // Druga suma ograniczenia dla zamówień od głębokości d do końca.
+        private double priceOfLimits;                                                   // Pierwsza suma ograniczenia: Σ λ(m) · limits[m].
+
+        // Stan na każdej głębokości – potrzebny do cofnięcia decyzji.
+        private final int[] next;
+        private final boolean[] anyFeasible;
+        private final int[] methodA;
+        private final long[] amountA;
+        private final int[] methodB;
+        private final long[] amountB;
+        private final long[] discountAt;
+        private long discount;
+        private int paid;
+
+        private long bestDiscount;
+        private int bestPaid;
+        private long[] bestSpendings;
+
+        Search(List<Order> orders, FixedPointEngine greedy, int greedyUnpaid) {
+            int methodCount = paymentMethods.size();
+            this.index = new MethodIndex(paymentMethods);
+            this.discounts = new long[methodCount];
+            this.initialLimits = new long[methodCount];
+            this.spendings = new long[methodCount];
+            this.prices = new double[methodCount];
+            for (int i = 0; i < methodCount; i++) {
+                PaymentMethod pm = paymentMethods.get(i);
+                discounts[i] = FixedPoint.toPercentUnits(pm.discount);
+                initialLimits[i] = FixedPoint.toUnits(pm.limit);
+            }
+            this.limits = initialLimits.clone();
+            this.points = index.points();
+            long maxCardLimit = Long.MIN_VALUE;
+            for (int position = 0; position < index.cardCount(); position++) {
+                maxCardLimit = Math.max(maxCardLimit, limits[index.card(position)]);
+            }
+
+            this.n = orders.size();
+            this.orderValues = new long[n];
+            this.orderOptionStart = new int[n + 1];
+            int[] codes = new int[n * 5 + 16];
+            int count = 0;
+            for (int o = 0; o < n; o++) {                                               // Warianty niewykonalne już przy początkowych limitach są pomijane.
+                Order order = orders.get(o);
+                long value = FixedPoint.orderValueToUnits(order.value);
+                orderValues[o] = value;
+                orderOptionStart[o] = count;
+                int promotionCount = order.promotions == null ? 0 : order.promotions.size();
+                if (count + promotionCount + 5 > codes.length) {
+                    codes = Arrays.copyOf(codes, Math.max(codes.length * 2, count + promotionCount + 5));
+                }
+                if (points >= 0 && limits[points] >= value) {
+                    codes[count++] = option(FULL_POINTS, points);
+                }
+                for (int p = 0; p < promotionCount; p++) {
+                    Integer method = index.indexOf(order.promotions.get(p));
+                    if (method != null && limits[method] >= value && !contains(codes, orderOptionStart[o], count, option(PROMOTION, method))) {
+                        codes[count++] = option(PROMOTION, method);
+                    }
+                }
+                if (points >= 0 && limits[points] >= FixedPoint.tenPercentOf(value)) {
+                    codes[count++] = option(PARTIAL_MAX, points);
+                    if (maxCardLimit > Long.MIN_VALUE) {
+                        codes[count++] = option(PARTIAL_MIN, points);
+                    }
+                }
+                if (maxCardLimit >= value) {
+                    codes[count++] = option(CARD, 0);
+                }
+                codes[count++] = option(UNPAID, 0);
+            }
+            orderOptionStart[n] = count;
+            this.orderOptions = Arrays.copyOf(codes, count);
+
+            this.next = new int[n];
+            this.anyFeasible = new boolean[n];
+            this.methodA = new int[n];
+            this.amountA = new long[n];
+            this.methodB = new int[n];
+            this.amountB = new long[n];
+            this.discountAt = new long[n];
+
+            this.bestDiscount = greedy.totalDiscount();
+            this.bestPaid = n - greedyUnpaid;
+            this.bestSpendings = new long[methodCount];
+            for (int i = 0; i < methodCount; i++) {
+                bestSpendings[i] = greedy.spending(i);
+            }
+        }
+
+        /**
+         * Wyznacza ceny λ metodą subgradientową: cena metody rośnie, gdy relaksacja zużywa więcej niż jej limit,
+         * i maleje (do zera), gdy limit nie jest wykorzystany. Zapamiętywane są ceny dające najniższe ograniczenie.
+         *
+         * @param deadline Chwila (System.nanoTime), po której obliczenia są przerywane.
+         */
+        void computePrices(long deadline) {
+            int methodCount = prices.length;
+            double[] lambda = new double[methodCount];
+            double[] usage = new double[methodCount];
+            double bestBound = Double.POSITIVE_INFINITY;
+            double stepScale = 2.0;
+            int withoutImprovement = 0;
+            for (int iteration = 0; iteration < PRICE_ITERATIONS && System.nanoTime() < deadline; iteration++) {
+                Arrays.fill(usage, 0);
+                int card = cheapestCard(lambda);
+                double bound = 0;
+                for (int m = 0; m < methodCount; m++) {
+                    bound += lambda[m] * initialLimits[m];
+                }
+                for (int o = 0; o < n; o++) {
+                    int best = -1;
+                    double bestProfit = 0;                                              // Wariant "nieopłacone" – zysk 0, zerowe zużycie.
+                    for (int j = orderOptionStart[o]; j < orderOptionStart[o + 1]; j++) {
+                        double profit = reducedProfit(orderOptions[j], orderValues[o], lambda, card);
+                        if (profit > bestProfit) {
+                            bestProfit = profit;
+                            best = orderOptions[j];
+                        }
+                    }
+                    bound += bestProfit;
+                    if (best >= 0) {
+                        addUsage(best, orderValues[o], card, usage);
+                    }
+                }
+
+                if (bound < bestBound - 1e-9) {
+                    bestBound = bound;
+                    System.arraycopy(lambda, 0, prices, 0, methodCount);
+                    withoutImprovement = 0;
+                } else if (++withoutImprovement >= 5) {
+                    stepScale /= 2;
+                    withoutImprovement = 0;
+                }
+
+                double norm = 0;
+                for (int m = 0; m < methodCount; m++) {
+                    usage[m] -= initialLimits[m];                                       // Subgradient: zużycie ponad limit.
+                    if (lambda[m] == 0 && usage[m] < 0) {
+                        usage[m] = 0;
+                    }
+                    norm += usage[m] * usage[m];
+                }
+                double gap = bound - bestDiscount;
+                if (norm == 0 || gap <= 0) {
+                    break;
+                }
+                double step = stepScale * gap / norm;
+                for (int m = 0; m < methodCount; m++) {
+                    lambda[m] = Math.max(0, lambda[m] + step * usage[m]);
+                }
+            }
+        }
+
+        /**
+         * Ustala kolejność przeszukiwania: zamówienia od największej wartości, a warianty każdego zamówienia
+         * od największego zysku zredukowanego o ceny λ ("nieopłacone" zawsze na końcu).
+         */
+        void prepare() {
+            int card = cheapestCard(prices);
+            long maxValue = 0;
+            for (long value : orderValues) {
+                maxValue = Math.max(maxValue, value);
+            }
+            long[] keys = new long[n];
+            for (int o = 0; o < n; o++) {
+                keys[o] = maxValue - orderValues[o];                                    // Klucz rosnący = wartość malejąco; remisy w kolejności wejścia.
+            }
+            int[] permutation = OrderPriority.sortByKey(keys);
+
+            this.values = new long[n];
+            this.optionStart = new int[n + 1];
+            this.options = new int[orderOptions.length];
+            this.suffixBound = new double[n + 1];
+            double[] profits = new double[options.length];
+            double[] orderBound = new double[n];
+            int position = 0;
+            for (int d = 0; d < n; d++) {
+                int o = permutation[d];
+                values[d] = orderValues[o];
+                optionStart[d] = position;
+                double best = 0;
+                for (int j = orderOptionStart[o]; j < orderOptionStart[o + 1]; j++) {
+                    options[position] = orderOptions[j];
+                    profits[position] = (orderOptions[j] & TYPE_MASK) == UNPAID
+                            ? Double.NEGATIVE_INFINITY
+                            : reducedProfit(orderOptions[j], values[d], prices, card);
+                    best = Math.max(best, profits[position]);
+                    position++;
+                }
+                sortByProfit(options, profits, optionStart[d], position);
+                orderBound[d] = best;
+            }
+            optionStart[n] = position;
+            for (int d = n - 1; d >= 0; d--) {
+                suffixBound[d] = suffixBound[d + 1] + orderBound[d];
+            }
+            for (int m = 0; m < prices.length; m++) {
+                priceOfLimits += prices[m] * limits[m];
+            }
+        }
+
+        /**
+         * Przeszukuje drzewo decyzji do wyczerpania lub do upływu limitu czasu.
+         *
+         * @param deadline Chwila (System.nanoTime), po której przeszukiwanie jest przerywane.
+         * @return True, jeśli przeszukano całe drzewo.
+         */
+        boolean run(long deadline) {
+            int d = 0;
+            if (n > 0) {
+                enter(0);
+            }
+            long steps = 0;
+            while (d >= 0) {
+                if ((++steps & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() > deadline) {
+                    return false;
+                }
+                if (d == n) {                                                           // Liść – wszystkie zamówienia rozpatrzone.
+                    if (paid > bestPaid || (paid == bestPaid && discount > bestDiscount)) {
+                        bestPaid = paid;
+                        bestDiscount = discount;
+                        bestSpendings = spendings.clone();
+                    }
+                    d--;
+                    if (d >= 0) {
+                        undo(d);
+                    }
+                    continue;
+                }
+                if (next[d] == optionStart[d + 1]) {                                    // Wszystkie warianty na tej głębokości sprawdzone – wracamy.
+                    d--;
+                    if (d >= 0) {
+                        undo(d);
+                    }
+                    continue;
+                }
+                int code = options[next[d]++];
+                int type = code & TYPE_MASK;
+                if (type == UNPAID && anyFeasible[d]) {
+                    continue;
+                }
+                if (!apply(d, code)) {
+                    continue;
+                }
+                if (type != UNPAID) {
+                    anyFeasible[d] = true;
+                }
+                if (mayImprove(d + 1)) {                                                // Schodzimy głębiej tylko, jeśli gałąź może poprawić wynik.
+                    d++;
+                    if (d < n) {
+                        enter(d);
+                    }
+                } else {
+                    undo(d);
+                }
+            }
+            return true;
+        }
+
+        private void enter(int d) {
+            next[d] = optionStart[d];
+            anyFeasible[d] = false;
+        }
+
+        /**
+         * Sprawdza, czy po rozpatrzeniu zamówień przed głębokością d da się jeszcze poprawić najlepsze rozwiązanie.
+         */
+        private boolean mayImprove(int d) {
+            int paidBound = paid + (n - d);
+            if (paidBound != bestPaid) {
+                return paidBound > bestPaid;
+            }
+            double bound = discount + priceOfLimits + suffixBound[d];
+            return bound * (1 + 1e-12) + 1e-6 >= bestDiscount + 1;                      // Rabat musiałby wzrosnąć o co najmniej jedną jednostkę; margines na błąd zaokrągleń double.
+        }
+
+        /**
+         * Próbuje zastosować wariant płatności przy bieżących limitach.
+         *
+         * @return False, jeśli wariant nie mieści się w limitach.
+         */
+        private boolean apply(int d, int code) {
+            int type = code & TYPE_MASK;
+            int method = code >>> TYPE_BITS;
+            long value = values[d];
+            switch (type) {
+                case FULL_POINTS:
+                case PROMOTION: {
+                    if (limits[method] < value) {
+                        return false;
+                    }
+                    long orderDiscount = FixedPoint.percentOf(value, discounts[method]);
+                    take(d, method, value - orderDiscount, -1, 0, orderDiscount);
+                    return true;
+                }
+                case PARTIAL_MAX:
+                case PARTIAL_MIN: {
+                    long tenPercent = FixedPoint.tenPercentOf(value);
+                    if (limits[points] < tenPercent) {
+                        return false;
+                    }
+                    long toPay = value - tenPercent;
+                    long maxPoints = Math.min(limits[points], toPay);
+                    if (type == PARTIAL_MIN && maxPoints == tenPercent) {               // Ten sam podział co PARTIAL_MAX – nie ma sensu go powtarzać.
+                        return false;
+                    }
+                    long pointsUsed = type == PARTIAL_MAX ? maxPoints : tenPercent;
+                    long remaining = toPay - pointsUsed;
+                    int card = remaining > 0 ? firstCard(remaining) : -1;
+                    if (remaining > 0 && card < 0) {
+                        return false;
+                    }
+                    take(d, points, pointsUsed, card, remaining, tenPercent);
+                    return true;
+                }
+                case CARD: {
+                    int card = firstCard(value);
+                    if (card < 0) {
+                        return false;
+                    }
+                    take(d, card, value, -1, 0, 0);
+                    return true;
+                }
+                default: {
+                    methodA[d] = -1;
+                    methodB[d] = -1;
+                    discountAt[d] = 0;
+                    return true;
+                }
+            }
+        }
+
+        private void take(int d, int first, long firstAmount, int second, long secondAmount, long orderDiscount) {
+            methodA[d] = first;
+            amountA[d] = firstAmount;
+            methodB[d] = second;
+            amountB[d] = secondAmount;
+            discountAt[d] = orderDiscount;
+            limits[first] -= firstAmount;
+            spendings[first] += firstAmount;
+            priceOfLimits -= prices[first] * firstAmount;
+            if (second >= 0) {
+                limits[second] -= secondAmount;
+                spendings[second] += secondAmount;
+                priceOfLimits -= prices[second] * secondAmount;
+            }
+            discount += orderDiscount;
+            paid++;
+        }
+
+        private void undo(int d) {
+            if (methodA[d] < 0) {                                                       // Zamówienie było nieopłacone – nic do cofnięcia.
+                return;
+            }
+            limits[methodA[d]] += amountA[d];
+            spendings[methodA[d]] -= amountA[d];
+            priceOfLimits += prices[methodA[d]] * amountA[d];
+            if (methodB[d] >= 0) {
+                limits[methodB[d]] += amountB[d];
+                spendings[methodB[d]] -= amountB[d];
+                priceOfLimits += prices[methodB[d]] * amountB[d];
+            }
+            discount -= discountAt[d];
+            paid--;
+        }
+
+        /**
+         * Pierwsza (w kolejności z listy) metoda inna niż "PUNKTY" z wystarczającym limitem – tak jak w Algorithm.
+         */
+        private int firstCard(long amount) {
+            for (int position = 0; position < index.cardCount(); position++) {
+                int card = index.card(position);
+                if (limits[card] >= amount) {
+                    return card;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Karta (metoda inna niż "PUNKTY") o najniższej cenie λ – w relaksacji dopłaty kartą trafiają właśnie do niej.
+         */
+        private int cheapestCard(double[] lambda) {
+            int card = -1;
+            for (int position = 0; position < index.cardCount(); position++) {
+                int candidate = index.card(position);
+                if (card < 0 || lambda[candidate] < lambda[card]) {
+                    card = candidate;
+                }
+            }
+            return card;
+        }
+
+        /**
+         * Rabat wariantu pomniejszony o cenę zużytych limitów. Częściowa płatność punktami jest w relaksacji
+         * reprezentowana przez dwa skrajne podziały: całość punktami (PARTIAL_MAX) i 10% punktami (PARTIAL_MIN).
+         */
+        private double reducedProfit(int code, long value, double[] lambda, int card) {
+            int type = code & TYPE_MASK;
+            int method = code >>> TYPE_BITS;
+            long tenPercent = FixedPoint.tenPercentOf(value);
+            switch (type) {
+                case FULL_POINTS:
+                case PROMOTION: {
+                    long orderDiscount = FixedPoint.percentOf(value, discounts[method]);
+                    return orderDiscount - lambda[method] * (value - orderDiscount);
+                }
+                case PARTIAL_MAX:
+                    return tenPercent - lambda[points] * (value - tenPercent);
+                case PARTIAL_MIN:
+                    return tenPercent - lambda[points] * tenPercent - lambda[card] * (value - 2 * tenPercent);
+                case CARD:
+                    return -lambda[card] * value;
+                default:
+                    return 0;
+            }
+        }
+
+        private void addUsage(int code, long value, int card, double[] usage) {
+            int type = code & TYPE_MASK;
+            int method = code >>> TYPE_BITS;
+            long tenPercent = FixedPoint.tenPercentOf(value);
+            switch (type) {
+                case FULL_POINTS:
+                case PROMOTION:
+                    usage[method] += value - FixedPoint.percentOf(value, discounts[method]);
+                    break;
+                case PARTIAL_MAX:
+                    usage[points] += value - tenPercent;
+                    break;
+                case PARTIAL_MIN:
+                    usage[points] += tenPercent;
+                    usage[card] += value - 2 * tenPercent;
+                    break;
+                case CARD:
+                    usage[card] += value;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static int option(int type, int method) {
+        return (method << TYPE_BITS) | type;
+    }
+
+    private static boolean contains(int[] array, int from, int to, int value) {
+        for (int i = from; i < to; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sortowanie przez wstawianie wariantów jednego zamówienia malejąco według zysku (wariantów jest kilka).
+     */
+    private static void sortByProfit(int[] codes, double[] profits, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int code = codes[i];
+            double profit = profits[i];
+            int j = i - 1;
+            while (j >= from && profits[j] < profit) {
+                codes[j + 1] = codes[j];
+                profits[j + 1] = profits[j];
+                j--;
+            }
+            codes[j + 1] = code;
+            profits[j + 1] = profit;
+        }
+    }
+}
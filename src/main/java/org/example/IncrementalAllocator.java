@@ -0,0 +1,543 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Klasa IncrementalAllocator utrzymuje wynik alokacji partii zamówień i aktualizuje go przyrostowo, gdy zmienia się
+ * limit metody płatności, dochodzą nowe zamówienia lub część zamówień zostaje wycofana. Wynik po każdej zmianie jest
+ * identyczny z wynikiem Algorithm uruchomionego od zera na bieżących limitach i bieżącej liście zamówień.
+ *
+ * Stan alokacji to dziennik decyzji (zastosowany krok, pobrane kwoty i rabat każdego zamówienia) podzielony na bloki
+ * po 64 zamówienia. Dla każdego bloku pamiętamy limity przed jego pierwszym zamówieniem oraz, dla każdej metody,
+ * zapas porównań limitu wykonanych przez algorytm: najmniejszą nadwyżkę limitu nad progiem wśród porównań
+ * spełnionych i największą (ujemną) wśród niespełnionych. Decyzja zamówienia jest funkcją wyników tych porównań,
+ * więc dopóki przesunięcie limitu metody żadnego z nich nie odwraca, decyzje w bloku się nie zmieniają.
+ *
+ * Przy zmianie przechodzimy bloki od pierwszego, którego zmiana może dotyczyć, śledząc różnicę między nowymi
+ * a poprzednimi limitami. Blok, w którym różnica odwraca któreś porównanie (lub który zawiera wycofane zamówienie),
+ * jest rozstrzygany ponownie; pozostałe są tylko przesuwane o różnicę. Przebieg kończy się, gdy limity wszystkich
+ * metod znów są takie jak w poprzednim przebiegu. Nowe zamówienia są dopisywane na końcu i alokowane od razu
+ * z bieżącego stanu – tak jak przy przebiegu od zera. Wycofane zamówienia zostają w dzienniku jako puste wpisy.
+ *
+ * Obliczenia są stałoprzecinkowe (patrz FixedPoint), a obiekty PaymentMethod nie są modyfikowane.
+ * Zbiór metod ze zmienionym limitem to bitset (słowo long na 64 metody), więc liczba metod nie jest ograniczona.
+ * Klasa nie jest bezpieczna wątkowo.
+ */
+public final class IncrementalAllocator {
+
+    private static final int BLOCK_SIZE = 64;                                           // Liczba zamówień w bloku dziennika.
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long NO_TRUE = Long.MAX_VALUE;                                 // Brak spełnionych porównań metody w bloku.
+    private static final long NO_FALSE = Long.MIN_VALUE;                                // Brak niespełnionych porównań metody w bloku.
+    private static final OrderResult.Rule[] RULES = OrderResult.Rule.values();
+
+    private final String[] ids;                                                         // Identyfikatory metod płatności w kolejności z listy wejściowej.
+    private final long[] discounts;                                                     // Rabaty procentowe przeskalowane o 10^4.
+    private final long[] initialLimits;                                                 // Limity początkowe w jednostkach.
+    private final long[] limits;                                                        // Pozostałe limity po wszystkich zamówieniach.
+    private final long[] spendings;                                                     // Sumy wydatków w jednostkach.
+    private long totalDiscount;                                                         // Suma naliczonych rabatów w jednostkach.
+    private final MethodIndex index;
+    private final int methodCount;
+    private final int points;                                                           // Indeks metody "PUNKTY" lub -1, jeśli jej nie ma.
+
+    private final Map<String, Integer> positions = new HashMap<>();                     // Identyfikator zamówienia -> pozycja w dzienniku.
+    private int size;                                                                   // Liczba pozycji w dzienniku (łącznie z wycofanymi).
+    private Order[] orders = new Order[INITIAL_CAPACITY];                               // null dla wycofanych zamówień.
+    private long[] values = new long[INITIAL_CAPACITY];                                 // Wartości zamówień w jednostkach.
+    private byte[] rules = new byte[INITIAL_CAPACITY];                                  // Zastosowany krok (OrderResult.Rule.ordinal()).
+    private int[] firstMethods = new int[INITIAL_CAPACITY];                             // Pierwsza metoda lub -1.
+    private long[] firstAmounts = new long[INITIAL_CAPACITY];
+    private int[] secondMethods = new int[INITIAL_CAPACITY];                            // Druga metoda (częściowa płatność punktami) lub -1.
+    private long[] secondAmounts = new long[INITIAL_CAPACITY];
+    private long[] discountsGiven = new long[INITIAL_CAPACITY];
+
+    private long[] checkpoints;                                                         // [blok * methodCount + metoda] – limity przed pierwszym zamówieniem bloku.
+    private long[] trueSlack;                                                           // [blok * methodCount + metoda] – min(limit - próg) spełnionych porównań.
+    private long[] falseSlack;                                                          // [blok * methodCount + metoda] – max(limit - próg) niespełnionych porównań.
+    private int slackBase;                                                              // Początek zapasów bloku, do którego decide zapisuje porównania.
+    private int reallocated;                                                            // Liczba zamówień rozstrzygniętych przy ostatniej zmianie.
+
+    private final long[] scratch;                                                       // Bieżące limity w trakcie ponownego rozstrzygania bloku.
+    private final long[] dirty;                                                         // Bitset metod z niezerową różnicą limitów (patrz markDirty).
+    private OrderResult.Rule decidedRule;                                               // Wynik ostatniego wywołania decide.
+    private int decidedFirst;
+    private long decidedFirstAmount;
+    private int decidedSecond;
+    private long decidedSecondAmount;
+    private long decidedDiscount;
+
+    /**
+     * Konstruktor klasy IncrementalAllocator. Limity są kopiowane – obiekty PaymentMethod nie są modyfikowane.
+     *
+     * @param paymentMethods Lista dostępnych metod płatności.
+     * @throws ArithmeticException Jeśli limit lub rabat nie daje się zapisać dokładnie w arytmetyce stałoprzecinkowej.
+     */
+    public IncrementalAllocator(List<PaymentMethod> paymentMethods) {
+        this.methodCount = paymentMethods.size();
+        this.index = new MethodIndex(paymentMethods);
+        this.ids = new String[methodCount];
+        this.discounts = new long[methodCount];
+        this.initialLimits = new long[methodCount];
+        for (int i = 0; i < methodCount; i++) {
+            PaymentMethod pm = paymentMethods.get(i);
+            ids[i] = pm.id;
+            discounts[i] = FixedPoint.toPercentUnits(pm.discount);
+            initialLimits[i] = FixedPoint.toUnits(pm.limit);
+        }
+        this.limits = initialLimits.clone();
+        this.spendings = new long[methodCount];
+        this.scratch = new long[methodCount];
+        this.dirty = new long[(methodCount + Long.SIZE - 1) / Long.SIZE];
+        this.points = index.points();
+        int blocks = INITIAL_CAPACITY / BLOCK_SIZE;
+        this.checkpoints = new long[blocks * methodCount];
+        this.trueSlack = new long[blocks * methodCount];
+        this.falseSlack = new long[blocks * methodCount];
+    }
+
+    /**
+     * Dopisuje zamówienia na koniec partii i alokuje je z bieżącego stanu.
+     * Zamówienia są sprawdzane przed dopisaniem – przy błędzie żadne nie zostaje dodane.
+     *
+     * @param newOrders Nowe zamówienia.
+     * @throws IllegalArgumentException Jeśli identyfikator zamówienia już występuje.
+     * @throws ArithmeticException Jeśli wartość zamówienia ma więcej niż 2 miejsca po przecinku.
+     */
+    public void addOrders(List<Order> newOrders) {
+        long[] units = new long[newOrders.size()];
+        Map<String, Integer> added = new HashMap<>();
+        for (int i = 0; i < units.length; i++) {
+            Order order = newOrders.get(i);
+            units[i] = FixedPoint.orderValueToUnits(order.value);
+            if (positions.containsKey(order.id) || added.put(order.id, i) != null) {
+                throw new IllegalArgumentException("Duplicate order id: " + order.id);
+            }
+        }
+
+        ensureCapacity(size + units.length);
+        for (int i = 0; i < units.length; i++) {
+            int position = size++;
+            slackBase = position / BLOCK_SIZE * methodCount;
+            if (position % BLOCK_SIZE == 0) {
+                System.arraycopy(limits, 0, checkpoints, slackBase, methodCount);
+                resetSlack(slackBase);
+            }
+            Order order = newOrders.get(i);
+            orders[position] = order;
+            values[position] = units[i];
+            positions.put(order.id, position);
+            clearEntry(position);
+            decide(position, limits);
+            applyDecision(position, null);
+        }
+        reallocated = units.length;
+    }
+
+    /**
+     * Wycofuje zamówienia i przelicza alokację zamówień, na które to wpływa.
+     *
+     * @param orderIds Identyfikatory wycofywanych zamówień.
+     * @throws IllegalArgumentException Jeśli któregoś zamówienia nie ma w partii (wtedy nic nie jest wycofywane).
+     */
+    public void removeOrders(Collection<String> orderIds) {
+        int[] removed = new int[orderIds.size()];
+        int count = 0;
+        for (String id : orderIds) {
+            Integer position = positions.get(id);
+            if (position == null) {
+                throw new IllegalArgumentException("Unknown order id: " + id);
+            }
+            removed[count++] = position;
+        }
+        if (count == 0) {
+            reallocated = 0;
+            return;
+        }
+        for (String id : orderIds) {
+            positions.remove(id);
+        }
+        Arrays.sort(removed);
+        reoptimize(new long[methodCount], removed[0] / BLOCK_SIZE, removed);
+    }
+
+    /**
+     * Zmienia limit (początkowy) metody płatności i przelicza alokację zamówień, na które to wpływa.
+     *
+     * @param methodId Identyfikator metody.
+     * @param limit Nowy limit metody.
+     * @throws IllegalArgumentException Jeśli metoda o takim identyfikatorze nie istnieje.
+     */
+    public void setLimit(String methodId, BigDecimal limit) {
+        setLimits(Collections.singletonMap(methodId, limit));
+    }
+
+    /**
+     * Zmienia limity kilku metod płatności naraz – w jednym przebiegu po dzienniku.
+     *
+     * @param newLimits Mapa identyfikator metody -> nowy limit.
+     * @throws IllegalArgumentException Jeśli któraś metoda nie istnieje (wtedy żaden limit nie jest zmieniany).
+     */
+    public void setLimits(Map<String, BigDecimal> newLimits) {
+        long[] diff = new long[methodCount];
+        for (Map.Entry<String, BigDecimal> entry : newLimits.entrySet()) {
+            Integer method = index.indexOf(entry.getKey());
+            if (method == null) {
+                throw new IllegalArgumentException("Unknown payment method: " + entry.getKey());
+            }
+            diff[method] = FixedPoint.toUnits(entry.getValue()) - initialLimits[method];
+        }
+        for (int m = 0; m < methodCount; m++) {
+            initialLimits[m] += diff[m];
+            limits[m] += diff[m];
+        }
+        reoptimize(diff, 0, new int[0]);
+    }
+
+    /**
+     * Przebieg przyrostowy. diff[m] to różnica między nowym a poprzednim limitem metody m przed bieżącym blokiem.
+     * Bloki, w których różnica odwraca któreś porównanie albo które zawierają wycofane zamówienie, są rozstrzygane
+     * ponownie od swojego punktu kontrolnego; pozostałe są tylko przesuwane o różnicę.
+     *
+     * @param diff Różnice limitów przed blokiem startBlock (modyfikowane).
+     * @param startBlock Pierwszy blok, przed którym limity mogą się różnić.
+     * @param removed Posortowane pozycje wycofywanych zamówień (w blokach nie mniejszych niż startBlock).
+     */
+    private void reoptimize(long[] diff, int startBlock, int[] removed) {
+        boolean changed = markDirty(diff);
+        int blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int nextRemoved = 0;
+        int count = 0;
+        for (int block = startBlock; block < blocks && (changed || nextRemoved < removed.length); block++) {
+            int base = block * methodCount;
+            int end = Math.min(size, (block + 1) * BLOCK_SIZE);
+            boolean removes = nextRemoved < removed.length && removed[nextRemoved] < end;
+            if (!removes && !flips(base, diff)) {
+                shift(base, diff);
+                continue;
+            }
+
+            for (int word = 0; word < dirty.length; word++) {
+                for (long rest = dirty[word]; rest != 0; rest &= rest - 1) {
+                    int method = word * Long.SIZE + Long.numberOfTrailingZeros(rest);
+                    checkpoints[base + method] += diff[method];
+                }
+            }
+            System.arraycopy(checkpoints, base, scratch, 0, methodCount);
+            slackBase = base;
+            resetSlack(base);
+            for (int position = block * BLOCK_SIZE; position < end; position++) {
+                if (nextRemoved < removed.length && removed[nextRemoved] == position) {
+                    nextRemoved++;
+                    orders[position] = null;
+                    decided(OrderResult.Rule.UNPAID, -1, 0, 0);
+                } else if (orders[position] == null) {
+                    continue;
+                } else {
+                    decide(position, scratch);
+                    count++;
+                }
+                if (decidedFirst >= 0) {
+                    scratch[decidedFirst] -= decidedFirstAmount;
+                }
+                if (decidedSecond >= 0) {
+                    scratch[decidedSecond] -= decidedSecondAmount;
+                }
+                applyDecision(position, diff);
+            }
+            changed = markDirty(diff);
+        }
+        reallocated = count;
+    }
+
+    /**
+     * Sprawdza, czy przesunięcie limitów o diff odwraca któreś porównanie wykonane w bloku.
+     */
+    private boolean flips(int base, long[] diff) {
+        for (int word = 0; word < dirty.length; word++) {
+            for (long rest = dirty[word]; rest != 0; rest &= rest - 1) {
+                int method = word * Long.SIZE + Long.numberOfTrailingZeros(rest);
+                long slackTrue = trueSlack[base + method];
+                long slackFalse = falseSlack[base + method];
+                if ((slackTrue != NO_TRUE && slackTrue + diff[method] < 0) || (slackFalse != NO_FALSE && slackFalse + diff[method] >= 0)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Przesuwa punkt kontrolny i zapasy bloku o różnicę limitów (decyzje w bloku się nie zmieniają).
+     */
+    private void shift(int base, long[] diff) {
+        for (int word = 0; word < dirty.length; word++) {
+            for (long rest = dirty[word]; rest != 0; rest &= rest - 1) {
+                int method = word * Long.SIZE + Long.numberOfTrailingZeros(rest);
+                checkpoints[base + method] += diff[method];
+                if (trueSlack[base + method] != NO_TRUE) {
+                    trueSlack[base + method] += diff[method];
+                }
+                if (falseSlack[base + method] != NO_FALSE) {
+                    falseSlack[base + method] += diff[method];
+                }
+            }
+        }
+    }
+
+    private void resetSlack(int base) {
+        Arrays.fill(trueSlack, base, base + methodCount, NO_TRUE);
+        Arrays.fill(falseSlack, base, base + methodCount, NO_FALSE);
+    }
+
+    /**
+     * Porównanie limitu metody z progiem, zapisywane w zapasach bieżącego bloku.
+     */
+    private boolean covers(long[] available, int method, long threshold) {
+        long slack = available[method] - threshold;
+        int slot = slackBase + method;
+        if (slack >= 0) {
+            trueSlack[slot] = Math.min(trueSlack[slot], slack);
+            return true;
+        }
+        falseSlack[slot] = Math.max(falseSlack[slot], slack);
+        return false;
+    }
+
+    /**
+     * Rozstrzyga zamówienie przy podanych limitach według tych samych kroków co Algorithm (limity nie są zmieniane).
+     * Wynik trafia do pól decided*, a wykonane porównania – do zapasów bieżącego bloku.
+     */
+    private void decide(int position, long[] available) {
+        Order order = orders[position];
+        long value = values[position];
+
+        //  1. Pełna płatność punktami
+        if (points >= 0 && covers(available, points, value)) {
+            long discount = FixedPoint.percentOf(value, discounts[points]);
+            decided(OrderResult.Rule.FULL_POINTS, points, value - discount, discount);
+            return;
+        }
+
+        //  2. Pełna płatność promocyjną kartą
+        if (order.promotions != null) {
+            int best = -1;
+            for (String promotion : order.promotions) {
+                Integer candidate = index.indexOf(promotion);
+                if (candidate != null && (best < 0 || index.discountRank(candidate) < index.discountRank(best))
+                        && covers(available, candidate, value)) {
+                    best = candidate;
+                }
+            }
+            if (best >= 0) {
+                long discount = FixedPoint.percentOf(value, discounts[best]);
+                decided(OrderResult.Rule.PROMOTION_CARD, best, value - discount, discount);
+                return;
+            }
+        }
+
+        //  3. Częściowa płatność punktami + karta (z 10% rabatem)
+        if (points >= 0 && covers(available, points, FixedPoint.tenPercentOf(value))) {
+            long discount = FixedPoint.tenPercentOf(value);
+            long toPayAfterDiscount = value - discount;
+            long pointsUsed = toPayAfterDiscount;
+            if (!covers(available, points, toPayAfterDiscount)) {
+                pointsUsed = available[points];                                         // Kwota zależy od każdej zmiany limitu punktów:
+                covers(available, points, pointsUsed);                                  // zapas 0 i -1 odwraca dowolne przesunięcie.
+                covers(available, points, pointsUsed + 1);
+            }
+            int card = firstAvailableCard(available, toPayAfterDiscount - pointsUsed);
+            if (card >= 0) {
+                decided(OrderResult.Rule.PARTIAL_POINTS, points, pointsUsed, discount);
+                decidedSecond = card;
+                decidedSecondAmount = toPayAfterDiscount - pointsUsed;
+                return;
+            }
+        }
+
+        //  4. Fallback - opłacenie całego zamówienia przy użyciu dowolnej metody (innej niż "PUNKTY")
+        int card = firstAvailableCard(available, value);
+        if (card >= 0) {
+            decided(OrderResult.Rule.CARD, card, value, 0);
+        } else {
+            decided(OrderResult.Rule.UNPAID, -1, 0, 0);
+        }
+    }
+
+    private void decided(OrderResult.Rule rule, int method, long amount, long discount) {
+        decidedRule = rule;
+        decidedFirst = method;
+        decidedFirstAmount = amount;
+        decidedSecond = -1;
+        decidedSecondAmount = 0;
+        decidedDiscount = discount;
+    }
+
+    /**
+     * Pierwsza (w kolejności z listy) metoda inna niż "PUNKTY" z wystarczającym limitem lub -1.
+     */
+    private int firstAvailableCard(long[] available, long amount) {
+        for (int position = 0; position < index.cardCount(); position++) {
+            int card = index.card(position);
+            if (covers(available, card, amount)) {
+                return card;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Zastępuje wpis dziennika wynikiem decide i aktualizuje sumy, limity końcowe oraz różnice limitów.
+     *
+     * @param diff Różnice limitów do aktualizacji lub null przy dopisywaniu zamówień.
+     */
+    private void applyDecision(int position, long[] diff) {
+        release(firstMethods[position], firstAmounts[position], diff);
+        release(secondMethods[position], secondAmounts[position], diff);
+        totalDiscount += decidedDiscount - discountsGiven[position];
+
+        rules[position] = (byte) decidedRule.ordinal();
+        firstMethods[position] = decidedFirst;
+        firstAmounts[position] = decidedFirstAmount;
+        secondMethods[position] = decidedSecond;
+        secondAmounts[position] = decidedSecondAmount;
+        discountsGiven[position] = decidedDiscount;
+
+        release(decidedFirst, -decidedFirstAmount, diff);
+        release(decidedSecond, -decidedSecondAmount, diff);
+    }
+
+    private void release(int method, long amount, long[] diff) {
+        if (method < 0) {
+            return;
+        }
+        limits[method] += amount;
+        spendings[method] -= amount;
+        if (diff != null) {
+            diff[method] += amount;
+        }
+    }
+
+    private void clearEntry(int position) {
+        rules[position] = (byte) OrderResult.Rule.UNPAID.ordinal();
+        firstMethods[position] = -1;
+        firstAmounts[position] = 0;
+        secondMethods[position] = -1;
+        secondAmounts[position] = 0;
+        discountsGiven[position] = 0;
+    }
+
+    /**
+     * Zapisuje w bitsecie dirty metody z niezerową różnicą limitów.
+     *
+     * @return True, jeśli różnica dotyczy choć jednej metody.
+     */
+    private boolean markDirty(long[] diff) {
+        Arrays.fill(dirty, 0);
+        boolean changed = false;
+        for (int m = 0; m < diff.length; m++) {
+            if (diff[m] != 0) {
+                dirty[m / Long.SIZE] |= 1L << m;                                        // Przesunięcie long bierze m mod 64.
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > orders.length) {
+            int capacity = Math.max(required, orders.length * 2);
+            orders = Arrays.copyOf(orders, capacity);
+            values = Arrays.copyOf(values, capacity);
+            rules = Arrays.copyOf(rules, capacity);
+            firstMethods = Arrays.copyOf(firstMethods, capacity);
+            firstAmounts = Arrays.copyOf(firstAmounts, capacity);
+            secondMethods = Arrays.copyOf(secondMethods, capacity);
+            secondAmounts = Arrays.copyOf(secondAmounts, capacity);
+            discountsGiven = Arrays.copyOf(discountsGiven, capacity);
+        }
+        int blockSlots = (orders.length + BLOCK_SIZE - 1) / BLOCK_SIZE * methodCount;
+        if (blockSlots > checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, blockSlots);
+            trueSlack = Arrays.copyOf(trueSlack, blockSlots);
+            falseSlack = Arrays.copyOf(falseSlack, blockSlots);
+        }
+    }
+
+    /**
+     * Przekazuje wyniki wszystkich (niewycofanych) zamówień w kolejności ich dodania.
+     *
+     * @param listener Odbiorca wyników.
+     */
+    public void forEachResult(Consumer<OrderResult> listener) {
+        for (int i = 0; i < size; i++) {
+            if (orders[i] == null) {
+                continue;
+            }
+            List<PaymentAllocation> allocations;
+            if (firstMethods[i] < 0) {
+                allocations = Collections.emptyList();
+            } else if (secondMethods[i] < 0) {
+                allocations = Collections.singletonList(new PaymentAllocation(ids[firstMethods[i]], FixedPoint.toBigDecimal(firstAmounts[i])));
+            } else {
+                allocations = new ArrayList<>(2);
+                allocations.add(new PaymentAllocation(ids[firstMethods[i]], FixedPoint.toBigDecimal(firstAmounts[i])));
+                allocations.add(new PaymentAllocation(ids[secondMethods[i]], FixedPoint.toBigDecimal(secondAmounts[i])));
+            }
+            listener.accept(new OrderResult(orders[i].id, RULES[rules[i]], allocations, FixedPoint.toBigDecimal(discountsGiven[i])));
+        }
+    }
+
+    /**
+     * Zwraca sumy wydatków według metod płatności.
+     *
+     * @return Mapa identyfikator metody -> suma wydatków.
+     */
+    public Map<String, BigDecimal> getMethodSpendings() {
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+        for (int i = 0; i < methodCount; i++) {
+            result.put(ids[i], FixedPoint.toBigDecimal(spendings[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Zwraca pozostałe limity metod płatności.
+     *
+     * @return Mapa identyfikator metody -> pozostały limit.
+     */
+    public Map<String, BigDecimal> getRemainingLimits() {
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+        for (int i = 0; i < methodCount; i++) {
+            result.put(ids[i], FixedPoint.toBigDecimal(limits[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Zwraca sumę wszystkich naliczonych rabatów.
+     *
+     * @return Łączny rabat.
+     */
+    public BigDecimal getTotalDiscount() {
+        return FixedPoint.toBigDecimal(totalDiscount);
+    }
+
+    /**
+     * Zwraca liczbę zamówień rozstrzygniętych przy ostatniej zmianie (dla dopisanych zamówień – ich liczbę).
+     *
+     * @return Liczba ponownie alokowanych zamówień.
+     */
+    public int getReallocatedCount() {
+        return reallocated;
+    }
+}
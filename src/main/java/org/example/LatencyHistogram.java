@@ -0,0 +1,101 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Klasa LatencyHistogram to histogram czasów w nanosekundach o układzie kubełków jak w HdrHistogram:
+ * każda potęga dwójki jest dzielona na 32 równe kubełki, więc błąd względny percentyla nie przekracza ok. 3%,
+ * a cały zakres typu long mieści się w 1920 licznikach.
+ *
+ * Zapis to jedno przesunięcie bitowe i jedno atomowe zwiększenie licznika – bez blokad i bez alokacji,
+ * więc histogram można zasilać z wielu wątków naraz. Odczyt w trakcie zapisu daje przybliżony stan.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;                                              // 2^5 = 32 kubełki na potęgę dwójki.
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Rejestruje jeden pomiar.
+     *
+     * @param nanos Zmierzony czas w nanosekundach; wartości ujemne są traktowane jak 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+    }
+
+    /**
+     * Zwraca liczbę pomiarów.
+     *
+     * @return Liczba pomiarów.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Zwraca sumę wszystkich pomiarów.
+     *
+     * @return Suma w nanosekundach.
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Zwraca wartość, poniżej której leży podany odsetek pomiarów (górna granica kubełka).
+     *
+     * @param percentile Percentyl z przedziału 0–100.
+     * @return Wartość w nanosekundach; 0, jeśli nie było pomiarów.
+     */
+    public long valueAtPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return highestValueIn(i);
+            }
+        }
+        return highestValueIn(BUCKETS - 1);
+    }
+
+    /**
+     * Wartości poniżej 64 mają własne kubełki; większe są dzielone według najstarszego bitu
+     * i kolejnych 5 bitów.
+     */
+    static int bucketOf(long value) {
+        if (value < 2 * SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return shift * SUB_COUNT + (int) (value >>> shift);
+    }
+
+    static long highestValueIn(int bucket) {
+        if (bucket < 2 * SUB_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_COUNT - 1;
+        long top = bucket % SUB_COUNT + SUB_COUNT;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+/**
+ * Klasa LimitTree to drzewo przedziałowe (segment tree) nad listą kart, odpowiadające w czasie O(log n)
+ * na pytanie: "która pierwsza (w kolejności z listy) karta ma limit co najmniej X?".
+ *
+ * Każdy węzeł pamięta pozycję karty o największym limicie w swoim przedziale. Jeśli największy limit w lewym
+ * poddrzewie wystarcza, odpowiedź jest w lewym poddrzewie, w przeciwnym razie w prawym – to zachowuje
+ * semantykę liniowego przeglądania listy metod. Po zmianie limitu karty trzeba wywołać update.
+ *
+ * Same limity przechowuje podklasa (BigDecimal lub long), porównując je w compareLimits i covers.
+ */
+abstract class LimitTree {
+
+    private final int size;                                                             // Liczba kart.
+    private final int capacity;                                                         // Liczba liści – najmniejsza potęga dwójki nie mniejsza niż size.
+    private final int[] nodes;                                                          // Kopiec: nodes[1] to korzeń, liście zaczynają się od nodes[capacity]; -1 oznacza pusty liść.
+
+    LimitTree(int size) {
+        this.size = size;
+        this.capacity = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        this.nodes = new int[2 * capacity];
+    }
+
+    /**
+     * Buduje drzewo – podklasa wywołuje tę metodę, gdy jej tablica limitów jest już gotowa.
+     */
+    protected void build() {
+        for (int i = 0; i < capacity; i++) {
+            nodes[capacity + i] = i < size ? i : -1;
+        }
+        for (int i = capacity - 1; i >= 1; i--) {
+            nodes[i] = larger(nodes[2 * i], nodes[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Aktualizuje drzewo po zmianie limitu karty na danej pozycji.
+     *
+     * @param position Pozycja karty na liście kart.
+     */
+    void update(int position) {
+        for (int i = (capacity + position) / 2; i >= 1; i /= 2) {
+            nodes[i] = larger(nodes[2 * i], nodes[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Szuka pierwszej karty spełniającej warunek covers (limit nie mniejszy niż szukana kwota).
+     *
+     * @return Pozycja karty lub -1, jeśli żadna karta nie ma wystarczającego limitu.
+     */
+    protected int firstCovering() {
+        if (size == 0 || !covers(nodes[1])) {
+            return -1;
+        }
+        int i = 1;
+        while (i < capacity) {
+            i *= 2;
+            if (nodes[i] < 0 || !covers(nodes[i])) {
+                i++;
+            }
+        }
+        return nodes[i];
+    }
+
+    private int larger(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        return compareLimits(a, b) >= 0 ? a : b;
+    }
+
+    /**
+     * Porównuje limity kart na dwóch pozycjach.
+     */
+    protected abstract int compareLimits(int a, int b);
+
+    /**
+     * Sprawdza, czy limit karty na danej pozycji wystarcza na szukaną kwotę.
+     */
+    protected abstract boolean covers(int position);
+}
@@ -8,40 +8,339 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 
+import javax.management.ObjectName;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 
 
 public class Main {
     public static void main(String[] args) throws IOException {
 
         if (args.length < 2) {                                                                                          // Sprawdzamy, czy użytkownik podał wymagane argumenty polecenia: ścieżki do plików JSON.
-            System.err.println("Usage: java -jar app.jar <orders.json> <paymentmethods.json>");
+            System.err.println("Usage: java -jar app.jar <orders.json> <paymentmethods.json> [--stream] [--fixed] [--parallel] [--global=<ms>] [--results=<results.jsonl>] [--metrics=<metrics.txt>] [--sweep=<scenarios.json>] [--order=<input|value|discount|scarcity|regret>] [--cache=<dir>] [--output=<output.txt>]");
+            System.err.println("       (either file may be a .snap snapshot written by --snapshot; an orders snapshot always uses --fixed)");
+            System.err.println("       java -jar app.jar --server=<port> <paymentmethods.json>");
+            System.err.println("       java -jar app.jar --snapshot <orders.json> <paymentmethods.json>");
             return;
         }
 
-        if (!args[0].toLowerCase().endsWith(".json") || !args[1].toLowerCase().endsWith(".json")) {                     // Walidujemy rozszerzenia plików - muszą to być pliki .json.
-            System.err.println("Error: The given files must have the extension: .json.");
+        if (args[0].equals("--snapshot")) {                                                                            // Konwersja plików JSON do migawek binarnych (.snap) obok plików źródłowych.
+            if (args.length != 3 || !isJson(args[1]) || !isJson(args[2])) {
+                System.err.println("Error: --snapshot expects exactly two arguments: <orders.json> <paymentmethods.json>.");
+                return;
+            }
+            ObjectMapper mapper = createMapper();
+            File ordersSnapshot = snapshotFile(args[1]);
+            File methodsSnapshot = snapshotFile(args[2]);
+            int count;
+            try (OrderReader orders = new OrderReader(mapper, new File(args[1]))) {                                     // Zamówienia czytane strumieniowo – w pamięci są tylko kolumny migawki.
+                count = Snapshot.writeOrders(orders, ordersSnapshot.toPath());
+            }
+            Snapshot.writePaymentMethods(readPaymentMethods(mapper, new File(args[2])), methodsSnapshot.toPath());
+            System.err.printf("Wrote %s (%d orders, %d bytes) and %s.%n", ordersSnapshot, count, ordersSnapshot.length(), methodsSnapshot);
             return;
         }
 
+        if (args[0].startsWith("--server=")) {                                                                          // Tryb serwerowy – metody płatności wczytujemy raz, zamówienia przychodzą przez HTTP.
+            if (args.length != 2 || !(isJson(args[1]) || isSnapshot(args[1]))) {
+                System.err.println("Error: --server expects exactly one argument: <paymentmethods.json>.");
+                return;
+            }
+            AllocationServer.run(loadPaymentMethods(createMapper(), new File(args[1])), Integer.parseInt(args[0].substring("--server=".length())));
+            return;
+        }
+
+        if (!(isJson(args[0]) || isSnapshot(args[0])) || !(isJson(args[1]) || isSnapshot(args[1]))) {                  // Walidujemy rozszerzenia plików - muszą to być pliki .json lub migawki .snap.
+            System.err.println("Error: The given files must have the extension: .json or .snap.");
+            return;
+        }
+        boolean snapshot = isSnapshot(args[0]);
+
+        boolean streaming = false;
+        boolean parallel = false;
+        Algorithm.Arithmetic arithmetic = Algorithm.Arithmetic.BIG_DECIMAL;
+        long globalBudgetMillis = -1;
+        File resultsFile = null;
+        File metricsFile = null;
+        File scenariosFile = null;
+        OrderPriority priority = OrderPriority.INPUT;
+        File cacheDirectory = null;
+        File outputFile = null;
+        for (int i = 2; i < args.length; i++) {                                                                         // Opcjonalne przełączniki podawane po ścieżkach do plików.
+            if (args[i].equals("--stream")) {
+                streaming = true;
+            } else if (args[i].equals("--parallel")) {                                                                  // Niezależne grupy zamówień alokowane równolegle – wynik taki sam jak sekwencyjnie.
+                parallel = true;
+            } else if (args[i].equals("--fixed")) {                                                                     // Obliczenia na typie long zamiast BigDecimal – te same wyniki, mniej alokacji.
+                arithmetic = Algorithm.Arithmetic.FIXED_POINT;
+            } else if (args[i].startsWith("--global=")) {                                                              // Globalna optymalizacja rabatu z limitem czasu w milisekundach.
+                globalBudgetMillis = Long.parseLong(args[i].substring("--global=".length()));
+            } else if (args[i].startsWith("--results=")) {                                                             // Wyniki poszczególnych zamówień zapisywane jako JSON Lines.
+                resultsFile = new File(args[i].substring("--results=".length()));
+            } else if (args[i].startsWith("--metrics=")) {                                                             // Metryki (kroki, rabaty, limity, czasy faz) zapisywane na końcu w formacie Prometheusa.
+                metricsFile = new File(args[i].substring("--metrics=".length()));
+            } else if (args[i].startsWith("--sweep=")) {                                                               // Wiele wariantów metod płatności dla tych samych zamówień – wyniki scenariuszy jako JSON Lines.
+                scenariosFile = new File(args[i].substring("--sweep=".length()));
+            } else if (args[i].startsWith("--order=")) {                                                               // Kolejność alokacji zamówień (patrz OrderPriority) – domyślnie kolejność z pliku.
+                try {
+                    priority = OrderPriority.valueOf(args[i].substring("--order=".length()).toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Error: Unknown order priority: " + args[i]);
+                    return;
+                }
+            } else if (args[i].startsWith("--cache=")) {                                                               // Wyniki zapamiętywane w katalogu – powtórzona partia nie jest ponownie liczona.
+                cacheDirectory = new File(args[i].substring("--cache=".length()));
+            } else if (args[i].startsWith("--output=")) {                                                              // Wydatki i komunikaty o nieopłaconych zamówieniach zapisywane do pliku zamiast na stdout.
+                outputFile = new File(args[i].substring("--output=".length()));
+            } else {
+                System.err.println("Error: Unknown option: " + args[i]);
+                return;
+            }
+        }
+
+        ObjectMapper mapper = createMapper();
+
+        long parseStart = System.nanoTime();
+        List<PaymentMethod> methods = loadPaymentMethods(mapper, new File(args[1]));                                    // Odczytujemy dane z pliku przekazanego jako drugi argument.
+        long parseNanos = System.nanoTime() - parseStart;
+
+        if (priority != OrderPriority.INPUT && (snapshot || streaming || parallel || globalBudgetMillis >= 0 || scenariosFile != null)) {
+            System.err.println("Error: --order cannot be combined with an orders snapshot, --stream, --parallel, --global or --sweep.");
+            return;
+        }
+
+        if (cacheDirectory != null) {
+            if (snapshot || streaming || parallel || globalBudgetMillis >= 0 || scenariosFile != null || metricsFile != null) {
+                System.err.println("Error: --cache cannot be combined with an orders snapshot, --stream, --parallel, --global, --sweep or --metrics.");
+                return;
+            }
+            try (ReportWriter report = openReport(outputFile)) {
+                optimizeCached(mapper, new File(args[0]), new File(args[1]), methods, arithmetic, priority, resultsFile, new ResultCache(mapper, cacheDirectory.toPath()), report);
+            }
+            return;
+        }
+
+        if (scenariosFile != null) {                                                                                    // Scenariusze liczone są zawsze arytmetyką stałoprzecinkową, równolegle.
+            if (streaming || parallel || globalBudgetMillis >= 0 || resultsFile != null || metricsFile != null || outputFile != null) {
+                System.err.println("Error: --sweep cannot be combined with --stream, --parallel, --global, --results, --metrics or --output.");
+                return;
+            }
+            List<ScenarioSweep.Scenario> scenarios = ScenarioSweep.readScenarios(mapper, scenariosFile);
+            ScenarioSweep sweep = snapshot
+                    ? new ScenarioSweep(methods, Snapshot.open(new File(args[0]).toPath()))
+                    : new ScenarioSweep(methods, readOrders(mapper, new File(args[0])));
+            long sweepStart = System.nanoTime();
+            List<ScenarioSweep.Result> results = sweep.run(scenarios);
+            long sweepNanos = System.nanoTime() - sweepStart;
+            ScenarioSweep.write(mapper, results, System.out);
+            System.err.printf("Scenarios: %d x %d orders in %d ms%n", scenarios.size(), sweep.size(), sweepNanos / 1_000_000);
+            return;
+        }
+
+        if (snapshot) {                                                                                                 // Migawka jest alokowana wprost z mapowanych kolumn – tylko arytmetyką stałoprzecinkową.
+            if (streaming || parallel || globalBudgetMillis >= 0) {
+                System.err.println("Error: --stream, --parallel and --global cannot be used with an orders snapshot.");
+                return;
+            }
+            arithmetic = Algorithm.Arithmetic.FIXED_POINT;
+        }
+
+        if (globalBudgetMillis >= 0) {                                                                                  // Optymalizacja globalna potrzebuje całej partii zamówień naraz, więc nie łączy się z --stream.
+            if (streaming || resultsFile != null || metricsFile != null) {
+                System.err.println("Error: --global cannot be combined with --stream, --results or --metrics.");
+                return;
+            }
+            GlobalOptimizer.Result result = new GlobalOptimizer(methods).optimize(readOrders(mapper, new File(args[0])), globalBudgetMillis);
+            try (ReportWriter report = openReport(outputFile)) {
+                result.printResults(report);
+            }
+            System.err.printf("Total discount: %.2f (greedy: %.2f, gain: %.2f%s)%n", result.getTotalDiscount(),
+                    result.getGreedyDiscount(), result.getTotalDiscount().subtract(result.getGreedyDiscount()),
+                    result.isSearchComplete() ? ", search complete" : ", time budget exhausted");
+            return;
+        }
+
+        if (parallel && streaming) {                                                                                    // Podział na grupy wymaga znajomości wszystkich zamówień z góry.
+            System.err.println("Error: --parallel cannot be combined with --stream.");
+            return;
+        }
+
+        Algorithm optimizer = new Algorithm(methods, arithmetic);
+        AllocatorMetrics metrics = metricsFile != null ? new AllocatorMetrics(methods) : null;
+        ObjectName metricsName = null;
+        if (metrics != null) {
+            optimizer.setMetrics(metrics);
+            metricsName = metrics.registerMBean("cli");                                                                 // Widoczne w JMX (np. jconsole) przez cały czas działania programu.
+        }
+
+        long printStart;
+        try (ReportWriter report = openReport(outputFile)) {                                                            // Buforowane wyjście – komunikaty z pętli alokacji nie idą przez println.
+            optimizer.setReportWriter(report);
+            try (ResultWriter results = resultsFile != null ? new ResultWriter(mapper, resultsFile) : null) {          // try-with-resources pomija zamykanie, gdy plik wyników nie został podany.
+                optimizer.setResultListener(results);
+                long optimizeStart;
+                if (snapshot) {
+                    parseStart = System.nanoTime();
+                    Snapshot orders = Snapshot.open(new File(args[0]).toPath());                                        // Otwarcie migawki tylko mapuje kolumny – bez parsowania.
+                    optimizeStart = System.nanoTime();
+                    parseNanos += optimizeStart - parseStart;
+                    optimizer.optimize(orders);
+                } else if (streaming) {
+                    optimizeStart = System.nanoTime();                                                                  // W trybie strumieniowym odczyt zamówień jest częścią optymalizacji.
+                    try (OrderReader orders = new OrderReader(mapper, new File(args[0]))) {                             // Tryb strumieniowy – zamówienia trafiają do algorytmu po jednym, bez budowania tablicy w pamięci.
+                        optimizer.optimize(orders);
+                    }
+                } else {
+                    parseStart = System.nanoTime();
+                    List<Order> orders = readOrders(mapper, new File(args[0]));                                         // Odczytujemy dane z pliku przekazanego jako pierwszy argument.
+                    optimizeStart = System.nanoTime();
+                    parseNanos += optimizeStart - parseStart;
+                    if (parallel) {
+                        optimizer.optimizeParallel(orders);
+                    } else {
+                        optimizer.optimize(orders, priority);                                                           // Wywołujemy metodę optymalizującą alokację środków płatności dla wszystkich zamówień.
+                    }
+                }
+                if (metrics != null) {
+                    metrics.recordPhase(AllocatorMetrics.Phase.PARSE, parseNanos);
+                    metrics.recordPhase(AllocatorMetrics.Phase.OPTIMIZE, System.nanoTime() - optimizeStart);
+                }
+            }
+            printStart = System.nanoTime();
+            optimizer.printResults();                                                                                   // Po zakończeniu optymalizacji, wypisujemy wyniki z rozbiciem na poszczególne metody.
+        }                                                                                                               // Zamknięcie opróżnia bufor (plik --output jest zamykany, System.out nie), także po wyjątku.
+
+        if (metrics != null) {
+            metrics.recordPhase(AllocatorMetrics.Phase.PRINT, System.nanoTime() - printStart);
+            Files.writeString(metricsFile.toPath(), metrics.getPrometheusText());
+            AllocatorMetrics.unregisterMBean(metricsName);
+        }
+
+    }
+
+    /**
+     * Optymalizacja z pamięcią podręczną wyników: najpierw klucz surowych plików (bez parsowania), potem klucz
+     * znormalizowanej treści; dopiero przy braku wpisu uruchamiany jest algorytm, a wynik zapamiętywany.
+     * Trafienie daje na wyjściu (i w pliku wyników) dokładnie to samo co obliczenie.
+     */
+    private static void optimizeCached(ObjectMapper mapper, File ordersFile, File methodsFile, List<PaymentMethod> methods,
+                                       Algorithm.Arithmetic arithmetic, OrderPriority priority, File resultsFile, ResultCache cache,
+                                       ReportWriter report) throws IOException {
+        String variant = arithmetic + " " + priority;
+        String fileKey = ResultCache.fileKey(List.of(ordersFile.toPath(), methodsFile.toPath()), variant);
+        String key = cache.resolve(fileKey);
+        ResultCache.Entry entry = key != null ? cache.get(key) : null;
+        if (entry == null) {
+            List<Order> orders = readOrders(mapper, ordersFile);
+            key = ResultCache.key(methods, orders, variant);                                                            // Klucz przed optymalizacją – algorytm zmienia limity metod.
+            entry = cache.get(key);
+            if (entry == null) {
+                List<OrderResult> collected = new ArrayList<>(orders.size());
+                Algorithm optimizer = new Algorithm(methods, arithmetic);
+                optimizer.setReportWriter(report);
+                optimizer.setResultListener(collected::add);
+                optimizer.optimize(orders, priority);
+                ResultCache.Entry stored = cache.put(key, ResultCache.Entry.of(optimizer, methods, collected));
+                cache.alias(fileKey, key);
+                writeResults(mapper, stored, resultsFile);                                                              // Plik wyników kopiowany z zapisanego wpisu – wyniki serializujemy raz.
+                optimizer.printResults();
+                return;
+            }
+            cache.alias(fileKey, key);
+        }
+        entry.replay(report, null);                                                                                     // Komunikaty o nieopłaconych zamówieniach – bez czytania wyników z dysku.
+        writeResults(mapper, entry, resultsFile);
+        entry.printResults(report);
+    }
+
+    private static void writeResults(ObjectMapper mapper, ResultCache.Entry entry, File resultsFile) throws IOException {
+        if (resultsFile != null) {
+            try (OutputStream out = new FileOutputStream(resultsFile)) {
+                entry.writeResults(mapper, out);                                                                        // Wpis z dysku kopiuje gotowe wiersze wyników bez parsowania.
+            }
+        }
+    }
+
+    /**
+     * @return Wyjście wydatków i komunikatów: plik podany w --output albo System.out.
+     */
+    private static ReportWriter openReport(File outputFile) throws IOException {
+        return outputFile != null ? new ReportWriter(outputFile.toPath()) : ReportWriter.standardOutput();
+    }
+
+    /**
+     * Tworzy ObjectMapper skonfigurowany do odczytu plików wejściowych.
+     *
+     * @return Skonfigurowany ObjectMapper.
+     */
+    public static ObjectMapper createMapper() {
         ObjectMapper mapper = new ObjectMapper();                                                                       // Inicjalizujemy obiekt ObjectMapper z biblioteki Jackson, który umożliwia konwersję JSON <-> Java.
         mapper.enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);                                             // Konfigurujemy mapper, aby akceptował pojedynczy element również jako tablicę.
         mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);                                                 // Ustawiamy, aby podczas serializacji nie były zapisywane pola o wartości null.
+        return mapper;
+    }
+
+    /**
+     * Wczytuje całą listę zamówień z pliku JSON do pamięci.
+     *
+     * @param mapper Skonfigurowany ObjectMapper.
+     * @param file Plik z zamówieniami.
+     * @return Lista zamówień.
+     * @throws IOException Jeśli pliku nie da się odczytać.
+     */
+    public static List<Order> readOrders(ObjectMapper mapper, File file) throws IOException {
+        List<Order> orders = Arrays.asList(mapper.readValue(file, Order[].class));
+        orders.forEach(o -> o.value = new BigDecimal(String.valueOf(o.value)));                                         // Konwersja wartości w obiektach zamówień z String do BigDecimal.
+        return orders;
+    }
 
-        List<Order> orders = Arrays.asList(mapper.readValue(new File(args[0]), Order[].class));                         // Odczytujemy dane z pliku przekazanego jako pierwszy argument.
-        List<PaymentMethod> methods = Arrays.asList(mapper.readValue(new File(args[1]), PaymentMethod[].class));        // Odczytujemy dane z pliku przekazanego jako drugi argument.
+    /**
+     * Wczytuje metody płatności z pliku JSON lub z migawki (.snap).
+     *
+     * @param mapper Skonfigurowany ObjectMapper.
+     * @param file Plik z metodami płatności.
+     * @return Lista metod płatności.
+     * @throws IOException Jeśli pliku nie da się odczytać.
+     */
+    public static List<PaymentMethod> loadPaymentMethods(ObjectMapper mapper, File file) throws IOException {
+        return isSnapshot(file.getName()) ? Snapshot.readPaymentMethods(file.toPath()) : readPaymentMethods(mapper, file);
+    }
+
+    private static boolean isJson(String path) {
+        return path.toLowerCase().endsWith(".json");
+    }
 
-        orders.forEach(o -> o.value = new BigDecimal(String.valueOf(o.value)));                                         // Konwersja wartości w obiektach zamówień i metod płatności z String do BigDecimal.
-        methods.forEach(m -> {
+    private static boolean isSnapshot(String path) {
+        return path.toLowerCase().endsWith(".snap");
+    }
+
+    /**
+     * @return Plik migawki obok pliku JSON (to samo miejsce i nazwa, rozszerzenie .snap).
+     */
+    private static File snapshotFile(String jsonPath) {
+        return new File(jsonPath.substring(0, jsonPath.length() - ".json".length()) + ".snap");
+    }
+
+    /**
+     * Wczytuje listę metod płatności z pliku JSON.
+     *
+     * @param mapper Skonfigurowany ObjectMapper.
+     * @param file Plik z metodami płatności.
+     * @return Lista metod płatności.
+     * @throws IOException Jeśli pliku nie da się odczytać.
+     */
+    public static List<PaymentMethod> readPaymentMethods(ObjectMapper mapper, File file) throws IOException {
+        List<PaymentMethod> methods = Arrays.asList(mapper.readValue(file, PaymentMethod[].class));
+        methods.forEach(m -> {                                                                                          // Konwersja wartości w obiektach metod płatności z String do BigDecimal.
             m.discount = new BigDecimal(String.valueOf(m.discount));
             m.limit = new BigDecimal(String.valueOf(m.limit));
         });
-
-        Algorithm optimizer = new Algorithm(methods);
-        optimizer.optimize(orders);                                                                                     // Wywołujemy metodę optymalizującą alokację środków płatności dla wszystkich zamówień.
-        optimizer.printResults();                                                                                       // Po zakończeniu optymalizacji, wypisujemy wyniki z rozbiciem na poszczególne metody.
-
+        return methods;
     }
-}
\ No newline at end of file
+}
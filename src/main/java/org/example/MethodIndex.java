@@ -0,0 +1,97 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Klasa MethodIndex to indeks metod płatności budowany raz, przy tworzeniu algorytmu alokacji.
+ *
+ * Zawiera:
+ * - numerację metod (identyfikator -> indeks na liście metod), aby dalej operować na liczbach zamiast na napisach,
+ * - ranking rabatów (0 = najwyższy rabat, metody o równym rabacie mają ten sam ranking), dzięki czemu
+ *   wybór najlepszej promocji zamówienia to jedno przejście po jego liście promocji zamiast sortowania,
+ * - listę "kart", czyli metod innych niż "PUNKTY", w kolejności z listy wejściowej – na niej opiera się LimitTree.
+ */
+final class MethodIndex {
+
+    static final String POINTS_ID = "PUNKTY";
+
+    private final Map<String, Integer> ids = new HashMap<>();                           // Identyfikator metody -> indeks na liście metod.
+    private final int[] discountRank;                                                   // Ranking rabatu każdej metody (0 = najwyższy rabat).
+    private final int points;                                                           // Indeks metody "PUNKTY" lub -1, jeśli jej nie ma.
+    private final int[] cards;                                                          // Indeksy metod innych niż "PUNKTY", w kolejności z listy.
+    private final int[] cardPosition;                                                   // Indeks metody -> pozycja na liście kart (-1 dla "PUNKTY").
+
+    /**
+     * Konstruktor klasy MethodIndex.
+     *
+     * @param paymentMethods Lista dostępnych metod płatności.
+     * @throws IllegalStateException Jeśli identyfikatory metod się powtarzają.
+     */
+    MethodIndex(List<PaymentMethod> paymentMethods) {
+        int size = paymentMethods.size();
+        for (int i = 0; i < size; i++) {
+            if (ids.put(paymentMethods.get(i).id, i) != null) {
+                throw new IllegalStateException("Duplicate payment method id: " + paymentMethods.get(i).id);
+            }
+        }
+        this.points = ids.getOrDefault(POINTS_ID, -1);
+
+        Integer[] byDiscount = new Integer[size];                                       // Metody posortowane malejąco według rabatu – jednorazowo, przy budowie indeksu.
+        for (int i = 0; i < size; i++) {
+            byDiscount[i] = i;
+        }
+        Arrays.sort(byDiscount, Comparator.comparing((Integer i) -> paymentMethods.get(i).discount).reversed());
+        this.discountRank = new int[size];
+        for (int r = 1; r < size; r++) {
+            boolean sameDiscount = paymentMethods.get(byDiscount[r]).discount.compareTo(paymentMethods.get(byDiscount[r - 1]).discount) == 0;
+            discountRank[byDiscount[r]] = sameDiscount ? discountRank[byDiscount[r - 1]] : r;
+        }
+
+        this.cards = new int[points >= 0 ? size - 1 : size];
+        this.cardPosition = new int[size];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == points) {
+                cardPosition[i] = -1;
+            } else {
+                cardPosition[i] = position;
+                cards[position++] = i;
+            }
+        }
+    }
+
+    /**
+     * @return Indeks metody o podanym identyfikatorze lub null, jeśli takiej metody nie ma.
+     */
+    Integer indexOf(String id) {
+        return ids.get(id);
+    }
+
+    int size() {
+        return discountRank.length;
+    }
+
+    int points() {
+        return points;
+    }
+
+    int discountRank(int method) {
+        return discountRank[method];
+    }
+
+    int cardCount() {
+        return cards.length;
+    }
+
+    int card(int position) {
+        return cards[position];
+    }
+
+    int cardPosition(int method) {
+        return cardPosition[method];
+    }
+}
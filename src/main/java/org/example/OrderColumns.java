@@ -0,0 +1,163 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Klasa OrderColumns to zamówienia zapisane kolumnowo dla FixedPointEngine: wartości w jednostkach FixedPoint
+ * i promocje zamienione na indeksy metod, w jednej płaskiej tablicy z pozycjami początków.
+ *
+ * Kolumny są budowane jednym sekwencyjnym przebiegiem po zamówieniach, a potem tylko czytane – mogą je dzielić
+ * wątki (ScenarioSweep), a klucze kolejności alokacji (OrderPriority) liczy się z nich bez BigDecimal i bez
+ * wyszukiwania identyfikatorów promocji.
+ */
+final class OrderColumns {
+
+    final long[] values;                                                                // Wartości zamówień w jednostkach.
+    final int[] promotionStarts;                                                        // Promocje zamówienia nr i to promotions[promotionStarts[i]..promotionStarts[i + 1]).
+    final int[] promotions;                                                             // Promocje jako indeksy metod (-1 dla promocji bez metody płatności).
+
+    /**
+     * Buduje kolumny z listy zamówień.
+     *
+     * @param orders Zamówienia.
+     * @param engine Silnik, którego numeracji metod używają kolumny promocji.
+     * @throws ArithmeticException Jeśli wartość zamówienia ma więcej niż 2 miejsca po przecinku.
+     */
+    OrderColumns(List<Order> orders, FixedPointEngine engine) {
+        this(orders, engine::methodsOf, true);
+    }
+
+    /**
+     * Buduje kolumny z wartościami obciętymi do jednostek (bez wyjątku dla wartości z większą liczbą miejsc
+     * po przecinku) – tylko do wyznaczania kolejności zamówień, nie do alokacji.
+     *
+     * @param orders Zamówienia.
+     * @param index Indeks metod płatności, którego numeracji używają kolumny promocji.
+     * @return Kolumny przybliżone.
+     */
+    static OrderColumns approximate(List<Order> orders, MethodIndex index) {
+        return new OrderColumns(orders, promotionIds -> {
+            int[] methods = new int[promotionIds.size()];
+            for (int i = 0; i < methods.length; i++) {
+                Integer method = index.indexOf(promotionIds.get(i));
+                methods[i] = method != null ? method : -1;
+            }
+            return methods;
+        }, false);
+    }
+
+    private OrderColumns(List<Order> orders, Function<List<String>, int[]> methodsOf, boolean exact) {
+        Map<String, Integer> dictionary = new HashMap<>();                              // Identyfikator promocji -> numer w słowniku promocji.
+        List<String> promotionIds = new ArrayList<>();
+        int promotionCount = 0;
+        for (Order order : orders) {
+            promotionCount += order.promotions != null ? order.promotions.size() : 0;
+        }
+        this.values = new long[orders.size()];
+        this.promotionStarts = new int[orders.size() + 1];
+        this.promotions = new int[promotionCount];
+        int position = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            values[i] = exact ? FixedPoint.orderValueToUnits(order.value) : truncatedUnits(order.value);
+            promotionStarts[i] = position;
+            if (order.promotions != null) {
+                for (String promotion : order.promotions) {
+                    promotions[position++] = dictionary.computeIfAbsent(promotion, id -> {
+                        promotionIds.add(id);
+                        return promotionIds.size() - 1;
+                    });
+                }
+            }
+        }
+        promotionStarts[orders.size()] = position;
+        int[] translation = methodsOf.apply(promotionIds);                              // Numery ze słownika zamieniamy na indeksy metod w jednym przebiegu.
+        for (int p = 0; p < promotions.length; p++) {
+            promotions[p] = translation[promotions[p]];
+        }
+    }
+
+    /**
+     * Buduje kolumny z migawki zamówień (patrz Snapshot).
+     *
+     * @param orders Migawka zamówień.
+     * @param engine Silnik, którego numeracji metod używają kolumny promocji.
+     */
+    OrderColumns(Snapshot orders, FixedPointEngine engine) {
+        int[] translation = engine.methodsOf(orders.promotionIds());
+        int[] scratch = new int[orders.maxPromotions()];
+        int promotionCount = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            promotionCount += orders.promotions(i, translation, scratch);
+        }
+        this.values = new long[orders.size()];
+        this.promotionStarts = new int[orders.size() + 1];
+        this.promotions = new int[promotionCount];
+        int position = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            values[i] = FixedPoint.groszeToUnits(orders.valueInGrosze(i));
+            promotionStarts[i] = position;
+            int count = orders.promotions(i, translation, scratch);
+            System.arraycopy(scratch, 0, promotions, position, count);
+            position += count;
+        }
+        promotionStarts[orders.size()] = position;
+    }
+
+    private OrderColumns(long[] values, int[] promotionStarts, int[] promotions) {
+        this.values = values;
+        this.promotionStarts = promotionStarts;
+        this.promotions = promotions;
+    }
+
+    /**
+     * Zwraca kopię kolumn z zamówieniami przestawionymi w podanej kolejności. Kopiowanie to jeden przebieg
+     * z niezależnymi odczytami, a alokacja z kopii czyta pamięć sekwencyjnie – razem szybciej niż alokacja
+     * skacząca po oryginalnych kolumnach.
+     *
+     * @param sequence Pozycje zamówień w nowej kolejności.
+     * @return Przestawione kolumny.
+     */
+    OrderColumns permute(int[] sequence) {
+        long[] permutedValues = new long[sequence.length];
+        int[] permutedStarts = new int[sequence.length + 1];
+        int[] permutedPromotions = new int[promotions.length];
+        int position = 0;
+        for (int i = 0; i < sequence.length; i++) {
+            int order = sequence[i];
+            permutedValues[i] = values[order];
+            permutedStarts[i] = position;
+            for (int p = promotionStarts[order]; p < promotionStarts[order + 1]; p++) {
+                permutedPromotions[position++] = promotions[p];
+            }
+        }
+        permutedStarts[sequence.length] = position;
+        return new OrderColumns(permutedValues, permutedStarts, permutedPromotions);
+    }
+
+    /**
+     * Zamienia kwotę na jednostki FixedPoint, obcinając dalsze miejsca po przecinku (ujemne kwoty dają 0).
+     */
+    static long truncatedUnits(BigDecimal amount) {
+        return Math.max(0, amount.movePointRight(FixedPoint.SCALE).longValue());
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    /**
+     * Alokuje zamówienie nr i w podanym silniku.
+     *
+     * @return True, jeśli zamówienie zostało opłacone; false w przeciwnym razie.
+     */
+    boolean allocate(FixedPointEngine engine, int i) {
+        int offset = promotionStarts[i];
+        return engine.allocate(values[i], promotions, offset, promotionStarts[i + 1] - offset);
+    }
+}
@@ -0,0 +1,216 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Kolejność, w jakiej zamówienia trafiają do zachłannej alokacji (patrz Algorithm.optimize(List, OrderPriority)).
+ *
+ * Zachłanny przebieg oddaje limity zamówieniom, które przyjdą pierwsze, więc wynik zależy od kolejności w pliku.
+ * Strategie inne niż INPUT wyznaczają dla każdego zamówienia klucz typu long (mniejszy = wcześniej) i sortują
+ * zamówienia po kluczu – zamówienia o równym kluczu zachowują kolejność z wejścia. Klucz i pozycja zamówienia są
+ * pakowane w jedną liczbę long i sortowane pozycyjnie (radix sort), bez obiektów i bez komparatora, więc
+ * sortowanie jest znacznie tańsze od samej alokacji.
+ *
+ * Strategie są heurystykami – żadna nie gwarantuje większego rabatu dla każdych danych (porównanie: OrderingBenchmark).
+ */
+public enum OrderPriority {
+
+    /**
+     * Kolejność z wejścia (dotychczasowe zachowanie).
+     */
+    INPUT,
+
+    /**
+     * Najpierw zamówienia o największej wartości – duże zamówienia nie zostają z resztkami limitów.
+     */
+    VALUE,
+
+    /**
+     * Najpierw zamówienia o najwyższym rabacie na złotówkę (najlepsza promocja zamówienia), przy równym rabacie – większe.
+     */
+    DISCOUNT,
+
+    /**
+     * Najpierw zamówienia, których promocje są najbardziej oblegane: dla każdej metody liczony jest stosunek limitu
+     * do sumy wartości zamówień z tą promocją, a zamówienie dostaje sumę tych stosunków po swoich promocjach.
+     * Zamówienia z jedną, oblężoną promocją idą przed tymi, które mają alternatywy lub nie mają promocji.
+     */
+    SCARCITY,
+
+    /**
+     * Najpierw zamówienia, które najwięcej stracą, jeśli nie dostaną najlepszej promocji: wartość zamówienia razy
+     * różnica między najlepszym rabatem a najlepszą alternatywą (druga promocja albo 10% za częściową płatność punktami).
+     */
+    REGRET;
+
+    private static final int RADIX_BITS = 11;                                           // Cyfra sortowania pozycyjnego – 2048 kubełków mieści się w L1.
+    private static final int RADIX_MASK = (1 << RADIX_BITS) - 1;
+    private static final long SCARCITY_SCALE = 1000;                                    // Stosunek limitu do popytu w tysięcznych, obcięty do 1.
+    private static final long PARTIAL_POINTS_RATE = 1000;                               // 10% w punktach bazowych (0.01%).
+
+    /**
+     * Wyznacza kolejność alokacji zamówień.
+     *
+     * @param paymentMethods Metody płatności (z bieżącymi limitami).
+     * @param orders Zamówienia.
+     * @return Pozycje zamówień z listy orders w kolejności, w jakiej należy je alokować.
+     */
+    public int[] sort(List<PaymentMethod> paymentMethods, List<Order> orders) {
+        if (this == INPUT) {
+            return identity(orders.size());
+        }
+        return sort(paymentMethods, OrderColumns.approximate(orders, new MethodIndex(paymentMethods)));
+    }
+
+    /**
+     * Wariant metody sort dla zamówień zapisanych kolumnowo – klucze są liczone wprost z kolumn.
+     *
+     * @param paymentMethods Metody płatności (z bieżącymi limitami), w numeracji kolumn promocji.
+     * @param orders Kolumny zamówień.
+     * @return Pozycje zamówień w kolejności, w jakiej należy je alokować.
+     */
+    int[] sort(List<PaymentMethod> paymentMethods, OrderColumns orders) {
+        int n = orders.size();
+        if (this == INPUT) {
+            return identity(n);
+        }
+        long[] values = orders.values;
+        int[] starts = orders.promotionStarts;
+        int[] promotions = orders.promotions;
+        long[] rates = new long[paymentMethods.size()];                                 // Rabaty metod w punktach bazowych.
+        for (int m = 0; m < rates.length; m++) {
+            rates[m] = Math.max(0, paymentMethods.get(m).discount.movePointRight(2).longValue());
+        }
+        long maxValue = 0;
+        for (long value : values) {
+            maxValue = Math.max(maxValue, value);
+        }
+
+        long[] keys = new long[n];
+        switch (this) {
+            case VALUE -> {
+                for (int i = 0; i < n; i++) {
+                    keys[i] = maxValue - values[i];
+                }
+            }
+            case DISCOUNT -> {
+                long maxRate = 0;
+                for (long rate : rates) {
+                    maxRate = Math.max(maxRate, rate);
+                }
+                for (int i = 0; i < n; i++) {
+                    long best = 0;
+                    for (int p = starts[i]; p < starts[i + 1]; p++) {
+                        if (promotions[p] >= 0) {
+                            best = Math.max(best, rates[promotions[p]]);
+                        }
+                    }
+                    keys[i] = (maxRate - best) * (maxValue + 1) + (maxValue - values[i]);
+                }
+            }
+            case SCARCITY -> {
+                long[] demand = new long[rates.length];
+                int maxPromotions = 0;
+                for (int i = 0; i < n; i++) {
+                    for (int p = starts[i]; p < starts[i + 1]; p++) {
+                        if (promotions[p] >= 0) {
+                            demand[promotions[p]] += values[i];
+                        }
+                    }
+                    maxPromotions = Math.max(maxPromotions, starts[i + 1] - starts[i]);
+                }
+                long[] supply = new long[demand.length];                                // Limit / popyt w tysięcznych, najwyżej SCARCITY_SCALE.
+                for (int m = 0; m < demand.length; m++) {
+                    long limit = OrderColumns.truncatedUnits(paymentMethods.get(m).limit);
+                    supply[m] = limit >= demand[m] ? SCARCITY_SCALE : (long) ((double) limit / demand[m] * SCARCITY_SCALE);
+                }
+                for (int i = 0; i < n; i++) {
+                    long total = 0;
+                    for (int p = starts[i]; p < starts[i + 1]; p++) {
+                        total += promotions[p] >= 0 ? supply[promotions[p]] : 0;
+                    }
+                    keys[i] = starts[i] == starts[i + 1] ? (maxPromotions + 1) * SCARCITY_SCALE : total;
+                }
+            }
+            case REGRET -> {
+                long fallback = new MethodIndex(paymentMethods).points() >= 0 ? PARTIAL_POINTS_RATE : 0;
+                long maxRegret = 0;
+                for (int i = 0; i < n; i++) {
+                    long best = 0;
+                    long second = fallback;
+                    for (int p = starts[i]; p < starts[i + 1]; p++) {
+                        int method = promotions[p];
+                        if (method < 0) {
+                            continue;
+                        }
+                        if (rates[method] > best) {
+                            second = Math.max(second, best);
+                            best = rates[method];
+                        } else {
+                            second = Math.max(second, rates[method]);
+                        }
+                    }
+                    keys[i] = values[i] * Math.max(0, best - second);                   // Najpierw strata, potem zamiana na klucz rosnący.
+                    maxRegret = Math.max(maxRegret, keys[i]);
+                }
+                for (int i = 0; i < n; i++) {
+                    keys[i] = maxRegret - keys[i];
+                }
+            }
+            default -> throw new IllegalStateException("Unknown priority: " + this);
+        }
+        return sortByKey(keys);
+    }
+
+    private static int[] identity(int n) {
+        int[] sequence = new int[n];
+        for (int i = 0; i < n; i++) {
+            sequence[i] = i;
+        }
+        return sequence;
+    }
+
+    /**
+     * Sortuje pozycje 0..n-1 rosnąco po kluczach, stabilnie (równe klucze – w kolejności pozycji).
+     * Klucz (obcięty z dołu, jeśli razem z pozycją nie mieści się w 64 bitach) i pozycja są pakowane w jeden long,
+     * a sortowanie pozycyjne LSD obejmuje tylko bity klucza – zwykle 2–3 przebiegi po tablicy.
+     */
+    static int[] sortByKey(long[] keys) {
+        int n = keys.length;
+        int indexBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(n));
+        long used = 0;
+        for (long key : keys) {
+            used |= key;
+        }
+        int keyBits = 64 - Long.numberOfLeadingZeros(used);
+        int shift = Math.max(0, keyBits - (64 - indexBits));                            // Przy bardzo dużych kluczach tracimy najmłodsze bity (prawie remisy).
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) {
+            packed[i] = ((keys[i] >>> shift) << indexBits) | i;
+        }
+        long[] buffer = new long[n];
+        int[] counts = new int[RADIX_MASK + 2];
+        for (int bit = indexBits; bit < indexBits + keyBits - shift; bit += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (long value : packed) {
+                counts[(int) ((value >>> bit) & RADIX_MASK) + 1]++;
+            }
+            for (int digit = 0; digit <= RADIX_MASK; digit++) {
+                counts[digit + 1] += counts[digit];
+            }
+            for (long value : packed) {
+                buffer[counts[(int) ((value >>> bit) & RADIX_MASK)]++] = value;
+            }
+            long[] swap = packed;
+            packed = buffer;
+            buffer = swap;
+        }
+        int[] sequence = new int[n];
+        long indexMask = (1L << indexBits) - 1;
+        for (int i = 0; i < n; i++) {
+            sequence[i] = (int) (packed[i] & indexMask);
+        }
+        return sequence;
+    }
+}
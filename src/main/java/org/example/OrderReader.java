@@ -0,0 +1,58 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Iterator;
+
+/**
+ * Klasa OrderReader odczytuje zamówienia z pliku JSON strumieniowo – po jednym zamówieniu naraz.
+ *
+ * W odróżnieniu od wczytania całego pliku do tablicy Order[] pamięć zajmowana przez czytnik
+ * nie rośnie wraz z rozmiarem pliku, dzięki czemu zamówienia mogą trafiać bezpośrednio
+ * do algorytmu alokacji, zanim reszta pliku zostanie w ogóle przeczytana.
+ * Akceptowany jest zarówno plik z tablicą zamówień, jak i pojedynczy obiekt zamówienia.
+ */
+public class OrderReader implements Iterator<Order>, Closeable {
+
+    private final MappingIterator<Order> iterator;                                      // Iterator Jacksona, który deserializuje kolejne elementy tablicy na bieżąco.
+
+    /**
+     * Konstruktor klasy OrderReader.
+     * Otwiera parser JSON dla podanego pliku i ustawia go na początku listy zamówień.
+     *
+     * @param mapper Skonfigurowany ObjectMapper używany do deserializacji zamówień.
+     * @param file Plik JSON z zamówieniami.
+     * @throws IOException Jeśli pliku nie da się otworzyć lub nie zawiera poprawnego JSON-a.
+     */
+    public OrderReader(ObjectMapper mapper, File file) throws IOException {
+        this.iterator = mapper.readerFor(Order.class).readValues(file);                 // Jeśli korzeniem pliku jest tablica, MappingIterator sam "wchodzi" do niej i zwraca jej elementy.
+    }
+
+    @Override
+    public boolean hasNext() {
+        return iterator.hasNext();
+    }
+
+    /**
+     * Zwraca kolejne zamówienie z pliku.
+     * Wartość zamówienia jest normalizowana tak samo jak przy wczytywaniu całej tablicy w klasie Main.
+     *
+     * @return Następne zamówienie.
+     */
+    @Override
+    public Order next() {
+        Order order = iterator.next();
+        order.value = new BigDecimal(String.valueOf(order.value));                      // Ta sama konwersja co w Main – wynik musi być identyczny jak w trybie wczytywania całego pliku.
+        return order;
+    }
+
+    @Override
+    public void close() throws IOException {
+        iterator.close();
+    }
+}
@@ -0,0 +1,50 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Klasa OrderResult opisuje wynik alokacji pojedynczego zamówienia: który krok algorytmu został zastosowany,
+ * jak kwota została rozłożona na metody płatności i jaki rabat naliczono.
+ *
+ * Wyniki są przekazywane przez Algorithm do słuchacza (patrz Algorithm.setResultListener), np. do ResultWriter,
+ * który zapisuje je jako JSON Lines na potrzeby uzgadniania rozliczeń.
+ */
+public class OrderResult {
+
+    /**
+     * Krok algorytmu, który opłacił zamówienie.
+     * FULL_POINTS – pełna płatność punktami,
+     * PROMOTION_CARD – pełna płatność kartą z promocji zamówienia,
+     * PARTIAL_POINTS – częściowa płatność punktami + karta (stały rabat 10%),
+     * CARD – pełna płatność pierwszą kartą z wystarczającym limitem, bez rabatu,
+     * UNPAID – zamówienia nie udało się opłacić.
+     */
+    public enum Rule {
+        FULL_POINTS,
+        PROMOTION_CARD,
+        PARTIAL_POINTS,
+        CARD,
+        UNPAID
+    }
+
+    public String orderId;
+    public Rule rule;
+    public List<PaymentAllocation> allocations;
+    public BigDecimal discount;
+
+    /**
+     * Konstruktor klasy OrderResult.
+     *
+     * @param orderId Identyfikator zamówienia.
+     * @param rule Zastosowany krok algorytmu.
+     * @param allocations Kwoty pobrane z poszczególnych metod (pusta lista dla UNPAID).
+     * @param discount Naliczony rabat.
+     */
+    public OrderResult(String orderId, Rule rule, List<PaymentAllocation> allocations, BigDecimal discount) {
+        this.orderId = orderId;
+        this.rule = rule;
+        this.allocations = allocations;
+        this.discount = discount;
+    }
+}
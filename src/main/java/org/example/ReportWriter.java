@@ -0,0 +1,291 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Klasa ReportWriter zapisuje wyjście programu: komunikaty o nieopłaconych zamówieniach
+ * ("Failed to pay for order: ORDER1") i wydatki metod płatności ("mZysk 165.00").
+ *
+ * Wiersze są bajt po bajcie takie same jak z System.out.println i System.out.printf("%s %.2f%n", ...), ale nie
+ * przechodzą przez Formatter ani przez synchronizowany PrintStream: znaki trafiają wprost do własnego bufora
+ * bajtów, a kwoty są formatowane ręcznie (2 miejsca po przecinku, zaokrąglenie HALF_UP jak w Formatter dla
+ * BigDecimal). Bufor jest opróżniany do strumienia lub kanału co 64 KB oraz przy flush i close.
+ *
+ * Tak jak printf, ReportWriter używa locale formatowania (Locale.getDefault(Locale.Category.FORMAT)) odczytanego
+ * przy tworzeniu: przy pl_PL kwota to "165,00". Ręczne formatowanie obsługuje locale z cyframi ASCII i separatorem
+ * ASCII; dla pozostałych kwoty idą przez String.format. Kodowanie to System.out.charset() (stdout.encoding)
+ * dla standardOutput – tak jak w println – a Charset.defaultCharset() (file.encoding) dla strumieni, kanałów
+ * i plików. Napisy spoza ASCII (i wszystko przy kodowaniu niezgodnym z ASCII) idą przez to kodowanie.
+ *
+ * Wydatki są wypisywane posortowane po identyfikatorze metody, więc wynik nie zależy od kolejności w mapie.
+ */
+public final class ReportWriter implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 1 << 16;                                     // Rozmiar bufora wyjściowego.
+    private static final String FAILURE = "Failed to pay for order: ";
+    private static final int MAX_CENTS_DIGITS = 18;                                     // Kwoty o większej precyzji nie mieszczą się w long – idą przez toPlainString.
+
+    private final OutputStream out;                                                     // Dokładnie jedno z pól out i channel jest ustawione.
+    private final WritableByteChannel channel;
+    private final boolean closeTarget;                                                  // False dla System.out – close tylko opróżnia bufor.
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+    private int position;
+
+    private final Locale locale = Locale.getDefault(Locale.Category.FORMAT);             // Locale jak w printf, ustalone przy tworzeniu.
+    private final Charset charset;                                                      // Kodowanie jak w println (patrz opis klasy).
+    private final boolean asciiCharset;                                                 // Znaki ASCII można wpisywać do bufora wprost.
+    private final byte decimalSeparator;                                                // Separator dziesiętny locale lub 0, jeśli kwoty idą przez String.format.
+    private final byte[] failure;
+    private final byte[] lineSeparator;
+
+    /**
+     * Konstruktor klasy ReportWriter zapisujący do strumienia w kodowaniu domyślnym. Strumień jest zamykany razem
+     * z ReportWriter (do System.out służy standardOutput).
+     *
+     * @param out Strumień wyjściowy.
+     */
+    public ReportWriter(OutputStream out) {
+        this(out, null, true, Charset.defaultCharset());
+    }
+
+    /**
+     * Tworzy ReportWriter zapisujący do bieżącego System.out w jego kodowaniu (System.out.charset());
+     * close opróżnia bufor, ale nie zamyka System.out.
+     *
+     * @return Nowy ReportWriter.
+     */
+    public static ReportWriter standardOutput() {
+        return new ReportWriter(System.out, null, false, System.out.charset());
+    }
+
+    /**
+     * Konstruktor klasy ReportWriter zapisujący do kanału w kodowaniu domyślnym. Kanał jest zamykany razem z ReportWriter.
+     *
+     * @param channel Kanał wyjściowy.
+     */
+    public ReportWriter(WritableByteChannel channel) {
+        this(null, channel, true, Charset.defaultCharset());
+    }
+
+    private ReportWriter(OutputStream out, WritableByteChannel channel, boolean closeTarget, Charset charset) {
+        this.out = out;
+        this.channel = channel;
+        this.closeTarget = closeTarget;
+        this.charset = charset;
+        this.asciiCharset = isAsciiCompatible(charset);
+        this.failure = FAILURE.getBytes(charset);
+        this.lineSeparator = System.lineSeparator().getBytes(charset);
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        char separator = symbols.getDecimalSeparator();
+        this.decimalSeparator = asciiCharset && symbols.getZeroDigit() == '0' && separator < 0x80 ? (byte) separator : 0;
+    }
+
+    /**
+     * Konstruktor klasy ReportWriter zapisujący do pliku.
+     *
+     * @param file Plik wynikowy; istniejący plik jest nadpisywany.
+     * @throws IOException Jeśli pliku nie da się utworzyć.
+     */
+    public ReportWriter(Path file) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * Zapisuje komunikat o zamówieniu, którego nie udało się opłacić.
+     *
+     * @param orderId Identyfikator zamówienia.
+     * @throws UncheckedIOException Jeśli zapis się nie powiódł.
+     */
+    public void failure(String orderId) {
+        write(failure);
+        write(orderId);
+        write(lineSeparator);
+    }
+
+    /**
+     * Zapisuje wydatki metod z kwotą większą od zera, posortowane po identyfikatorze metody.
+     *
+     * @param spendings Mapa identyfikator metody -> suma wydatków.
+     * @throws UncheckedIOException Jeśli zapis się nie powiódł.
+     */
+    public void spendings(Map<String, BigDecimal> spendings) {
+        String[] ids = spendings.keySet().toArray(new String[0]);
+        Arrays.sort(ids);
+        for (String id : ids) {
+            BigDecimal amount = spendings.get(id);
+            if (amount.signum() > 0) {                                                  // Wypisujemy tylko te metody, dla których suma wydatków jest większa niż zero.
+                spending(id, amount);
+            }
+        }
+    }
+
+    /**
+     * Zapisuje wiersz wydatków jednej metody: identyfikator, spacja i kwota z 2 miejscami po przecinku.
+     *
+     * @param methodId Identyfikator metody płatności.
+     * @param amount Suma wydatków.
+     * @throws UncheckedIOException Jeśli zapis się nie powiódł.
+     */
+    public void spending(String methodId, BigDecimal amount) {
+        write(methodId);
+        write(" ");
+        writeAmount(amount);
+        write(lineSeparator);
+    }
+
+    /**
+     * Zapisuje kwotę tak jak printf("%.2f", amount) dla BigDecimal.
+     */
+    private void writeAmount(BigDecimal amount) {
+        BigDecimal rounded = amount.setScale(2, RoundingMode.HALF_UP);                 // Bez nowego obiektu, jeśli kwota ma już skalę 2.
+        if (decimalSeparator == 0 || rounded.precision() > MAX_CENTS_DIGITS) {
+            write(String.format(locale, "%.2f", amount));
+            return;
+        }
+        long cents = Math.abs(rounded.unscaledValue().longValue());
+        if (amount.signum() < 0) {                                                      // Znak z kwoty przed zaokrągleniem, jak w Formatter (-0.001 -> -0.00).
+            writeByte((byte) '-');
+        }
+        writeDigits(cents / 100);
+        writeByte(decimalSeparator);
+        writeByte((byte) ('0' + cents / 10 % 10));
+        writeByte((byte) ('0' + cents % 10));
+    }
+
+    private void writeDigits(long value) {
+        int digits = 1;
+        for (long rest = value; rest >= 10; rest /= 10) {
+            digits++;
+        }
+        if (position + digits > buffer.length) {
+            drain();
+        }
+        position += digits;
+        for (int end = position; digits-- > 0; value /= 10) {
+            buffer[--end] = (byte) ('0' + value % 10);
+        }
+    }
+
+    private void write(String text) {
+        if (!asciiCharset) {
+            write(text.getBytes(charset));
+            return;
+        }
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {                                                            // Poza ASCII – reszta napisu przez kodowanie domyślne.
+                write(text.substring(i).getBytes(charset));
+                return;
+            }
+            if (position == buffer.length) {
+                drain();
+            }
+            buffer[position++] = (byte) c;
+        }
+    }
+
+    private void write(byte[] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int count = Math.min(bytes.length - offset, buffer.length - position);
+            System.arraycopy(bytes, offset, buffer, position, count);
+            position += count;
+            offset += count;
+        }
+    }
+
+    private void writeByte(byte b) {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = b;
+    }
+
+    /**
+     * Sprawdza, czy kodowanie zapisuje znaki ASCII jako te same pojedyncze bajty (UTF-8, ISO-8859-*, windows-125* itp.).
+     */
+    private static boolean isAsciiCompatible(Charset charset) {
+        String sample = " -.,0123456789:ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz\r\n";
+        return Arrays.equals(sample.getBytes(charset), sample.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Przekazuje zawartość bufora do strumienia lub kanału.
+     */
+    private void drain() {
+        try {
+            if (out != null) {
+                out.write(buffer, 0, position);
+            } else {
+                wrapped.clear().limit(position);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+            }
+            position = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Opróżnia bufor (i strumień wyjściowy).
+     *
+     * @throws UncheckedIOException Jeśli zapis się nie powiódł.
+     */
+    @Override
+    public void flush() {
+        drain();
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Opróżnia bufor i zamyka strumień lub kanał (poza System.out, patrz standardOutput).
+     *
+     * @throws IOException Jeśli zapis się nie powiódł.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (!closeTarget) {
+            return;
+        }
+        if (out != null) {
+            out.close();
+        } else {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,759 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Klasa ResultCache zapamiętuje wyniki alokacji dla powtarzanych partii zamówień (ponowienia, powtórne
+ * uruchomienia, próby na sucho) – trafienie zwraca wydatki metod i wyniki zamówień bez uruchamiania algorytmu.
+ *
+ * Kluczem jest skrót SHA-256 znormalizowanych danych wejściowych (patrz key): zamówień w kolejności z wejścia,
+ * metod płatności w kolejności z listy i wariantu obliczeń (arytmetyka, strategia kolejności). Kwoty są
+ * normalizowane (100.0 i 100.00 dają ten sam klucz), ale kolejność zamówień i metod jest częścią klucza, bo
+ * zachłanna alokacja od niej zależy.
+ *
+ * Pamięć podręczna ma dwa poziomy:
+ * - w pamięci – LRU ograniczone szacowanym rozmiarem wpisów w bajtach i wiekiem wpisów,
+ * - opcjonalnie na dysku – plik <klucz>.jsonl na wpis (nagłówek i wiersze wyników w formacie ResultWriter),
+ *   zapisywany atomowo; katalog jest przycinany od najdawniej używanych plików, a pliki starsze niż maxAge są usuwane.
+ *   Łączny rozmiar katalogu jest liczony raz (przy pierwszym put), a potem aktualizowany przy zapisie i usuwaniu
+ *   plików – katalog jest przeglądany ponownie tylko wtedy, gdy licznik przekroczy limit. Uszkodzone pliki wpisów
+ *   są usuwane przy odczycie.
+ *
+ * Dodatkowo fileKey i alias pozwalają pominąć parsowanie niezmienionych plików: skrót surowych bajtów plików
+ * wskazuje na klucz treści, zapamiętany po pierwszym uruchomieniu.
+ *
+ * Metody get i put są synchronizowane – jedną instancję mogą dzielić wątki.
+ */
+public final class ResultCache {
+
+    public static final long DEFAULT_MEMORY_BYTES = 256L << 20;                         // Domyślny limit poziomu w pamięci: 256 MB.
+    public static final long DEFAULT_DISK_BYTES = 1L << 30;                             // Domyślny limit katalogu na dysku: 1 GB.
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofDays(7);                  // Domyślny maksymalny wiek wpisu.
+
+    private static final int MAX_ALIASES = 4096;                                        // Aliasy są małe – w pamięci ograniczamy tylko ich liczbę.
+    private static final String ENTRY_SUFFIX = ".jsonl";
+    private static final String ALIAS_SUFFIX = ".alias";
+    private static final String TEMP_SUFFIX = ".tmp";                                  // Plik w trakcie zapisu, przenoszony potem na nazwę wpisu lub aliasu.
+    private static final long TEMP_MAX_AGE_MILLIS = Duration.ofMinutes(10).toMillis();  // Starszy plik tymczasowy to pozostałość po przerwanym zapisie.
+    private static final JsonFactory READER = new JsonFactory();                        // Parser wierszy wyników – wspólny, bezstanowy.
+
+    /**
+     * Zapamiętany wynik alokacji jednej partii zamówień.
+     *
+     * Wpis odczytany z dysku trzyma w pamięci tylko wydatki, rabat i identyfikatory nieopłaconych zamówień – wyniki
+     * zamówień są czytane z pliku dopiero wtedy, gdy są potrzebne (getResults, replay, writeResults).
+     */
+    public static final class Entry {
+
+        public final Map<String, BigDecimal> methodSpendings;                          // Wydatki metod w kolejności z listy metod płatności.
+        public final BigDecimal totalDiscount;
+        public final List<String> unpaid;                                              // Nieopłacone zamówienia w kolejności z wejścia.
+        final long createdMillis;
+        final long bytes;                                                               // Szacowany rozmiar wpisu w pamięci.
+        private final List<OrderResult> results;                                       // Null dla wpisu z dysku – wtedy wyniki są w pliku.
+        private final Path file;
+        private final long resultsOffset;                                               // Pozycja pierwszego wiersza wyników w pliku (za nagłówkiem).
+
+        /**
+         * Konstruktor klasy Entry.
+         *
+         * @param methodSpendings Wydatki metod, w kolejności z listy metod płatności.
+         * @param totalDiscount Łączny rabat.
+         * @param results Wyniki zamówień w kolejności z wejścia.
+         */
+        public Entry(Map<String, BigDecimal> methodSpendings, BigDecimal totalDiscount, List<OrderResult> results) {
+            this(methodSpendings, totalDiscount, unpaid(results), List.copyOf(results), null, 0, System.currentTimeMillis());
+        }
+
+        private Entry(Map<String, BigDecimal> methodSpendings, BigDecimal totalDiscount, List<String> unpaid,
+                      List<OrderResult> results, Path file, long resultsOffset, long createdMillis) {
+            this.methodSpendings = Collections.unmodifiableMap(new LinkedHashMap<>(methodSpendings));
+            this.totalDiscount = totalDiscount;
+            this.unpaid = Collections.unmodifiableList(unpaid);
+            this.results = results;
+            this.file = file;
+            this.resultsOffset = resultsOffset;
+            this.createdMillis = createdMillis;
+            this.bytes = estimateBytes(this.methodSpendings, unpaid, results);
+        }
+
+        /**
+         * Tworzy wpis z algorytmu po optymalizacji.
+         *
+         * @param optimizer Algorytm po wywołaniu optimize.
+         * @param paymentMethods Metody płatności przekazane do algorytmu (wyznaczają kolejność wydatków).
+         * @param results Wyniki zamówień zebrane przez odbiorcę wyników, w kolejności z wejścia.
+         * @return Nowy wpis.
+         */
+        public static Entry of(Algorithm optimizer, List<PaymentMethod> paymentMethods, List<OrderResult> results) {
+            Map<String, BigDecimal> spendings = optimizer.getMethodSpendings();
+            Map<String, BigDecimal> ordered = new LinkedHashMap<>();
+            for (PaymentMethod pm : paymentMethods) {
+                ordered.putIfAbsent(pm.id, spendings.get(pm.id));
+            }
+            return new Entry(ordered, optimizer.getTotalDiscount(), results);
+        }
+
+        private static List<String> unpaid(List<OrderResult> results) {
+            List<String> unpaid = new ArrayList<>();
+            for (OrderResult result : results) {
+                if (result.rule == OrderResult.Rule.UNPAID) {
+                    unpaid.add(result.orderId);
+                }
+            }
+            return unpaid;
+        }
+
+        /**
+         * Zwraca wydatki metod tak, jak Algorithm.getMethodSpendings.
+         *
+         * @return Kopia mapy wydatków.
+         */
+        public Map<String, BigDecimal> getMethodSpendings() {
+            return new HashMap<>(methodSpendings);
+        }
+
+        /**
+         * Zwraca wyniki zamówień w kolejności z wejścia (dla wpisu z dysku – odczytane z pliku).
+         *
+         * @return Wyniki zamówień.
+         * @throws UncheckedIOException Jeśli pliku wpisu nie da się odczytać (np. został usunięty).
+         */
+        public List<OrderResult> getResults() {
+            if (results != null) {
+                return results;
+            }
+            List<OrderResult> read = new ArrayList<>();
+            forEachResult(read::add);
+            return read;
+        }
+
+        /**
+         * Odtwarza skutki optymalizacji: komunikaty o nieopłaconych zamówieniach (jak Algorithm) i przekazanie
+         * wyników zamówień do odbiorcy.
+         *
+         * @param report Wyjście komunikatów (nie jest opróżniane).
+         * @param resultListener Odbiorca wyników lub null – wtedy wyniki z dysku nie są w ogóle czytane.
+         * @throws UncheckedIOException Jeśli pliku wpisu nie da się odczytać.
+         */
+        public void replay(ReportWriter report, Consumer<OrderResult> resultListener) {
+            unpaid.forEach(report::failure);
+            if (resultListener != null) {
+                forEachResult(resultListener);
+            }
+        }
+
+        /**
+         * Wariant metody replay wypisujący komunikaty na System.out.
+         *
+         * @param resultListener Odbiorca wyników lub null.
+         */
+        public void replay(Consumer<OrderResult> resultListener) {
+            ReportWriter report = ReportWriter.standardOutput();
+            replay(report, resultListener);
+            report.flush();
+        }
+
+        /**
+         * Zapisuje wyniki zamówień w formacie ResultWriter. Plik wpisu ma już ten format, więc wiersze wpisu
+         * z dysku są kopiowane bajt po bajcie, bez parsowania.
+         *
+         * @param mapper Skonfigurowany ObjectMapper (dla wpisu w pamięci).
+         * @param out Strumień wyjściowy; nie jest zamykany.
+         * @throws IOException Jeśli odczyt lub zapis się nie powiódł.
+         */
+        public void writeResults(ObjectMapper mapper, OutputStream out) throws IOException {
+            if (results == null) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    in.skipNBytes(resultsOffset);
+                    in.transferTo(out);
+                }
+                return;
+            }
+            try (ResultWriter lines = new ResultWriter(mapper, new FilterOutputStream(out) {
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    out.write(bytes, offset, length);                                   // FilterOutputStream domyślnie pisze bajt po bajcie.
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();                                                            // Strumień wywołującego zostaje otwarty.
+                }
+            })) {
+                results.forEach(lines);
+            }
+        }
+
+        /**
+         * Wypisuje wydatki metod tak samo jak Algorithm.printResults.
+         *
+         * @param report Wyjście (nie jest opróżniane).
+         */
+        public void printResults(ReportWriter report) {
+            report.spendings(methodSpendings);
+        }
+
+        /**
+         * Wariant metody printResults wypisujący wydatki na System.out.
+         */
+        public void printResults() {
+            ReportWriter report = ReportWriter.standardOutput();
+            printResults(report);
+            report.flush();
+        }
+
+        private void forEachResult(Consumer<OrderResult> consumer) {
+            if (results != null) {
+                results.forEach(consumer);
+                return;
+            }
+            try (InputStream in = Files.newInputStream(file)) {
+                in.skipNBytes(resultsOffset);
+                readResults(in, consumer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static long estimateBytes(Map<String, BigDecimal> spendings, List<String> unpaid, List<OrderResult> results) {
+            long bytes = 128 + 96L * spendings.size();
+            for (String id : unpaid) {
+                bytes += 56 + 2L * id.length();
+            }
+            if (results != null) {
+                for (OrderResult result : results) {
+                    bytes += 112 + 2L * result.orderId.length();                       // Obiekt wyniku, identyfikator, lista i rabat.
+                    bytes += 80L * result.allocations.size();                           // Alokacja i jej kwota (identyfikatory metod są współdzielone).
+                }
+            }
+            return bytes;
+        }
+    }
+
+    private final long maxMemoryBytes;
+    private final Path directory;
+    private final long maxDiskBytes;
+    private final long maxAgeMillis;
+    private final ObjectMapper mapper;
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);   // Kolejność dostępu – najdawniej używany wpis jest pierwszy.
+    private final LinkedHashMap<String, String> aliases = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_ALIASES;
+        }
+    };
+    private long memoryBytes;
+    private long diskBytes = -1;                                                        // Łączny rozmiar plików w katalogu; -1 przed pierwszym przeglądem.
+
+    /**
+     * Konstruktor klasy ResultCache z domyślnymi limitami.
+     *
+     * @param mapper Skonfigurowany ObjectMapper (ten sam co przy odczycie danych wejściowych, patrz Main.createMapper).
+     * @param directory Katalog poziomu dyskowego lub null (tylko pamięć).
+     * @throws IOException Jeśli katalogu nie da się utworzyć.
+     */
+    public ResultCache(ObjectMapper mapper, Path directory) throws IOException {
+        this(mapper, DEFAULT_MEMORY_BYTES, directory, DEFAULT_DISK_BYTES, DEFAULT_MAX_AGE);
+    }
+
+    /**
+     * Konstruktor klasy ResultCache.
+     *
+     * @param mapper Skonfigurowany ObjectMapper (ten sam co przy odczycie danych wejściowych, patrz Main.createMapper).
+     * @param maxMemoryBytes Limit szacowanego rozmiaru wpisów w pamięci (0 wyłącza poziom w pamięci).
+     * @param directory Katalog poziomu dyskowego lub null (tylko pamięć); jest tworzony, jeśli nie istnieje.
+     * @param maxDiskBytes Limit łącznego rozmiaru plików w katalogu.
+     * @param maxAge Maksymalny wiek wpisu – starsze wpisy są pomijane i usuwane.
+     * @throws IOException Jeśli katalogu nie da się utworzyć.
+     */
+    public ResultCache(ObjectMapper mapper, long maxMemoryBytes, Path directory, long maxDiskBytes, Duration maxAge) throws IOException {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        this.maxAgeMillis = maxAge.toMillis();
+        this.mapper = mapper;
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+    }
+
+    /**
+     * Wyznacza klucz treści dla zamówień i metod płatności – skrót SHA-256 (szesnastkowo) znormalizowanych danych:
+     * identyfikatory, kwoty bez końcowych zer i promocje (brak promocji = pusta lista), każdy napis poprzedzony długością.
+     * Klucz trzeba wyznaczyć przed optymalizacją – algorytm zmienia limity metod płatności.
+     *
+     * @param paymentMethods Metody płatności.
+     * @param orders Zamówienia.
+     * @param variant Wariant obliczeń (np. arytmetyka i strategia kolejności) – różne warianty mają różne klucze.
+     * @return Klucz treści.
+     */
+    public static String key(List<PaymentMethod> paymentMethods, List<Order> orders, String variant) {
+        Digest digest = new Digest();
+        digest.put(variant);
+        digest.put(paymentMethods.size());
+        for (PaymentMethod pm : paymentMethods) {
+            digest.put(pm.id);
+            digest.put(normalize(pm.discount));
+            digest.put(normalize(pm.limit));
+        }
+        digest.put(orders.size());
+        for (Order order : orders) {
+            digest.put(order.id);
+            digest.put(normalize(order.value));
+            List<String> promotions = order.promotions != null ? order.promotions : List.of();
+            digest.put(promotions.size());
+            for (String promotion : promotions) {
+                digest.put(promotion);
+            }
+        }
+        return digest.finish();
+    }
+
+    /**
+     * Wyznacza klucz plików wejściowych – skrót SHA-256 ich surowych bajtów (bez parsowania).
+     *
+     * @param files Pliki wejściowe, w ustalonej kolejności.
+     * @param variant Wariant obliczeń.
+     * @return Klucz plików (patrz alias i resolve).
+     * @throws IOException Jeśli pliku nie da się odczytać.
+     */
+    public static String fileKey(List<Path> files, String variant) throws IOException {
+        Digest digest = new Digest();
+        digest.put(variant);
+        for (Path file : files) {
+            digest.put(Files.size(file));
+            try (InputStream in = Files.newInputStream(file)) {
+                digest.put(in);
+            }
+        }
+        return digest.finish();
+    }
+
+    private static String normalize(BigDecimal amount) {
+        return amount == null ? "" : amount.stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Zwraca wpis dla klucza – z pamięci albo z dysku (wtedy trafia też do pamięci).
+     *
+     * @param key Klucz treści.
+     * @return Wpis lub null, jeśli go nie ma albo jest starszy niż maxAge.
+     */
+    public synchronized Entry get(String key) {
+        long now = System.currentTimeMillis();
+        Entry entry = memory.get(key);
+        if (entry != null) {
+            if (now - entry.createdMillis <= maxAgeMillis && (entry.file == null || Files.exists(entry.file))) {   // Wpis z dysku bez pliku (przycięty katalog) jest nieważny.
+                return entry;
+            }
+            removeFromMemory(key);
+        }
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(key + ENTRY_SUFFIX);
+        try {
+            entry = read(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            delete(file);                                                               // Uszkodzony plik – usuwamy, aby kolejne odczyty nie trafiały na niego ponownie.
+            return null;
+        }
+        if (now - entry.createdMillis > maxAgeMillis) {
+            delete(file);
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now));                  // Czas modyfikacji to czas ostatniego użycia – według niego przycinamy katalog.
+        } catch (IOException e) {
+            return null;                                                                // Plik usunięty w międzyczasie (np. przez inny proces).
+        }
+        putInMemory(key, entry);
+        return entry;
+    }
+
+    /**
+     * Zapamiętuje wpis w pamięci i (jeśli podano katalog) na dysku.
+     *
+     * @param key Klucz treści.
+     * @param entry Wpis.
+     * @return Wpis odczytany z zapisanego pliku (writeResults kopiuje wtedy gotowe wiersze zamiast serializować
+     * wyniki ponownie) albo entry, jeśli poziomu dyskowego nie ma lub plik został od razu usunięty przy przycinaniu.
+     * @throws IOException Jeśli zapis na dysk się nie powiódł.
+     */
+    public synchronized Entry put(String key, Entry entry) throws IOException {
+        putInMemory(key, entry);
+        if (directory == null) {
+            return entry;
+        }
+        Path file = directory.resolve(key + ENTRY_SUFFIX);
+        long previous = sizeOf(file);
+        write(file, key, entry);
+        addDiskBytes(sizeOf(file) - previous);
+        return Files.exists(file) ? read(file) : entry;
+    }
+
+    /**
+     * Zapamiętuje, że pliki o kluczu fileKey mają treść o kluczu key.
+     *
+     * @param fileKey Klucz plików.
+     * @param key Klucz treści.
+     * @throws IOException Jeśli zapis na dysk się nie powiódł.
+     */
+    public synchronized void alias(String fileKey, String key) throws IOException {
+        aliases.put(fileKey, key);
+        if (directory != null) {
+            Path file = directory.resolve(fileKey + ALIAS_SUFFIX);
+            long previous = sizeOf(file);
+            Path temporary = Files.createTempFile(directory, fileKey, TEMP_SUFFIX);
+            try {
+                Files.writeString(temporary, key);
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);                                        // Po udanym przeniesieniu pliku już nie ma.
+            }
+            addDiskBytes(sizeOf(file) - previous);
+        }
+    }
+
+    /**
+     * Zwraca klucz treści zapamiętany dla klucza plików.
+     *
+     * @param fileKey Klucz plików.
+     * @return Klucz treści lub null.
+     */
+    public synchronized String resolve(String fileKey) {
+        String key = aliases.get(fileKey);
+        if (key != null || directory == null) {
+            return key;
+        }
+        Path file = directory.resolve(fileKey + ALIAS_SUFFIX);
+        try {
+            if (System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > maxAgeMillis) {
+                delete(file);
+                return null;
+            }
+            key = Files.readString(file).trim();
+        } catch (IOException e) {
+            return null;
+        }
+        aliases.put(fileKey, key);
+        return key;
+    }
+
+    /**
+     * @return Szacowany rozmiar wpisów w pamięci w bajtach.
+     */
+    public synchronized long memoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * @return Liczba wpisów w pamięci.
+     */
+    public synchronized int memorySize() {
+        return memory.size();
+    }
+
+    private void putInMemory(String key, Entry entry) {
+        removeFromMemory(key);
+        if (entry.bytes > maxMemoryBytes) {                                             // Wpis większy od całego limitu zostaje tylko na dysku.
+            return;
+        }
+        memory.put(key, entry);
+        memoryBytes += entry.bytes;
+        long now = System.currentTimeMillis();
+        Iterator<Entry> eldest = memory.values().iterator();
+        while (eldest.hasNext()) {                                                      // Usuwamy najdawniej używane wpisy ponad limit oraz wpisy przeterminowane.
+            Entry candidate = eldest.next();
+            if (memoryBytes <= maxMemoryBytes && now - candidate.createdMillis <= maxAgeMillis) {
+                break;
+            }
+            eldest.remove();
+            memoryBytes -= candidate.bytes;
+        }
+    }
+
+    private void removeFromMemory(String key) {
+        Entry removed = memory.remove(key);
+        if (removed != null) {
+            memoryBytes -= removed.bytes;
+        }
+    }
+
+    /**
+     * Zapisuje wpis do pliku: nagłówek {"key","created","totalDiscount","spendings","unpaid"} w jednym wierszu
+     * i wiersze wyników (ResultWriter).
+     * Plik powstaje pod nazwą tymczasową i jest przenoszony atomowo – czytający widzi cały wpis albo żaden.
+     */
+    private void write(Path file, String key, Entry entry) throws IOException {
+        Path temporary = Files.createTempFile(directory, key, TEMP_SUFFIX);
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                JsonGenerator header = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+                header.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                header.writeStartObject();
+                header.writeStringField("key", key);
+                header.writeNumberField("created", entry.createdMillis);
+                header.writeStringField("totalDiscount", entry.totalDiscount.toPlainString());
+                header.writeObjectFieldStart("spendings");                            // Napisy zachowują skalę kwot.
+                for (Map.Entry<String, BigDecimal> spending : entry.methodSpendings.entrySet()) {
+                    header.writeStringField(spending.getKey(), spending.getValue().toPlainString());
+                }
+                header.writeEndObject();
+                header.writeArrayFieldStart("unpaid");
+                for (String id : entry.unpaid) {
+                    header.writeString(id);
+                }
+                header.writeEndArray();
+                header.writeEndObject();
+                header.writeRaw('\n');
+                header.close();
+                entry.writeResults(mapper, out);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Czyta nagłówek wpisu (pierwszy wiersz pliku); wyniki zamówień zostają w pliku.
+     */
+    private Entry read(Path file) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    throw new IOException("Truncated cache entry: " + file);
+                }
+                line.write(b);
+            }
+        }
+        JsonNode header = mapper.readTree(line.toByteArray());
+        if (header == null || !header.path("spendings").isObject() || !header.path("unpaid").isArray()
+                || !header.path("totalDiscount").isTextual() || !header.path("created").isNumber()) {
+            throw new IOException("Invalid cache entry header: " + file);
+        }
+        try {
+            Map<String, BigDecimal> spendings = new LinkedHashMap<>();
+            header.get("spendings").fields().forEachRemaining(spending -> spendings.put(spending.getKey(), new BigDecimal(spending.getValue().asText())));
+            List<String> unpaid = new ArrayList<>();
+            header.get("unpaid").forEach(id -> unpaid.add(id.asText()));
+            return new Entry(spendings, new BigDecimal(header.get("totalDiscount").asText()), unpaid, null, file,
+                    line.size() + 1, header.get("created").asLong());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid amount in cache entry: " + file, e);
+        }
+    }
+
+    /**
+     * Czyta strumieniowo wiersze wyników w formacie ResultWriter – token po tokenie, bez drzewa JSON.
+     */
+    private static void readResults(InputStream in, Consumer<OrderResult> consumer) throws IOException {
+        try (JsonParser parser = READER.createParser(in)) {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String orderId = null;
+                OrderResult.Rule rule = null;
+                List<PaymentAllocation> allocations = new ArrayList<>(2);
+                BigDecimal discount = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "orderId" -> orderId = parser.getText();
+                        case "rule" -> rule = OrderResult.Rule.valueOf(parser.getText());
+                        case "discount" -> discount = parser.getDecimalValue();
+                        case "allocations" -> {
+                            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                                String methodId = null;
+                                BigDecimal amount = null;
+                                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                                    String name = parser.currentName();
+                                    parser.nextToken();
+                                    if (name.equals("methodId")) {
+                                        methodId = parser.getText();
+                                    } else if (name.equals("amount")) {
+                                        amount = parser.getDecimalValue();
+                                    } else {
+                                        parser.skipChildren();
+                                    }
+                                }
+                                allocations.add(new PaymentAllocation(methodId, amount));
+                            }
+                        }
+                        default -> parser.skipChildren();
+                    }
+                }
+                consumer.accept(new OrderResult(orderId, rule, allocations, discount));
+            }
+        }
+    }
+
+    /**
+     * Dolicza zmianę rozmiaru katalogu. Przy pierwszym wywołaniu (i gdy licznik przekroczy limit) przegląda katalog
+     * i przycina go – dzięki temu put nie przegląda katalogu za każdym razem.
+     */
+    private void addDiskBytes(long delta) throws IOException {
+        if (diskBytes < 0) {
+            diskBytes = trim();
+            return;
+        }
+        diskBytes += delta;
+        if (diskBytes > maxDiskBytes) {
+            diskBytes = trim();                                                         // Licznik mógł się rozjechać z katalogiem (inne procesy) – trim liczy od nowa.
+        }
+    }
+
+    /**
+     * Usuwa plik z katalogu (jeśli się da) i odejmuje jego rozmiar od licznika.
+     */
+    private void delete(Path file) {
+        long size = sizeOf(file);
+        try {
+            if (Files.deleteIfExists(file) && diskBytes >= 0) {
+                diskBytes -= size;
+            }
+        } catch (IOException e) {
+            // Pliku nie da się usunąć – zostanie usunięty przy przycinaniu albo nadpisany przy put.
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Usuwa z katalogu pliki tymczasowe pozostałe po przerwanych zapisach (starsze niż 10 minut), potem wpisy
+     * przeterminowane, a potem najdawniej używane, dopóki łączny rozmiar przekracza limit.
+     *
+     * @return Łączny rozmiar plików, które zostały (bez plików tymczasowych w trakcie zapisu).
+     */
+    private long trim() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = new ArrayList<>(listing.filter(f -> f.toString().endsWith(ENTRY_SUFFIX) || f.toString().endsWith(ALIAS_SUFFIX)
+                    || f.toString().endsWith(TEMP_SUFFIX)).toList());
+        }
+        Map<Path, long[]> attributes = new HashMap<>();                               // Plik -> {czas modyfikacji, rozmiar}.
+        long total = 0;
+        long now = System.currentTimeMillis();
+        for (Path file : files) {
+            try {
+                long[] attribute = {Files.getLastModifiedTime(file).toMillis(), Files.size(file)};
+                if (!file.toString().endsWith(TEMP_SUFFIX)) {
+                    attributes.put(file, attribute);
+                    total += attribute[1];
+                } else if (now - attribute[0] > TEMP_MAX_AGE_MILLIS) {                  // Zapis w toku odświeża czas modyfikacji, więc stary plik jest porzucony.
+                    Files.deleteIfExists(file);
+                }
+            } catch (NoSuchFileException e) {
+                // Plik usunięty (lub przeniesiony) w międzyczasie, np. przez inny proces – pomijamy.
+            }
+        }
+        files.removeIf(f -> !attributes.containsKey(f));
+        files.sort(Comparator.comparingLong(f -> attributes.get(f)[0]));
+        for (Path file : files) {
+            long[] attribute = attributes.get(file);
+            if (total <= maxDiskBytes && now - attribute[0] <= maxAgeMillis) {
+                break;
+            }
+            Files.deleteIfExists(file);
+            total -= attribute[1];
+        }
+        return total;
+    }
+
+    /**
+     * Skrót SHA-256 napisów i liczb; napisy są poprzedzane długością, więc granice pól są jednoznaczne.
+     */
+    private static final class Digest {
+
+        private final MessageDigest sha;
+        private final byte[] buffer = new byte[1 << 16];                                // Bajty zbierane w buforze – jedno wywołanie update na 64 KB.
+        private int position;
+
+        Digest() {
+            try {
+                sha = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);                                     // SHA-256 jest obowiązkowy w każdej implementacji Javy.
+            }
+        }
+
+        void put(long value) {
+            if (position + Long.BYTES > buffer.length) {
+                flush();
+            }
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void put(String value) {
+            byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+            put(value == null ? -1 : bytes.length);
+            if (position + bytes.length > buffer.length) {
+                flush();
+                if (bytes.length > buffer.length) {
+                    sha.update(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void put(InputStream in) throws IOException {
+            flush();
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                sha.update(buffer, 0, read);
+            }
+        }
+
+        private void flush() {
+            sha.update(buffer, 0, position);
+            position = 0;
+        }
+
+        String finish() {
+            flush();
+            return HexFormat.of().formatHex(sha.digest());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+/**
+ * Klasa ResultWriter zapisuje wyniki poszczególnych zamówień w formacie JSON Lines (jeden obiekt JSON w wierszu):
+ * {"orderId":"ORDER1","rule":"FULL_POINTS","allocations":[{"methodId":"PUNKTY","amount":85.00}],"discount":15.00}
+ *
+ * Wiersze są zapisywane strumieniowo przez JsonGenerator Jacksona do buforowanego strumienia – bez budowania
+ * drzewa JSON i bez trzymania wyników w pamięci. Kwoty mają co najmniej 2 miejsca po przecinku
+ * (3 tylko tam, gdzie reguła częściowej płatności punktami daje dziesiąte części grosza), niezależnie od arytmetyki.
+ *
+ * Klasa implementuje Consumer, więc można ją przekazać bezpośrednio do Algorithm.setResultListener.
+ */
+public class ResultWriter implements Consumer<OrderResult>, Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;                                     // Rozmiar bufora strumienia wyjściowego.
+
+    private final JsonGenerator generator;
+
+    /**
+     * Konstruktor klasy ResultWriter zapisujący do pliku.
+     *
+     * @param mapper Skonfigurowany ObjectMapper (używana jest jego fabryka generatorów).
+     * @param file Plik wynikowy; istniejący plik jest nadpisywany.
+     * @throws IOException Jeśli pliku nie da się utworzyć.
+     */
+    public ResultWriter(ObjectMapper mapper, File file) throws IOException {
+        this(mapper, new FileOutputStream(file));
+    }
+
+    /**
+     * Konstruktor klasy ResultWriter zapisujący do strumienia. Strumień jest zamykany razem z ResultWriter.
+     *
+     * @param mapper Skonfigurowany ObjectMapper (używana jest jego fabryka generatorów).
+     * @param out Strumień wyjściowy.
+     * @throws IOException Jeśli nie udało się utworzyć generatora.
+     */
+    public ResultWriter(ObjectMapper mapper, OutputStream out) throws IOException {
+        this.generator = mapper.getFactory().createGenerator(new BufferedOutputStream(out, BUFFER_SIZE), JsonEncoding.UTF8);
+        this.generator.enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
+        this.generator.setRootValueSeparator(null);                                     // Wiersze rozdziela sam znak nowej linii (domyślnie Jackson wstawia spację).
+    }
+
+    /**
+     * Zapisuje wynik jednego zamówienia jako wiersz JSON.
+     *
+     * @param result Wynik alokacji zamówienia.
+     * @throws UncheckedIOException Jeśli zapis się nie powiódł.
+     */
+    @Override
+    public void accept(OrderResult result) {
+        try {
+            generator.writeStartObject();
+            generator.writeStringField("orderId", result.orderId);
+            generator.writeStringField("rule", result.rule.name());
+            generator.writeArrayFieldStart("allocations");
+            for (PaymentAllocation allocation : result.allocations) {
+                generator.writeStartObject();
+                generator.writeStringField("methodId", allocation.methodId);
+                generator.writeFieldName("amount");
+                generator.writeNumber(normalize(allocation.amount));
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeFieldName("discount");
+            generator.writeNumber(normalize(result.discount));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Ujednolica zapis kwoty: ścieżka stałoprzecinkowa zwraca zawsze 3 miejsca po przecinku, a BigDecimal – różnie.
+     */
+    static BigDecimal normalize(BigDecimal amount) {
+        BigDecimal stripped = amount.stripTrailingZeros();
+        return stripped.scale() < 2 ? stripped.setScale(2) : stripped;
+    }
+
+    /**
+     * Opróżnia bufor i zamyka strumień wyjściowy.
+     *
+     * @throws IOException Jeśli zapis się nie powiódł.
+     */
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,365 @@
+package org.example;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Klasa ScenarioSweep odpowiada na pytania typu „co by było, gdyby rabat mZysk wynosił 12%” – uruchamia
+ * alokację jednego zbioru zamówień dla wielu wariantów metod płatności (scenariuszy) i dla każdego zwraca
+ * łączny rabat, wydatki poszczególnych metod oraz liczbę nieopłaconych zamówień.
+ *
+ * Zamówienia są raz zamieniane na wspólne kolumny tylko do odczytu (OrderColumns – wartości w jednostkach
+ * FixedPoint i promocje jako indeksy metod), z których korzystają wszystkie scenariusze – bez kopii na scenariusz.
+ * Każdy scenariusz dostaje własny FixedPointEngine (ten sam silnik co Algorithm z arytmetyką FIXED_POINT),
+ * więc wyniki są identyczne z osobnym uruchomieniem Main z --fixed, a scenariusze liczą się równolegle.
+ *
+ * Plik scenariuszy (JSON) to lista scenariuszy:
+ * [{"name":"mZysk 12%","methods":{"mZysk":{"discount":12}}},{"name":"2x PUNKTY","methods":{"PUNKTY":{"limit":200.00}}}]
+ * albo siatka, rozwijana do wszystkich kombinacji podanych wartości:
+ * {"grid":{"mZysk":{"discount":[10,12,15]},"PUNKTY":{"limit":[100.00,200.00]}}}
+ */
+public final class ScenarioSweep {
+
+    /**
+     * Jeden scenariusz – nazwa i zmiany względem bazowych metod płatności (pozostałe metody bez zmian).
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Scenario {
+        public String name;
+        public Map<String, MethodChange> methods;
+    }
+
+    /**
+     * Zmiana jednej metody płatności w scenariuszu; pole null oznacza wartość bazową.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class MethodChange {
+        public BigDecimal discount;
+        public BigDecimal limit;
+    }
+
+    /**
+     * Jedna oś siatki scenariuszy – wartości rabatu i/lub limitu jednej metody płatności.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class GridAxis {
+        public List<BigDecimal> discount;
+        public List<BigDecimal> limit;
+    }
+
+    /**
+     * Wynik jednego scenariusza.
+     */
+    public static class Result {
+        public final String scenario;
+        public final BigDecimal totalDiscount;
+        public final Map<String, BigDecimal> spendings;                                 // Wydatki wszystkich metod, w kolejności z listy metod.
+        public final int unpaid;
+
+        Result(String scenario, BigDecimal totalDiscount, Map<String, BigDecimal> spendings, int unpaid) {
+            this.scenario = scenario;
+            this.totalDiscount = totalDiscount;
+            this.spendings = spendings;
+            this.unpaid = unpaid;
+        }
+    }
+
+    private final List<PaymentMethod> methods;                                          // Bazowe metody płatności – nie są modyfikowane.
+    private final Map<String, Integer> methodPositions = new HashMap<>();               // Identyfikator metody -> pozycja na liście metod.
+    private final OrderColumns orders;                                                  // Wspólne kolumny zamówień, tylko do odczytu.
+
+    /**
+     * Konstruktor klasy ScenarioSweep dla listy zamówień.
+     *
+     * @param methods Bazowe metody płatności.
+     * @param orders Zamówienia wspólne dla wszystkich scenariuszy.
+     * @throws ArithmeticException Jeśli wartość zamówienia, limit lub rabat nie daje się zapisać dokładnie w arytmetyce stałoprzecinkowej.
+     */
+    public ScenarioSweep(List<PaymentMethod> methods, List<Order> orders) {
+        this.methods = methods;
+        indexMethods();
+        this.orders = new OrderColumns(orders, new FixedPointEngine(methods));
+    }
+
+    /**
+     * Konstruktor klasy ScenarioSweep dla migawki zamówień (patrz Snapshot) – kolumny są czytane wprost z migawki.
+     *
+     * @param methods Bazowe metody płatności.
+     * @param orders Migawka zamówień wspólna dla wszystkich scenariuszy.
+     * @throws ArithmeticException Jeśli limit lub rabat nie daje się zapisać dokładnie w arytmetyce stałoprzecinkowej.
+     */
+    public ScenarioSweep(List<PaymentMethod> methods, Snapshot orders) {
+        this.methods = methods;
+        indexMethods();
+        this.orders = new OrderColumns(orders, new FixedPointEngine(methods));
+    }
+
+    private void indexMethods() {
+        for (int i = 0; i < methods.size(); i++) {
+            methodPositions.putIfAbsent(methods.get(i).id, i);
+        }
+    }
+
+    /**
+     * Wczytuje scenariusze z pliku JSON – listę scenariuszy albo siatkę (obiekt z polem "grid").
+     *
+     * @param mapper Skonfigurowany ObjectMapper.
+     * @param file Plik scenariuszy.
+     * @return Lista scenariuszy w kolejności z pliku (dla siatki – ostatnia metoda zmienia się najszybciej).
+     * @throws IOException Jeśli pliku nie da się odczytać lub nie ma on żadnej z obsługiwanych postaci.
+     */
+    public static List<Scenario> readScenarios(ObjectMapper mapper, File file) throws IOException {
+        JsonNode root = mapper.readTree(file);
+        if (root != null && root.isArray()) {
+            List<Scenario> scenarios = new ArrayList<>(Arrays.asList(mapper.treeToValue(root, Scenario[].class)));
+            for (int i = 0; i < scenarios.size(); i++) {
+                if (scenarios.get(i).name == null) {
+                    scenarios.get(i).name = "scenario" + (i + 1);
+                }
+            }
+            return scenarios;
+        }
+        if (root != null && root.isObject() && root.has("grid")) {
+            Map<String, GridAxis> grid = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = root.get("grid").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                grid.put(field.getKey(), mapper.treeToValue(field.getValue(), GridAxis.class));
+            }
+            return expand(grid);
+        }
+        throw new IOException("Scenario file must contain a list of scenarios or an object with \"grid\": " + file);
+    }
+
+    /**
+     * Rozwija siatkę do listy scenariuszy – iloczyn kartezjański wszystkich wartości.
+     * Nazwa scenariusza opisuje ustawione wartości, np. "mZysk.discount=12 PUNKTY.limit=200.00".
+     *
+     * @param grid Metoda płatności -> wartości rabatu i/lub limitu.
+     * @return Lista scenariuszy; pusta siatka daje jeden scenariusz "base".
+     * @throws IOException Jeśli któraś metoda nie ma żadnych wartości albo ma pustą listę wartości
+     *                     (iloczyn kartezjański byłby pusty, a pominięcie osi zmieniałoby znaczenie siatki).
+     */
+    public static List<Scenario> expand(Map<String, GridAxis> grid) throws IOException {
+        List<String> axisMethods = new ArrayList<>();                                   // Osie siatki: metoda, pole (discount/limit) i wartości.
+        List<Boolean> axisDiscount = new ArrayList<>();
+        List<List<BigDecimal>> axisValues = new ArrayList<>();
+        for (Map.Entry<String, GridAxis> entry : grid.entrySet()) {
+            String id = entry.getKey();
+            GridAxis axis = entry.getValue();
+            if (axis == null || (axis.discount == null && axis.limit == null)) {
+                throw new IOException("Grid axis for " + id + " must contain \"discount\" and/or \"limit\" values");
+            }
+            if (axis.discount != null) {
+                if (axis.discount.isEmpty()) {
+                    throw new IOException("Grid axis " + id + ".discount must not be empty");
+                }
+                axisMethods.add(id);
+                axisDiscount.add(true);
+                axisValues.add(axis.discount);
+            }
+            if (axis.limit != null) {
+                if (axis.limit.isEmpty()) {
+                    throw new IOException("Grid axis " + id + ".limit must not be empty");
+                }
+                axisMethods.add(id);
+                axisDiscount.add(false);
+                axisValues.add(axis.limit);
+            }
+        }
+
+        List<Scenario> scenarios = new ArrayList<>();
+        int[] choice = new int[axisValues.size()];
+        while (true) {
+            Scenario scenario = new Scenario();
+            scenario.methods = new LinkedHashMap<>();
+            StringBuilder name = new StringBuilder();
+            for (int a = 0; a < choice.length; a++) {
+                BigDecimal value = axisValues.get(a).get(choice[a]);
+                MethodChange change = scenario.methods.computeIfAbsent(axisMethods.get(a), id -> new MethodChange());
+                if (axisDiscount.get(a)) {
+                    change.discount = value;
+                } else {
+                    change.limit = value;
+                }
+                name.append(name.length() > 0 ? " " : "").append(axisMethods.get(a))
+                        .append(axisDiscount.get(a) ? ".discount=" : ".limit=").append(value.toPlainString());
+            }
+            scenario.name = name.length() > 0 ? name.toString() : "base";
+            scenarios.add(scenario);
+
+            int a = choice.length - 1;                                                  // Następna kombinacja – jak licznik, ostatnia oś zmienia się najszybciej.
+            while (a >= 0 && ++choice[a] == axisValues.get(a).size()) {
+                choice[a--] = 0;
+            }
+            if (a < 0) {
+                return scenarios;
+            }
+        }
+    }
+
+    /**
+     * Zwraca liczbę zamówień wspólnych dla scenariuszy.
+     *
+     * @return Liczba zamówień.
+     */
+    public int size() {
+        return orders.size();
+    }
+
+    /**
+     * Uruchamia alokację dla jednego scenariusza.
+     *
+     * @param scenario Scenariusz.
+     * @return Wynik scenariusza.
+     * @throws IllegalArgumentException Jeśli scenariusz zmienia nieznaną metodę płatności.
+     * @throws ArithmeticException Jeśli limit lub rabat scenariusza nie daje się zapisać dokładnie w arytmetyce stałoprzecinkowej.
+     */
+    public Result run(Scenario scenario) {
+        FixedPointEngine engine = new FixedPointEngine(methodsOf(scenario));
+        int unpaid = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            if (!orders.allocate(engine, i)) {
+                unpaid++;
+            }
+        }
+        Map<String, BigDecimal> spendings = new LinkedHashMap<>();
+        for (int i = 0; i < engine.methodCount(); i++) {
+            spendings.put(engine.methodId(i), FixedPoint.toBigDecimal(engine.spending(i)));
+        }
+        return new Result(scenario.name, FixedPoint.toBigDecimal(engine.totalDiscount()), spendings, unpaid);
+    }
+
+    /**
+     * Równolegle uruchamia alokację dla wszystkich scenariuszy, korzystając ze wspólnej puli ForkJoinPool.
+     *
+     * @param scenarios Scenariusze.
+     * @return Wyniki w kolejności scenariuszy.
+     */
+    public List<Result> run(List<Scenario> scenarios) {
+        return run(scenarios, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Równolegle uruchamia alokację dla wszystkich scenariuszy w podanej puli – każdy scenariusz to osobne zadanie.
+     * Scenariusze są sprawdzane przed uruchomieniem (validate, bez budowy silników), więc błąd w jednym nie zostawia
+     * części wyników.
+     *
+     * @param scenarios Scenariusze.
+     * @param pool Pula wątków.
+     * @return Wyniki w kolejności scenariuszy.
+     * @throws IllegalArgumentException Jeśli któryś scenariusz zmienia nieznaną metodę płatności.
+     * @throws ArithmeticException Jeśli limit lub rabat któregoś scenariusza nie daje się zapisać dokładnie w arytmetyce stałoprzecinkowej.
+     */
+    public List<Result> run(List<Scenario> scenarios, ForkJoinPool pool) {
+        for (Scenario scenario : scenarios) {
+            validate(scenario);
+        }
+        List<ForkJoinTask<Result>> tasks = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            tasks.add(pool.submit(() -> run(scenario)));
+        }
+        List<Result> results = new ArrayList<>();
+        for (ForkJoinTask<Result> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * Sprawdza scenariusz tak, jak zrobiłby to FixedPointEngine dla jego metod: czy zmienia tylko znane metody
+     * i czy nowe rabaty i limity dają się zapisać w arytmetyce stałoprzecinkowej. Bazowe metody sprawdził już konstruktor.
+     *
+     * @throws IllegalArgumentException Jeśli scenariusz zmienia nieznaną metodę płatności.
+     * @throws ArithmeticException Jeśli limit lub rabat nie daje się zapisać dokładnie w arytmetyce stałoprzecinkowej.
+     */
+    private void validate(Scenario scenario) {
+        if (scenario.methods == null) {
+            return;
+        }
+        scenario.methods.forEach((id, change) -> {
+            if (!methodPositions.containsKey(id)) {
+                throw new IllegalArgumentException("Unknown payment method in scenario " + scenario.name + ": " + id);
+            }
+            if (change != null && change.discount != null) {
+                FixedPoint.toPercentUnits(change.discount);
+            }
+            if (change != null && change.limit != null) {
+                FixedPoint.toUnits(change.limit);
+            }
+        });
+    }
+
+    /**
+     * Tworzy metody płatności scenariusza – kopie bazowych metod ze zmienionymi rabatami i limitami.
+     */
+    private List<PaymentMethod> methodsOf(Scenario scenario) {
+        List<PaymentMethod> result = new ArrayList<>();
+        for (PaymentMethod pm : methods) {
+            PaymentMethod copy = new PaymentMethod();
+            copy.id = pm.id;
+            copy.discount = pm.discount;
+            copy.limit = pm.limit;
+            result.add(copy);
+        }
+        if (scenario.methods != null) {
+            scenario.methods.forEach((id, change) -> {
+                Integer position = methodPositions.get(id);
+                if (position == null) {
+                    throw new IllegalArgumentException("Unknown payment method in scenario " + scenario.name + ": " + id);
+                }
+                if (change != null && change.discount != null) {
+                    result.get(position).discount = change.discount;
+                }
+                if (change != null && change.limit != null) {
+                    result.get(position).limit = change.limit;
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Zapisuje wyniki scenariuszy w formacie JSON Lines, np.:
+     * {"scenario":"mZysk.discount=12","totalDiscount":45.00,"unpaid":0,"spendings":{"PUNKTY":100.00,"mZysk":165.00}}
+     * Kwoty mają co najmniej 2 miejsca po przecinku, jak w ResultWriter. Strumień nie jest zamykany.
+     *
+     * @param mapper Skonfigurowany ObjectMapper (używana jest jego fabryka generatorów).
+     * @param results Wyniki scenariuszy.
+     * @param out Strumień wyjściowy.
+     * @throws IOException Jeśli zapis się nie powiódł.
+     */
+    public static void write(ObjectMapper mapper, List<Result> results, OutputStream out) throws IOException {
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
+            generator.setRootValueSeparator(null);
+            for (Result result : results) {
+                generator.writeStartObject();
+                generator.writeStringField("scenario", result.scenario);
+                generator.writeFieldName("totalDiscount");
+                generator.writeNumber(ResultWriter.normalize(result.totalDiscount));
+                generator.writeNumberField("unpaid", result.unpaid);
+                generator.writeObjectFieldStart("spendings");
+                for (Map.Entry<String, BigDecimal> spending : result.spendings.entrySet()) {
+                    generator.writeFieldName(spending.getKey());
+                    generator.writeNumber(ResultWriter.normalize(spending.getValue()));
+                }
+                generator.writeEndObject();
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
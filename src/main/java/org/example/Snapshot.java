@@ -0,0 +1,454 @@
+package org.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Klasa Snapshot to binarna, kolumnowa migawka zamówień lub metod płatności, czytana przez FileChannel.map.
+ *
+ * Migawka zamówień zawiera kolumny:
+ * - wartości zamówień w groszach (long),
+ * - identyfikatory promocji jako numery w słowniku (int) wraz z początkiem listy promocji każdego zamówienia,
+ * - identyfikatory zamówień (przesunięcia + bajty UTF-8),
+ * - słownik identyfikatorów promocji (każdy identyfikator zapisany raz).
+ * Migawka metod płatności zawiera rabaty (x 10^4), limity (w jednostkach 0.001 zł, patrz FixedPoint)
+ * oraz identyfikatory metod w słowniku.
+ *
+ * Plik zaczyna się nagłówkiem (znacznik, rodzaj, liczności, położenie i długość każdej kolumny); liczby są
+ * zapisane w porządku little-endian. Każda kolumna jest mapowana osobno, więc otwarcie migawki nie czyta
+ * danych zamówień – strony pliku ładuje system przy pierwszym dostępie. Algorithm.optimize(Snapshot)
+ * alokuje zamówienia wprost z mapowanych kolumn, nie tworząc obiektów Order.
+ * Pojedyncza kolumna nie może przekraczać 2 GB (ograniczenie MappedByteBuffer).
+ */
+public final class Snapshot {
+
+    private static final long MAGIC = 0x31_50_41_4E_53_4D_50_50L;                       // "PPMSNAP1" w porządku little-endian.
+    private static final int ORDERS = 1;                                                // Rodzaj migawki: zamówienia.
+    private static final int PAYMENT_METHODS = 2;                                       // Rodzaj migawki: metody płatności.
+
+    private static final int VALUES = 0;                                                // Kolumny migawki zamówień: wartości w groszach,
+    private static final int PROMOTION_STARTS = 1;                                      // początki list promocji (liczba zamówień + 1),
+    private static final int PROMOTIONS = 2;                                            // numery promocji w słowniku,
+    private static final int ID_OFFSETS = 3;                                            // przesunięcia identyfikatorów zamówień (liczba zamówień + 1),
+    private static final int ID_BYTES = 4;                                              // bajty identyfikatorów zamówień.
+    private static final int DISCOUNTS = 0;                                             // Kolumny migawki metod: rabaty,
+    private static final int LIMITS = 1;                                                // limity.
+    private static final int DICTIONARY_OFFSETS = 5;                                    // Wspólne: przesunięcia i bajty słownika.
+    private static final int DICTIONARY_BYTES = 6;
+    private static final int SECTIONS = 7;
+    private static final int HEADER_SIZE = 32 + SECTIONS * 16;                          // Nagłówek: znacznik, rodzaj, 4 liczności, (początek, długość) każdej kolumny.
+
+    private final int size;
+    private final int maxPromotions;
+    private final LongBuffer values;
+    private final IntBuffer promotionStarts;
+    private final IntBuffer promotions;
+    private final IntBuffer idOffsets;
+    private final ByteBuffer idBytes;
+    private final List<String> promotionIds;
+
+    private Snapshot(int size, int maxPromotions, LongBuffer values, IntBuffer promotionStarts, IntBuffer promotions,
+                     IntBuffer idOffsets, ByteBuffer idBytes, List<String> promotionIds) {
+        this.size = size;
+        this.maxPromotions = maxPromotions;
+        this.values = values;
+        this.promotionStarts = promotionStarts;
+        this.promotions = promotions;
+        this.idOffsets = idOffsets;
+        this.idBytes = idBytes;
+        this.promotionIds = promotionIds;
+    }
+
+    /**
+     * Otwiera migawkę zamówień. Kolumny są mapowane w pamięć tylko do odczytu; plik nie może się zmieniać,
+     * dopóki migawka jest używana.
+     *
+     * @param file Plik migawki zamówień.
+     * @return Migawka zamówień.
+     * @throws IOException Jeśli pliku nie da się odczytać lub nie jest migawką zamówień.
+     */
+    public static Snapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = Header.read(channel, file, ORDERS);
+            return new Snapshot(header.count, header.maxPromotions,
+                    header.map(channel, VALUES).asLongBuffer(),
+                    header.map(channel, PROMOTION_STARTS).asIntBuffer(),
+                    header.map(channel, PROMOTIONS).asIntBuffer(),
+                    header.map(channel, ID_OFFSETS).asIntBuffer(),
+                    header.map(channel, ID_BYTES),
+                    header.dictionary(channel));
+        }
+    }
+
+    /**
+     * Wczytuje metody płatności z migawki.
+     *
+     * @param file Plik migawki metod płatności.
+     * @return Lista metod płatności w kolejności z pliku źródłowego.
+     * @throws IOException Jeśli pliku nie da się odczytać lub nie jest migawką metod płatności.
+     */
+    public static List<PaymentMethod> readPaymentMethods(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = Header.read(channel, file, PAYMENT_METHODS);
+            LongBuffer discounts = header.map(channel, DISCOUNTS).asLongBuffer();
+            LongBuffer limits = header.map(channel, LIMITS).asLongBuffer();
+            List<String> ids = header.dictionary(channel);
+            List<PaymentMethod> methods = new ArrayList<>(header.count);
+            for (int i = 0; i < header.count; i++) {
+                PaymentMethod pm = new PaymentMethod();
+                pm.id = ids.get(i);
+                pm.discount = BigDecimal.valueOf(discounts.get(i), FixedPoint.PERCENT_SCALE);
+                pm.limit = FixedPoint.toBigDecimal(limits.get(i));
+                methods.add(pm);
+            }
+            return methods;
+        }
+    }
+
+    /**
+     * Zapisuje zamówienia jako migawkę. Zamówienia są pobierane z iteratora po jednym (np. z OrderReader),
+     * a kolumny budowane w tablicach typów prostych.
+     *
+     * @param orders Zamówienia.
+     * @param file Plik docelowy (nadpisywany).
+     * @return Liczba zapisanych zamówień.
+     * @throws IOException Jeśli pliku nie da się zapisać.
+     * @throws ArithmeticException Jeśli wartość zamówienia ma więcej niż 2 miejsca po przecinku.
+     */
+    public static int writeOrders(Iterator<Order> orders, Path file) throws IOException {
+        LongColumn values = new LongColumn();
+        IntColumn promotionStarts = new IntColumn();
+        IntColumn promotions = new IntColumn();
+        IntColumn idOffsets = new IntColumn();
+        ByteArrayOutputStream idBytes = new ByteArrayOutputStream(1 << 16);
+        Dictionary dictionary = new Dictionary();
+        int maxPromotions = 0;
+
+        promotionStarts.add(0);
+        idOffsets.add(0);
+        while (orders.hasNext()) {
+            Order order = orders.next();
+            values.add(FixedPoint.orderValueToGrosze(order.value));
+            if (order.promotions != null) {
+                for (String promotion : order.promotions) {
+                    promotions.add(dictionary.intern(promotion));
+                }
+                maxPromotions = Math.max(maxPromotions, order.promotions.size());
+            }
+            promotionStarts.add(promotions.size);
+            byte[] id = order.id.getBytes(StandardCharsets.UTF_8);
+            idBytes.write(id, 0, id.length);
+            idOffsets.add(Math.addExact(idOffsets.last(), id.length));
+        }
+
+        Writer writer = new Writer(ORDERS, values.size, promotions.size, maxPromotions, dictionary.ids.size());
+        writer.section(VALUES, values.toBuffer());
+        writer.section(PROMOTION_STARTS, promotionStarts.toBuffer());
+        writer.section(PROMOTIONS, promotions.toBuffer());
+        writer.section(ID_OFFSETS, idOffsets.toBuffer());
+        writer.section(ID_BYTES, ByteBuffer.wrap(idBytes.toByteArray()));
+        dictionary.writeTo(writer);
+        writer.writeTo(file);
+        return values.size;
+    }
+
+    /**
+     * Zapisuje metody płatności jako migawkę.
+     *
+     * @param paymentMethods Metody płatności.
+     * @param file Plik docelowy (nadpisywany).
+     * @throws IOException Jeśli pliku nie da się zapisać.
+     * @throws ArithmeticException Jeśli limit lub rabat nie daje się zapisać dokładnie w arytmetyce stałoprzecinkowej.
+     */
+    public static void writePaymentMethods(List<PaymentMethod> paymentMethods, Path file) throws IOException {
+        LongColumn discounts = new LongColumn();
+        LongColumn limits = new LongColumn();
+        Dictionary dictionary = new Dictionary();
+        for (PaymentMethod pm : paymentMethods) {
+            discounts.add(FixedPoint.toPercentUnits(pm.discount));
+            limits.add(FixedPoint.toUnits(pm.limit));
+            dictionary.ids.add(pm.id);                                                  // Bez internowania – kolejność metod musi zostać zachowana.
+        }
+        Writer writer = new Writer(PAYMENT_METHODS, paymentMethods.size(), 0, 0, paymentMethods.size());
+        writer.section(DISCOUNTS, discounts.toBuffer());
+        writer.section(LIMITS, limits.toBuffer());
+        dictionary.writeTo(writer);
+        writer.writeTo(file);
+    }
+
+    /**
+     * @return Liczba zamówień.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Największa liczba promocji pojedynczego zamówienia.
+     */
+    public int maxPromotions() {
+        return maxPromotions;
+    }
+
+    /**
+     * @param order Numer zamówienia.
+     * @return Wartość zamówienia w groszach.
+     */
+    public long valueInGrosze(int order) {
+        return values.get(order);
+    }
+
+    /**
+     * Przepisuje promocje zamówienia (numery w słowniku zamienione przez tablicę translation) do tablicy target.
+     *
+     * @param order Numer zamówienia.
+     * @param translation Numer promocji w słowniku -> wartość wpisywana do target (np. indeks metody płatności).
+     * @param target Tablica docelowa o długości co najmniej maxPromotions().
+     * @return Liczba promocji zamówienia.
+     */
+    public int promotions(int order, int[] translation, int[] target) {
+        int start = promotionStarts.get(order);
+        int count = promotionStarts.get(order + 1) - start;
+        for (int i = 0; i < count; i++) {
+            target[i] = translation[promotions.get(start + i)];
+        }
+        return count;
+    }
+
+    /**
+     * @return Słownik identyfikatorów promocji (numer w słowniku -> identyfikator).
+     */
+    public List<String> promotionIds() {
+        return promotionIds;
+    }
+
+    /**
+     * Dekoduje identyfikator zamówienia (tworzy obiekt String – tylko gdy jest potrzebny).
+     *
+     * @param order Numer zamówienia.
+     * @return Identyfikator zamówienia.
+     */
+    public String id(int order) {
+        int start = idOffsets.get(order);
+        byte[] bytes = new byte[idOffsets.get(order + 1) - start];
+        idBytes.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Odtwarza zamówienie jako obiekt Order (np. dla trybów wymagających listy zamówień).
+     *
+     * @param order Numer zamówienia.
+     * @return Zamówienie; promotions jest null, jeśli zamówienie nie ma promocji.
+     */
+    public Order order(int order) {
+        Order result = new Order();
+        result.id = id(order);
+        result.value = BigDecimal.valueOf(values.get(order), 2);
+        int start = promotionStarts.get(order);
+        int end = promotionStarts.get(order + 1);
+        if (end > start) {
+            result.promotions = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                result.promotions.add(promotionIds.get(promotions.get(i)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Nagłówek pliku migawki.
+     */
+    private static final class Header {
+
+        private final int count;
+        private final int maxPromotions;
+        private final int dictionarySize;
+        private final long[] offsets = new long[SECTIONS];
+        private final long[] lengths = new long[SECTIONS];
+
+        private Header(ByteBuffer buffer) {
+            this.count = buffer.getInt(12);
+            this.maxPromotions = buffer.getInt(20);
+            this.dictionarySize = buffer.getInt(24);
+            for (int s = 0; s < SECTIONS; s++) {
+                offsets[s] = buffer.getLong(32 + s * 16);
+                lengths[s] = buffer.getLong(40 + s * 16);
+            }
+        }
+
+        static Header read(FileChannel channel, Path file, int kind) throws IOException {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getLong(0) != MAGIC) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            if (buffer.getInt(8) != kind) {
+                throw new IOException("Wrong snapshot kind in " + file + ": expected " + (kind == ORDERS ? "orders" : "payment methods"));
+            }
+            Header header = new Header(buffer);
+            for (int s = 0; s < SECTIONS; s++) {
+                if (header.offsets[s] < HEADER_SIZE || header.offsets[s] + header.lengths[s] > channel.size()) {
+                    throw new IOException("Truncated snapshot file: " + file);
+                }
+            }
+            return header;
+        }
+
+        ByteBuffer map(FileChannel channel, int section) throws IOException {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offsets[section], lengths[section]).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        List<String> dictionary(FileChannel channel) throws IOException {
+            IntBuffer dictionaryOffsets = map(channel, DICTIONARY_OFFSETS).asIntBuffer();
+            ByteBuffer bytes = map(channel, DICTIONARY_BYTES);
+            String[] ids = new String[dictionarySize];
+            for (int i = 0; i < dictionarySize; i++) {
+                byte[] id = new byte[dictionaryOffsets.get(i + 1) - dictionaryOffsets.get(i)];
+                bytes.get(dictionaryOffsets.get(i), id);
+                ids[i] = new String(id, StandardCharsets.UTF_8);
+            }
+            return Arrays.asList(ids);
+        }
+    }
+
+    /**
+     * Składa nagłówek i kolumny, a następnie zapisuje je do pliku.
+     */
+    private static final class Writer {
+
+        private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final ByteBuffer[] sections = new ByteBuffer[SECTIONS];
+
+        Writer(int kind, int count, int promotionCount, int maxPromotions, int dictionarySize) {
+            header.putLong(0, MAGIC).putInt(8, kind).putInt(12, count).putInt(16, promotionCount)
+                    .putInt(20, maxPromotions).putInt(24, dictionarySize);
+        }
+
+        void section(int section, ByteBuffer content) {
+            sections[section] = content;
+        }
+
+        void writeTo(Path file) throws IOException {
+            long offset = HEADER_SIZE;
+            for (int s = 0; s < SECTIONS; s++) {
+                if (sections[s] == null) {
+                    sections[s] = ByteBuffer.allocate(0);
+                }
+                offset = (offset + 7) & ~7L;                                            // Kolumny wyrównane do 8 bajtów.
+                header.putLong(32 + s * 16, offset).putLong(40 + s * 16, sections[s].remaining());
+                offset += sections[s].remaining();
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, header, 0);
+                for (int s = 0; s < SECTIONS; s++) {
+                    writeFully(channel, sections[s], header.getLong(32 + s * 16));
+                }
+            }
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+    }
+
+    /**
+     * Słownik identyfikatorów: każdy identyfikator dostaje kolejny numer przy pierwszym wystąpieniu.
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> numbers = new HashMap<>();
+        private final List<String> ids = new ArrayList<>();
+
+        int intern(String id) {
+            Integer number = numbers.get(id);
+            if (number == null) {
+                number = ids.size();
+                numbers.put(id, number);
+                ids.add(id);
+            }
+            return number;
+        }
+
+        void writeTo(Writer writer) {
+            IntColumn offsets = new IntColumn();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            offsets.add(0);
+            for (String id : ids) {
+                byte[] encoded = id.getBytes(StandardCharsets.UTF_8);
+                bytes.write(encoded, 0, encoded.length);
+                offsets.add(bytes.size());
+            }
+            writer.section(DICTIONARY_OFFSETS, offsets.toBuffer());
+            writer.section(DICTIONARY_BYTES, ByteBuffer.wrap(bytes.toByteArray()));
+        }
+    }
+
+    /**
+     * Rosnąca kolumna liczb int.
+     */
+    private static final class IntColumn {
+
+        private int[] data = new int[1024];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, Math.addExact(size, size >> 1));
+            }
+            data[size++] = value;
+        }
+
+        int last() {
+            return data[size - 1];
+        }
+
+        ByteBuffer toBuffer() {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.multiplyExact(size, Integer.BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asIntBuffer().put(data, 0, size);
+            return buffer;
+        }
+    }
+
+    /**
+     * Rosnąca kolumna liczb long.
+     */
+    private static final class LongColumn {
+
+        private long[] data = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, Math.addExact(size, size >> 1));
+            }
+            data[size++] = value;
+        }
+
+        ByteBuffer toBuffer() {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.multiplyExact(size, Long.BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asLongBuffer().put(data, 0, size);
+            return buffer;
+        }
+    }
+}
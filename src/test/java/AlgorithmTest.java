@@ -1,11 +1,18 @@
 import org.example.Algorithm;
+import org.example.Main;
 import org.example.Order;
+import org.example.OrderResult;
 import org.example.PaymentMethod;
+import org.example.ResultWriter;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Klasa testowa sprawdzająca działanie algorytmu alokacji płatności.
@@ -97,6 +104,269 @@ public class AlgorithmTest {
         assertEquals(new BigDecimal("190.00").compareTo(allocations.get("BosBankrut")), 0, "Błędna alokacja dla BosBankrut");
     }
 
+    /**
+     * Ten sam scenariusz co testSampleScenario, liczony arytmetyką stałoprzecinkową.
+     */
+    @Test
+    public void testSampleScenarioFixedPoint() {
+        Algorithm optimizer = new Algorithm(TestData.sampleMethods(), Algorithm.Arithmetic.FIXED_POINT);
+        optimizer.optimize(TestData.sampleOrders());
+
+        Map<String, BigDecimal> allocations = optimizer.getMethodSpendings();
+        assertEquals(0, new BigDecimal("100.00").compareTo(allocations.get("PUNKTY")), "Błędna alokacja dla PUNKTY");
+        assertEquals(0, new BigDecimal("165.00").compareTo(allocations.get("mZysk")), "Błędna alokacja dla mZysk");
+        assertEquals(0, new BigDecimal("190.00").compareTo(allocations.get("BosBankrut")), "Błędna alokacja dla BosBankrut");
+    }
+
+    /**
+     * Losowe scenariusze: arytmetyka stałoprzecinkowa musi dawać dokładnie te same wydatki
+     * i pozostałe limity co arytmetyka BigDecimal.
+     */
+    @Test
+    public void testFixedPointMatchesBigDecimalOnRandomScenarios() {
+        Random random = new Random(42);
+        for (int scenario = 0; scenario < 500; scenario++) {
+            List<PaymentMethod> methods = randomMethods(random);
+            List<Order> orders = randomOrders(random, methods);
+
+            List<PaymentMethod> bigDecimalMethods = TestData.copy(methods);
+            Algorithm bigDecimal = new Algorithm(bigDecimalMethods);
+            bigDecimal.optimize(orders);
+
+            List<PaymentMethod> fixedPointMethods = TestData.copy(methods);
+            Algorithm fixedPoint = new Algorithm(fixedPointMethods, Algorithm.Arithmetic.FIXED_POINT);
+            fixedPoint.optimize(orders);
+
+            Map<String, BigDecimal> expected = bigDecimal.getMethodSpendings();
+            Map<String, BigDecimal> actual = fixedPoint.getMethodSpendings();
+            assertEquals(expected.keySet(), actual.keySet());
+            for (String id : expected.keySet()) {
+                assertEquals(0, expected.get(id).compareTo(actual.get(id)),
+                        "Scenariusz " + scenario + ", metoda " + id + ": " + expected.get(id) + " != " + actual.get(id));
+            }
+            for (int i = 0; i < methods.size(); i++) {
+                assertEquals(0, bigDecimalMethods.get(i).limit.compareTo(fixedPointMethods.get(i).limit),
+                        "Scenariusz " + scenario + ", limit metody " + methods.get(i).id);
+            }
+        }
+    }
+
+    /**
+     * Wybór karty w kroku 4 (drzewo limitów, LimitTree) musi dawać pierwszą w kolejności z listy kartę z limitem
+     * co najmniej równym kwocie – tak jak liniowe przeglądanie listy. Limity często są równe, część kart zaczyna
+     * z limitem 0, a zamówienia o wartości równej pozostałemu limitowi karty zerują ją w trakcie.
+     */
+    @Test
+    public void testFirstCardMatchesLinearScan() {
+        Random random = new Random(4);
+        for (int scenario = 0; scenario < 300; scenario++) {
+            int cards = 1 + random.nextInt(40);
+            String[] tiedLimits = {"0.00", "50.00", "100.00", "100.00", "250.00"};
+            List<PaymentMethod> methods = new ArrayList<>();
+            BigDecimal[] remaining = new BigDecimal[cards];
+            for (int i = 0; i < cards; i++) {
+                String limit = random.nextBoolean() ? tiedLimits[random.nextInt(tiedLimits.length)] : TestData.amount(random, 0, 300);
+                methods.add(TestData.method("CARD" + i, "0", limit));
+                remaining[i] = new BigDecimal(limit);
+            }
+
+            List<Order> orders = new ArrayList<>();
+            List<String> expected = new ArrayList<>();
+            for (int o = 0; o < 60; o++) {
+                BigDecimal value = random.nextInt(3) == 0
+                        ? remaining[random.nextInt(cards)]                                      // Dokładnie pozostały limit – karta spada do zera.
+                        : new BigDecimal(TestData.amount(random, 0, 150));
+                orders.add(TestData.order("ORDER" + o, value.toPlainString()));
+                int first = -1;
+                for (int i = 0; i < cards && first < 0; i++) {                                  // Referencja: liniowe przeglądanie listy kart.
+                    if (remaining[i].compareTo(value) >= 0) {
+                        first = i;
+                    }
+                }
+                if (first >= 0) {
+                    remaining[first] = remaining[first].subtract(value);
+                }
+                expected.add(first >= 0 ? "CARD" + first : "UNPAID");
+            }
+
+            for (Algorithm.Arithmetic arithmetic : Algorithm.Arithmetic.values()) {
+                List<String> actual = new ArrayList<>();
+                Algorithm optimizer = new Algorithm(TestData.copy(methods), arithmetic);
+                optimizer.setResultListener(result -> actual.add(result.allocations.isEmpty() ? "UNPAID" : result.allocations.get(0).methodId));
+                TestData.capture(optimizer, () -> optimizer.optimize(orders));
+                assertEquals(expected, actual, "Scenariusz " + scenario + ", " + arithmetic);
+            }
+        }
+    }
+
+    /**
+     * Tryb równoległy musi dawać te same wydatki, limity, łączny rabat i komunikaty o nieopłaconych zamówieniach
+     * co tryb sekwencyjny – zarówno gdy zamówienia dzielą się na wiele niezależnych grup, jak i gdy tworzą jedną.
+     */
+    @Test
+    public void testParallelMatchesSequential() {
+        Random random = new Random(5);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int scenario = 0; scenario < 200; scenario++) {
+                List<PaymentMethod> methods = new ArrayList<>();
+                List<Order> orders = new ArrayList<>();
+                if (scenario % 2 == 0) {                                                // Wiele grup: osobne karty każdej grupy, brak punktów i kart "dla wszystkich".
+                    int groups = 1 + random.nextInt(6);
+                    int limitScale = scenario % 4 == 0 ? 400 : 4000;                    // Ciasne limity sklejają grupy, szerokie pozwalają je rozdzielić.
+                    for (int g = 0; g < groups; g++) {
+                        for (int c = 0; c < 3; c++) {
+                            methods.add(TestData.method("G" + g + "C" + c, String.valueOf(random.nextInt(15)), TestData.amount(random, 0, limitScale * (g + 1))));
+                        }
+                    }
+                    Collections.shuffle(methods, random);
+                    for (int i = 0; i < 40; i++) {
+                        int g = random.nextInt(groups);
+                        Order order = TestData.order("ORDER" + i, TestData.amount(random, 0, 100 * (g + 1)), "G" + g + "C" + random.nextInt(3), "G" + g + "C" + random.nextInt(3));
+                        orders.add(order);
+                    }
+                } else {
+                    methods = randomMethods(random);
+                    orders = randomOrders(random, methods);
+                }
+
+                for (Algorithm.Arithmetic arithmetic : Algorithm.Arithmetic.values()) {
+                    List<PaymentMethod> sequentialMethods = TestData.copy(methods);
+                    Algorithm sequential = new Algorithm(sequentialMethods, arithmetic);
+                    List<PaymentMethod> parallelMethods = TestData.copy(methods);
+                    Algorithm parallel = new Algorithm(parallelMethods, arithmetic);
+                    List<Order> scenarioOrders = orders;
+
+                    String sequentialOutput = TestData.capture(sequential, () -> sequential.optimize(scenarioOrders));
+                    String parallelOutput = TestData.capture(parallel, () -> parallel.optimizeParallel(scenarioOrders, pool));
+
+                    assertEquals(sequentialOutput, parallelOutput, "Scenariusz " + scenario);
+                    assertEquals(0, sequential.getTotalDiscount().compareTo(parallel.getTotalDiscount()), "Scenariusz " + scenario);
+                    for (int i = 0; i < methods.size(); i++) {
+                        String id = methods.get(i).id;
+                        assertEquals(0, sequential.getMethodSpendings().get(id).compareTo(parallel.getMethodSpendings().get(id)), "Scenariusz " + scenario + ", metoda " + id);
+                        assertEquals(0, sequentialMethods.get(i).limit.compareTo(parallelMethods.get(i).limit), "Scenariusz " + scenario + ", limit metody " + id);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Wyniki poszczególnych zamówień: zastosowany krok, rozbicie na metody i rabat – w obu arytmetykach.
+     */
+    @Test
+    public void testOrderResults() {
+        for (Algorithm.Arithmetic arithmetic : Algorithm.Arithmetic.values()) {
+            List<Order> orders = new ArrayList<>(TestData.sampleOrders());
+            orders.add(TestData.order("ORDER5", "150.00"));                                      // Punkty wyczerpane, karta bez rabatu.
+            orders.add(TestData.order("ORDER6", "500.00"));                                      // Żadna metoda nie ma wystarczającego limitu.
+            List<PaymentMethod> methods = TestData.sampleMethods();
+            methods.get(2).limit = new BigDecimal("400.00");
+
+            Algorithm optimizer = new Algorithm(methods, arithmetic);
+            List<OrderResult> results = new ArrayList<>();
+            optimizer.setResultListener(results::add);
+            TestData.capture(optimizer, () -> optimizer.optimize(orders));
+
+            assertEquals(6, results.size());
+            assertResult(results.get(0), "ORDER1", OrderResult.Rule.FULL_POINTS, "15.00", "PUNKTY", "85.00");
+            assertResult(results.get(1), "ORDER2", OrderResult.Rule.PROMOTION_CARD, "10.00", "BosBankrut", "190.00");
+            assertResult(results.get(2), "ORDER3", OrderResult.Rule.PROMOTION_CARD, "15.00", "mZysk", "135.00");
+            assertResult(results.get(3), "ORDER4", OrderResult.Rule.PARTIAL_POINTS, "5.00", "PUNKTY", "15.00", "mZysk", "30.00");
+            assertResult(results.get(4), "ORDER5", OrderResult.Rule.CARD, "0", "BosBankrut", "150.00");
+            assertResult(results.get(5), "ORDER6", OrderResult.Rule.UNPAID, "0");
+        }
+    }
+
+    /**
+     * Plik wyników musi być identyczny niezależnie od arytmetyki i od tego, czy alokacja była równoległa.
+     */
+    @Test
+    public void testResultOutputMatchesAcrossModes() throws IOException {
+        Random random = new Random(9);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            String sample = writeResults(TestData.sampleOrders(), new Algorithm(TestData.sampleMethods(), Algorithm.Arithmetic.FIXED_POINT), false, pool);
+            assertEquals("{\"orderId\":\"ORDER4\",\"rule\":\"PARTIAL_POINTS\",\"allocations\":[{\"methodId\":\"PUNKTY\",\"amount\":15.00},"
+                    + "{\"methodId\":\"mZysk\",\"amount\":30.00}],\"discount\":5.00}", sample.split("\n")[3]);
+
+            for (int scenario = 0; scenario < 200; scenario++) {
+                List<PaymentMethod> methods = randomMethods(random);
+                List<Order> orders = randomOrders(random, methods);
+
+                String expected = writeResults(orders, new Algorithm(TestData.copy(methods)), false, pool);
+                assertEquals(orders.size(), expected.split("\n").length, "Scenariusz " + scenario);
+                assertEquals(expected, writeResults(orders, new Algorithm(TestData.copy(methods), Algorithm.Arithmetic.FIXED_POINT), false, pool), "Scenariusz " + scenario);
+                assertEquals(expected, writeResults(orders, new Algorithm(TestData.copy(methods)), true, pool), "Scenariusz " + scenario);
+                assertEquals(expected, writeResults(orders, new Algorithm(TestData.copy(methods), Algorithm.Arithmetic.FIXED_POINT), true, pool), "Scenariusz " + scenario);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static String writeResults(List<Order> orders, Algorithm optimizer, boolean parallel, ForkJoinPool pool) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ResultWriter writer = new ResultWriter(Main.createMapper(), buffer)) {
+            optimizer.setResultListener(writer);
+            TestData.silently(optimizer, () -> {
+                if (parallel) {
+                    optimizer.optimizeParallel(orders, pool);
+                } else {
+                    optimizer.optimize(orders);
+                }
+            });
+        }
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void assertResult(OrderResult result, String orderId, OrderResult.Rule rule, String discount, String... allocations) {
+        assertEquals(orderId, result.orderId);
+        assertEquals(rule, result.rule, orderId);
+        assertEquals(0, new BigDecimal(discount).compareTo(result.discount), orderId);
+        assertEquals(allocations.length / 2, result.allocations.size(), orderId);
+        for (int i = 0; i < result.allocations.size(); i++) {
+            assertEquals(allocations[2 * i], result.allocations.get(i).methodId, orderId);
+            assertEquals(0, new BigDecimal(allocations[2 * i + 1]).compareTo(result.allocations.get(i).amount), orderId);
+        }
+    }
+
+    private static List<PaymentMethod> randomMethods(Random random) {
+        List<PaymentMethod> methods = new ArrayList<>();
+        if (random.nextInt(5) > 0) {
+            methods.add(TestData.method("PUNKTY", randomPercent(random), TestData.amount(random, 0, 2000)));
+        }
+        int cards = 1 + random.nextInt(5);
+        for (int i = 0; i < cards; i++) {
+            methods.add(TestData.method("CARD" + i, randomPercent(random), TestData.amount(random, 0, 5000)));
+        }
+        Collections.shuffle(methods, random);
+        return methods;
+    }
+
+    private static List<Order> randomOrders(Random random, List<PaymentMethod> methods) {
+        List<Order> orders = new ArrayList<>();
+        int count = 1 + random.nextInt(30);
+        for (int i = 0; i < count; i++) {
+            List<String> promotions = new ArrayList<>();
+            int promotionCount = random.nextInt(4);
+            for (int j = 0; j < promotionCount; j++) {
+                promotions.add(random.nextInt(6) == 0 ? "UNKNOWN" : methods.get(random.nextInt(methods.size())).id);
+            }
+            Order order = TestData.order("ORDER" + i, TestData.amount(random, 0, 600));
+            order.promotions = random.nextBoolean() ? promotions : null;
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private static String randomPercent(Random random) {
+        return random.nextInt(4) == 0 ? random.nextInt(30) + "." + random.nextInt(10) : String.valueOf(random.nextInt(30));
+    }
+
     // Możesz dodać tutaj kolejne testy jednostkowe,
     // które sprawdzą np. scenariusze:
     // - pełnej płatności metodą punktową,
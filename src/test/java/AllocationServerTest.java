@@ -0,0 +1,112 @@
+import org.example.AllocationServer;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Klasa testowa sprawdzająca tryb serwerowy.
+ */
+public class AllocationServerTest {
+
+    private static final String ORDERS = "[{\"id\":\"ORDER1\",\"value\":\"100.00\",\"promotions\":[\"mZysk\"]},"
+            + "{\"id\":\"ORDER2\",\"value\":\"200.00\",\"promotions\":[\"BosBankrut\"]},"
+            + "{\"id\":\"ORDER3\",\"value\":\"150.00\",\"promotions\":[\"mZysk\",\"BosBankrut\"]},"
+            + "{\"id\":\"ORDER4\",\"value\":\"50.00\"}]";
+
+    /**
+     * Przykładowy scenariusz wysłany jednym żądaniem – wyniki w kolejności zamówień, wydatki jak w Algorithm.
+     */
+    @Test
+    public void testSampleScenarioOverHttp() throws Exception {
+        try (AllocationServer server = new AllocationServer(TestData.sampleMethods(), 0, 16, 64)) {
+            HttpResponse<String> response = post(server, ORDERS);
+
+            assertEquals(200, response.statusCode());
+            JsonNode results = new ObjectMapper().readTree(response.body());
+            assertEquals(4, results.size());
+            assertEquals("ORDER1", results.get(0).get("orderId").asText());
+            assertEquals("PUNKTY", results.get(0).get("allocations").get(0).get("methodId").asText());
+            assertEquals(0, new BigDecimal("85.00").compareTo(results.get(0).get("allocations").get(0).get("amount").decimalValue()));
+            assertEquals(2, results.get(3).get("allocations").size());
+
+            HttpResponse<String> metrics = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/metrics")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, metrics.statusCode());
+            assertTrue(metrics.body().contains("allocator_orders_total{rule=\"PROMOTION_CARD\"} 2\n"), metrics.body());
+            assertTrue(metrics.body().contains("allocator_phase_seconds_count{phase=\"batch\"}"), metrics.body());
+
+            Map<String, BigDecimal> spendings = server.getAllocator().getMethodSpendings();
+            assertEquals(0, new BigDecimal("100.00").compareTo(spendings.get("PUNKTY")));
+            assertEquals(0, new BigDecimal("165.00").compareTo(spendings.get("mZysk")));
+            assertEquals(0, new BigDecimal("190.00").compareTo(spendings.get("BosBankrut")));
+        }
+    }
+
+    /**
+     * Błędne żądania (także null i tablica z null) są odrzucane w całości i nie zmieniają limitów.
+     */
+    @Test
+    public void testRejectsInvalidRequests() throws Exception {
+        try (AllocationServer server = new AllocationServer(TestData.sampleMethods(), 0, 16, 64)) {
+            assertEquals(400, post(server, "{\"id\":").statusCode());
+            assertEquals(400, post(server, "null").statusCode());
+            assertEquals(400, post(server, "[{\"id\":\"A\",\"value\":\"10.00\"},null]").statusCode());
+            assertEquals(400, post(server, "[{\"id\":\"A\",\"value\":\"10.00\"},{\"id\":\"B\",\"value\":\"1.005\"}]").statusCode());
+            HttpResponse<String> get = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(uri(server)).GET().build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(405, get.statusCode());
+
+            assertEquals(0, new BigDecimal("100.00").compareTo(server.getAllocator().getRemainingLimit("PUNKTY")));
+        }
+    }
+
+    /**
+     * Przy zamknięciu serwera każde przyjęte żądanie dostaje odpowiedź: wynik (200) albo odmowę (503) –
+     * także przy kolejce mniejszej niż liczba żądań.
+     */
+    @Test
+    public void testCloseAnswersQueuedRequests() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        HttpClient client = HttpClient.newHttpClient();
+        try (AllocationServer server = new AllocationServer(TestData.sampleMethods(), 0, 1, 2)) {
+            for (int i = 0; i < 32; i++) {
+                responses.add(client.sendAsync(HttpRequest.newBuilder(uri(server))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"id\":\"ORDER" + i + "\",\"value\":\"1.00\"}")).build(),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+            responses.get(0).get(10, TimeUnit.SECONDS);
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            try {
+                int status = response.get(10, TimeUnit.SECONDS).statusCode();
+                assertTrue(status == 200 || status == 503, String.valueOf(status));
+            } catch (ExecutionException e) {
+                assertInstanceOf(IOException.class, e.getCause());                      // Żądanie wysłane już po zatrzymaniu serwera.
+            }
+        }
+    }
+
+    private static HttpResponse<String> post(AllocationServer server, String body) throws Exception {
+        return HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(uri(server)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static URI uri(AllocationServer server) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + "/allocate");
+    }
+}
@@ -0,0 +1,161 @@
+import org.example.Algorithm;
+import org.example.AllocatorMetrics;
+import org.example.ConcurrentAllocator;
+import org.example.LatencyHistogram;
+import org.example.Order;
+import org.example.PaymentMethod;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Klasa testowa sprawdzająca metryki alokatora.
+ */
+public class AllocatorMetricsTest {
+
+    /**
+     * Przykładowy scenariusz z dodatkowymi zamówieniami: liczniki kroków, rabaty i limity w obu arytmetykach
+     * oraz w ConcurrentAllocator.
+     */
+    @Test
+    public void testSampleScenarioCounters() {
+        for (Algorithm.Arithmetic arithmetic : Algorithm.Arithmetic.values()) {
+            List<PaymentMethod> methods = TestData.sampleMethods();
+            Algorithm optimizer = new Algorithm(methods, arithmetic);
+            AllocatorMetrics metrics = new AllocatorMetrics(methods);
+            optimizer.setMetrics(metrics);
+            TestData.silently(optimizer, () -> optimizer.optimize(sampleOrders()));
+            assertSampleCounters(metrics);
+        }
+
+        List<PaymentMethod> methods = TestData.sampleMethods();
+        ConcurrentAllocator allocator = new ConcurrentAllocator(methods);
+        AllocatorMetrics metrics = new AllocatorMetrics(methods);
+        allocator.setMetrics(metrics);
+        sampleOrders().forEach(allocator::allocate);
+        assertSampleCounters(metrics);
+    }
+
+    /**
+     * Tryb równoległy musi dawać te same liczniki co sekwencyjny, również dla zamówień odrzuconych przed podziałem.
+     */
+    @Test
+    public void testParallelCountersMatchSequential() {
+        Random random = new Random(3);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int scenario = 0; scenario < 100; scenario++) {
+                List<PaymentMethod> methods = new ArrayList<>();
+                for (int c = 0; c < 1 + random.nextInt(5); c++) {
+                    methods.add(TestData.method("CARD" + c, String.valueOf(random.nextInt(20)), BigDecimal.valueOf(random.nextInt(100_000), 2).toPlainString()));
+                }
+                if (random.nextBoolean()) {
+                    methods.add(TestData.method("PUNKTY", "15", BigDecimal.valueOf(random.nextInt(50_000), 2).toPlainString()));
+                }
+                List<Order> orders = new ArrayList<>();
+                for (int i = 0; i < 30; i++) {
+                    orders.add(TestData.order("ORDER" + i, BigDecimal.valueOf(1 + random.nextInt(40_000), 2).toPlainString(),
+                            "CARD" + random.nextInt(methods.size())));
+                }
+
+                AllocatorMetrics sequential = new AllocatorMetrics(methods);
+                Algorithm sequentialOptimizer = new Algorithm(TestData.copy(methods));
+                sequentialOptimizer.setMetrics(sequential);
+                TestData.silently(sequentialOptimizer, () -> sequentialOptimizer.optimize(orders));
+
+                AllocatorMetrics parallel = new AllocatorMetrics(methods);
+                Algorithm parallelOptimizer = new Algorithm(TestData.copy(methods));
+                parallelOptimizer.setMetrics(parallel);
+                TestData.silently(parallelOptimizer, () -> parallelOptimizer.optimizeParallel(orders, pool));
+
+                assertEquals(sequential.getOrdersByRule(), parallel.getOrdersByRule(), "Scenariusz " + scenario);
+                assertEquals(sequential.getDiscountByMethod(), parallel.getDiscountByMethod(), "Scenariusz " + scenario);
+                assertEquals(sequential.getRemainingLimits(), parallel.getRemainingLimits(), "Scenariusz " + scenario);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Percentyle histogramu mieszczą się w granicy błędu kubełków (ok. 3%).
+     */
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.valueAtPercentile(50));
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(50_000L * 100_001 * 1000, histogram.getSum());
+        assertWithin(50_000_000, histogram.valueAtPercentile(50));
+        assertWithin(99_000_000, histogram.valueAtPercentile(99));
+        assertWithin(100_000_000, histogram.valueAtPercentile(100));
+
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.valueAtPercentile(100));
+    }
+
+    /**
+     * Metryki są widoczne w JMX i w tekście Prometheusa.
+     */
+    @Test
+    public void testJmxAndPrometheusExposure() throws Exception {
+        List<PaymentMethod> methods = TestData.sampleMethods();
+        Algorithm optimizer = new Algorithm(methods);
+        AllocatorMetrics metrics = new AllocatorMetrics(methods);
+        optimizer.setMetrics(metrics);
+        TestData.silently(optimizer, () -> optimizer.optimize(sampleOrders()));
+        metrics.recordPhase(AllocatorMetrics.Phase.OPTIMIZE, 2_000_000);
+
+        ObjectName name = metrics.registerMBean("test");
+        try {
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Failures"));
+            assertTrue(((String) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "PrometheusText"))
+                    .contains("allocator_orders_total{rule=\"PARTIAL_POINTS\"} 1\n"));
+        } finally {
+            AllocatorMetrics.unregisterMBean(name);
+        }
+
+        String text = metrics.getPrometheusText();
+        assertTrue(text.contains("allocator_failures_total 1\n"), text);
+        assertTrue(text.contains("allocator_discount_total{method=\"PUNKTY\"} 20\n"), text);
+        assertTrue(text.contains("allocator_remaining_limit{method=\"mZysk\"} 15\n"), text);
+        assertTrue(text.contains("allocator_phase_seconds_count{phase=\"optimize\"} 1\n"), text);
+        assertTrue(text.contains("allocator_phase_seconds_sum{phase=\"optimize\"} 0.002000000\n"), text);
+    }
+
+    private static void assertSampleCounters(AllocatorMetrics metrics) {
+        Map<String, Long> rules = metrics.getOrdersByRule();
+        assertEquals(1, (long) rules.get("FULL_POINTS"));
+        assertEquals(2, (long) rules.get("PROMOTION_CARD"));
+        assertEquals(1, (long) rules.get("PARTIAL_POINTS"));
+        assertEquals(0, (long) rules.get("CARD"));
+        assertEquals(1, (long) rules.get("UNPAID"));
+        assertEquals(1, metrics.getFailures());
+        assertEquals(0, new BigDecimal("20.00").compareTo(metrics.getDiscountByMethod().get("PUNKTY")));
+        assertEquals(0, new BigDecimal("15.00").compareTo(metrics.getDiscountByMethod().get("mZysk")));
+        assertEquals(0, new BigDecimal("10.00").compareTo(metrics.getDiscountByMethod().get("BosBankrut")));
+        assertEquals(0, BigDecimal.ZERO.compareTo(metrics.getRemainingLimits().get("PUNKTY")));
+        assertEquals(0, new BigDecimal("15.00").compareTo(metrics.getRemainingLimits().get("mZysk")));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.035, "Expected ~" + expected + ", got " + actual);
+    }
+
+    private static List<Order> sampleOrders() {
+        return Arrays.asList(
+                TestData.order("ORDER1", "100.00", "mZysk"),
+                TestData.order("ORDER2", "200.00", "BosBankrut"),
+                TestData.order("ORDER3", "150.00", "mZysk", "BosBankrut"),
+                TestData.order("ORDER4", "50.00"),
+                TestData.order("ORDER5", "500.00"));
+    }
+}
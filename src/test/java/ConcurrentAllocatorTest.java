@@ -0,0 +1,161 @@
+import org.example.Algorithm;
+import org.example.ConcurrentAllocator;
+import org.example.Order;
+import org.example.PaymentAllocation;
+import org.example.PaymentMethod;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Klasa testowa sprawdzająca współbieżny alokator płatności.
+ */
+public class ConcurrentAllocatorTest {
+
+    /**
+     * Przykładowy scenariusz – alokacje poszczególnych zamówień i sumy wydatków.
+     */
+    @Test
+    public void testSampleScenarioAllocations() {
+        ConcurrentAllocator allocator = new ConcurrentAllocator(TestData.sampleMethods());
+
+        assertAllocations(allocator.allocate(TestData.order("ORDER1", "100.00", "mZysk")), "PUNKTY", "85.00");
+        assertAllocations(allocator.allocate(TestData.order("ORDER2", "200.00", "BosBankrut")), "BosBankrut", "190.00");
+        assertAllocations(allocator.allocate(TestData.order("ORDER3", "150.00", "mZysk", "BosBankrut")), "mZysk", "135.00");
+        assertAllocations(allocator.allocate(TestData.order("ORDER4", "50.00")), "PUNKTY", "15.00", "mZysk", "30.00");
+        assertTrue(allocator.allocate(TestData.order("ORDER5", "500.00")).isEmpty());
+
+        assertEquals(0, new BigDecimal("100.00").compareTo(allocator.getMethodSpendings().get("PUNKTY")));
+        assertEquals(0, new BigDecimal("165.00").compareTo(allocator.getMethodSpendings().get("mZysk")));
+        assertEquals(0, new BigDecimal("190.00").compareTo(allocator.getMethodSpendings().get("BosBankrut")));
+        assertEquals(0, new BigDecimal("15.00").compareTo(allocator.getRemainingLimit("mZysk")));
+    }
+
+    /**
+     * Wywoływany z jednego wątku alokator daje te same wydatki, limity i rabat co Algorithm.
+     */
+    @Test
+    public void testSingleThreadMatchesAlgorithm() {
+        Random random = new Random(3);
+        for (int scenario = 0; scenario < 300; scenario++) {
+            List<PaymentMethod> methods = randomMethods(random, 300);
+            List<Order> orders = randomOrders(random, 30);
+
+            ConcurrentAllocator allocator = new ConcurrentAllocator(methods);
+            List<PaymentMethod> sequentialMethods = TestData.copy(methods);
+            Algorithm sequential = new Algorithm(sequentialMethods);
+            sequential.optimize(orders);
+            for (Order order : orders) {
+                allocator.allocate(order);
+            }
+
+            assertEquals(0, sequential.getTotalDiscount().compareTo(allocator.getTotalDiscount()), "Scenariusz " + scenario);
+            for (PaymentMethod method : sequentialMethods) {
+                BigDecimal spent = sequential.getMethodSpendings().getOrDefault(method.id, BigDecimal.ZERO);
+                assertEquals(0, spent.compareTo(allocator.getMethodSpendings().get(method.id)), "Scenariusz " + scenario + ", metoda " + method.id);
+                assertEquals(0, method.limit.compareTo(allocator.getRemainingLimit(method.id)), "Scenariusz " + scenario + ", limit metody " + method.id);
+            }
+        }
+    }
+
+    /**
+     * Test obciążeniowy: wiele wątków alokuje naraz przy ciasnych limitach. Żaden limit nie może spaść poniżej zera
+     * (również w trakcie pracy), a wydatki muszą się zgadzać z kwotami zwróconymi w alokacjach i ze zmianą limitów.
+     */
+    @Test
+    public void testLimitsNeverOverspentUnderContention() throws InterruptedException {
+        Random random = new Random(11);
+        int threads = 8;
+        for (int scenario = 0; scenario < 20; scenario++) {
+            List<PaymentMethod> methods = randomMethods(random, 3000);
+            List<Order> orders = randomOrders(random, 4000);
+            ConcurrentAllocator allocator = new ConcurrentAllocator(methods);
+
+            Map<String, BigDecimal> allocated = new ConcurrentHashMap<>();
+            List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+            AtomicBoolean running = new AtomicBoolean(true);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                workers.add(new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int i = first; i < orders.size(); i += threads) {
+                            Order order = orders.get(i);
+                            BigDecimal paid = BigDecimal.ZERO;
+                            for (PaymentAllocation allocation : allocator.allocate(order)) {
+                                allocated.merge(allocation.methodId, allocation.amount, BigDecimal::add);
+                                paid = paid.add(allocation.amount);
+                            }
+                            assertTrue(paid.compareTo(order.value) <= 0, "Zamówienie " + order.id);
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }));
+            }
+            Thread observer = new Thread(() -> {                                        // Obserwator sprawdza limity w trakcie pracy wątków.
+                while (running.get()) {
+                    for (PaymentMethod method : methods) {
+                        if (allocator.getRemainingLimit(method.id).signum() < 0) {
+                            errors.add(new AssertionError("Ujemny limit metody " + method.id));
+                        }
+                    }
+                }
+            });
+            observer.start();
+            workers.forEach(Thread::start);
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            running.set(false);
+            observer.join();
+
+            assertTrue(errors.isEmpty(), "Scenariusz " + scenario + ": " + errors);
+            for (PaymentMethod method : methods) {
+                BigDecimal remaining = allocator.getRemainingLimit(method.id);
+                BigDecimal spent = allocator.getMethodSpendings().get(method.id);
+                assertTrue(remaining.signum() >= 0, "Scenariusz " + scenario + ", metoda " + method.id);
+                assertEquals(0, method.limit.subtract(remaining).compareTo(spent), "Scenariusz " + scenario + ", metoda " + method.id);
+                assertEquals(0, allocated.getOrDefault(method.id, BigDecimal.ZERO).compareTo(spent), "Scenariusz " + scenario + ", metoda " + method.id);
+            }
+        }
+    }
+
+    private static void assertAllocations(List<PaymentAllocation> allocations, String... expected) {
+        assertEquals(expected.length / 2, allocations.size());
+        for (int i = 0; i < allocations.size(); i++) {
+            assertEquals(expected[2 * i], allocations.get(i).methodId);
+            assertEquals(0, new BigDecimal(expected[2 * i + 1]).compareTo(allocations.get(i).amount));
+        }
+    }
+
+    private static List<PaymentMethod> randomMethods(Random random, int maxLimit) {
+        List<PaymentMethod> methods = new ArrayList<>();
+        methods.add(TestData.method("PUNKTY", String.valueOf(random.nextInt(20)), TestData.amount(random, maxLimit)));
+        for (int i = 0; i < 4; i++) {
+            methods.add(TestData.method("CARD" + i, String.valueOf(random.nextInt(15)), TestData.amount(random, 2 * maxLimit)));
+        }
+        Collections.shuffle(methods, random);
+        return methods;
+    }
+
+    private static List<Order> randomOrders(Random random, int count) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Order order = TestData.order("ORDER" + i, TestData.amount(random, 200));
+            if (random.nextInt(4) != 0) {
+                order.promotions = Arrays.asList("CARD" + random.nextInt(4), "CARD" + random.nextInt(4));
+            }
+            orders.add(order);
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,84 @@
+
+import org.example.Algorithm;
+import org.example.GlobalOptimizer;
+import org.example.Order;
+import org.example.PaymentMethod;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Klasa testowa sprawdzająca globalną optymalizację rabatu.
+ */
+public class GlobalOptimizerTest {
+
+    /**
+     * Algorytm zachłanny wydaje punkty na tańsze zamówienie (rabat 7.50 + 10.00 = 17.50),
+     * a lepiej opłacić punktami droższe zamówienie i tańsze częściowo (15.00 + 5.00 = 20.00).
+     */
+    @Test
+    public void testBeatsGreedyWhenPointsAreSpentOnCheapOrder() {
+        List<Order> orders = Arrays.asList(TestData.order("A", "50.00"), TestData.order("B", "100.00"));
+        List<PaymentMethod> methods = Arrays.asList(TestData.method("PUNKTY", "15", "100.00"), TestData.method("CARD", "0", "1000.00"));
+
+        GlobalOptimizer.Result result = new GlobalOptimizer(methods).optimize(orders, 1000);
+
+        assertTrue(result.isSearchComplete());
+        assertEquals(0, result.getUnpaidOrders());
+        assertEquals(0, new BigDecimal("17.50").compareTo(result.getGreedyDiscount()));
+        assertEquals(0, new BigDecimal("20.00").compareTo(result.getTotalDiscount()));
+        assertTrue(result.getMethodSpendings().get("PUNKTY").compareTo(new BigDecimal("100.00")) <= 0);
+        assertEquals(0, new BigDecimal("130.00").compareTo(result.getMethodSpendings().get("PUNKTY").add(result.getMethodSpendings().get("CARD"))));
+    }
+
+    /**
+     * Losowe scenariusze: wynik nigdy nie jest gorszy od zachłannego, nie przekracza limitów,
+     * a rabat zachłanny zgadza się z Algorithm.getTotalDiscount.
+     */
+    @Test
+    public void testNeverWorseThanGreedyAndWithinLimits() {
+        Random random = new Random(7);
+        for (int scenario = 0; scenario < 200; scenario++) {
+            List<PaymentMethod> methods = new ArrayList<>();
+            methods.add(TestData.method("PUNKTY", String.valueOf(random.nextInt(20)), TestData.amount(random, 300)));
+            for (int i = 0; i < 3; i++) {
+                methods.add(TestData.method("CARD" + i, String.valueOf(random.nextInt(15)), TestData.amount(random, 600)));
+            }
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                Order order = TestData.order("ORDER" + i, TestData.amount(random, 200));
+                order.promotions = Arrays.asList("CARD" + random.nextInt(3), "CARD" + random.nextInt(3));
+                orders.add(order);
+            }
+
+            GlobalOptimizer.Result result = new GlobalOptimizer(methods).optimize(orders, 1000);
+
+            Algorithm greedy = new Algorithm(TestData.copy(methods));
+            greedy.optimize(orders);
+            assertEquals(0, greedy.getTotalDiscount().compareTo(result.getGreedyDiscount()), "Scenariusz " + scenario);
+            assertTrue(result.getTotalDiscount().compareTo(result.getGreedyDiscount()) >= 0, "Scenariusz " + scenario);
+            for (PaymentMethod pm : methods) {
+                assertTrue(result.getMethodSpendings().get(pm.id).compareTo(pm.limit) <= 0, "Scenariusz " + scenario + ", metoda " + pm.id);
+            }
+        }
+    }
+
+    /**
+     * Przy zerowym limicie czasu zwracany jest co najmniej wynik zachłanny.
+     */
+    @Test
+    public void testZeroBudgetReturnsAtLeastGreedy() {
+        List<Order> orders = new ArrayList<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 5000; i++) {
+            orders.add(TestData.order("ORDER" + i, TestData.amount(random, 500), "CARD0"));
+        }
+        List<PaymentMethod> methods = Arrays.asList(TestData.method("PUNKTY", "15", "20000.00"), TestData.method("CARD0", "5", "100000.00"));
+
+        GlobalOptimizer.Result result = new GlobalOptimizer(methods).optimize(orders, 0);
+
+        assertTrue(result.getTotalDiscount().compareTo(result.getGreedyDiscount()) >= 0);
+    }
+}
@@ -0,0 +1,157 @@
+import org.example.Algorithm;
+import org.example.IncrementalAllocator;
+import org.example.Order;
+import org.example.PaymentMethod;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Klasa testowa sprawdzająca, że IncrementalAllocator po każdej zmianie daje ten sam wynik co przebieg od zera.
+ */
+public class IncrementalAllocatorTest {
+
+    /**
+     * Losowe zmiany limitów, wycofania i dopisania zamówień – po każdej zmianie wyniki, wydatki, limity i rabat
+     * muszą być identyczne z Algorithm uruchomionym od zera.
+     */
+    @Test
+    public void testRandomChangesMatchFullRerun() {
+        Random random = new Random(11);
+        for (int scenario = 0; scenario < 60; scenario++) {
+            checkRandomChanges(random, 1 + random.nextInt(5), 150 + random.nextInt(200), 20, "Scenariusz " + scenario);
+        }
+    }
+
+    /**
+     * Ponad 64 metody płatności (zbiór zmienionych metod zajmuje kilka słów bitsetu) – wynik jak przy przebiegu od zera.
+     */
+    @Test
+    public void testManyMethodsMatchFullRerun() {
+        Random random = new Random(17);
+        for (int scenario = 0; scenario < 3; scenario++) {
+            checkRandomChanges(random, 130 + random.nextInt(70), 1_000, 15, "Wiele metod, scenariusz " + scenario);
+        }
+    }
+
+    private static void checkRandomChanges(Random random, int cards, int orderCount, int steps, String scenario) {
+        List<PaymentMethod> methods = new ArrayList<>();
+        for (int c = 0; c < cards; c++) {
+            methods.add(TestData.method("CARD" + c, String.valueOf(random.nextInt(20)), randomLimit(random)));
+        }
+        if (random.nextBoolean()) {
+            methods.add(random.nextInt(methods.size() + 1), TestData.method("PUNKTY", "15", randomLimit(random)));
+        }
+        Map<String, BigDecimal> limits = new LinkedHashMap<>();
+        methods.forEach(pm -> limits.put(pm.id, pm.limit));
+
+        List<Order> orders = new ArrayList<>();
+        int nextId = 0;
+        for (int i = 0; i < orderCount; i++) {
+            orders.add(randomOrder(random, "ORDER" + nextId++, cards));
+        }
+        IncrementalAllocator allocator = new IncrementalAllocator(methods);
+        allocator.addOrders(orders);
+        assertSameAsFullRerun(methods, limits, orders, allocator, scenario);
+
+        for (int step = 0; step < steps; step++) {
+            String description = scenario + ", krok " + step;
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    String id = methods.get(random.nextInt(methods.size())).id;
+                    BigDecimal limit = new BigDecimal(randomLimit(random));
+                    limits.put(id, limit);
+                    allocator.setLimit(id, limit);
+                }
+                case 1 -> {
+                    Map<String, BigDecimal> changes = new HashMap<>();
+                    for (PaymentMethod pm : methods) {
+                        if (random.nextBoolean()) {
+                            BigDecimal limit = limits.get(pm.id).add(BigDecimal.valueOf(random.nextInt(2_000) - 1_000, 2)).max(BigDecimal.ZERO);
+                            changes.put(pm.id, limit);
+                        }
+                    }
+                    limits.putAll(changes);
+                    allocator.setLimits(changes);
+                }
+                case 2 -> {
+                    List<String> removed = new ArrayList<>();
+                    for (int i = 0; i < 1 + random.nextInt(5) && !orders.isEmpty(); i++) {
+                        removed.add(orders.remove(random.nextInt(orders.size())).id);
+                    }
+                    allocator.removeOrders(removed);
+                }
+                default -> {
+                    List<Order> added = new ArrayList<>();
+                    for (int i = 0; i < 1 + random.nextInt(100); i++) {
+                        added.add(randomOrder(random, "ORDER" + nextId++, cards));
+                    }
+                    orders.addAll(added);
+                    allocator.addOrders(added);
+                }
+            }
+            assertSameAsFullRerun(methods, limits, orders, allocator, description);
+        }
+    }
+
+    /**
+     * Przykładowy scenariusz: zwiększenie limitu punktów zmienia decyzje tylko zamówień czytających punkty,
+     * a błędne dane nie zmieniają stanu.
+     */
+    @Test
+    public void testSampleScenarioAndValidation() {
+        List<PaymentMethod> methods = TestData.sampleMethods();
+        IncrementalAllocator allocator = new IncrementalAllocator(methods);
+        allocator.addOrders(TestData.sampleOrders());
+        assertEquals(0, new BigDecimal("165.00").compareTo(allocator.getMethodSpendings().get("mZysk")));
+        assertEquals(0, new BigDecimal("190.00").compareTo(allocator.getMethodSpendings().get("BosBankrut")));
+        assertEquals(0, new BigDecimal("100.00").compareTo(allocator.getMethodSpendings().get("PUNKTY")));
+
+        allocator.setLimit("PUNKTY", new BigDecimal("500.00"));
+        assertEquals(0, new BigDecimal("425.00").compareTo(allocator.getMethodSpendings().get("PUNKTY")));
+        assertEquals(0, BigDecimal.ZERO.compareTo(allocator.getMethodSpendings().get("mZysk")));
+        assertEquals(0, new BigDecimal("75.00").compareTo(allocator.getRemainingLimits().get("PUNKTY")));
+        assertEquals(4, allocator.getReallocatedCount());
+
+        assertThrows(IllegalArgumentException.class, () -> allocator.addOrders(List.of(TestData.order("ORDER5", "1.00"), TestData.order("ORDER1", "1.00"))));
+        assertThrows(IllegalArgumentException.class, () -> allocator.removeOrders(List.of("ORDER2", "ORDER9")));
+        assertThrows(IllegalArgumentException.class, () -> allocator.setLimit("BLIK", BigDecimal.ONE));
+        List<String> ids = new ArrayList<>();
+        allocator.forEachResult(result -> ids.add(result.orderId));
+        assertEquals(List.of("ORDER1", "ORDER2", "ORDER3", "ORDER4"), ids);
+    }
+
+    private static void assertSameAsFullRerun(List<PaymentMethod> methods, Map<String, BigDecimal> limits, List<Order> orders,
+                                              IncrementalAllocator allocator, String description) {
+        List<PaymentMethod> current = new ArrayList<>();
+        for (PaymentMethod pm : methods) {
+            current.add(TestData.method(pm.id, pm.discount.toPlainString(), limits.get(pm.id).toPlainString()));
+        }
+        Algorithm optimizer = new Algorithm(current, Algorithm.Arithmetic.FIXED_POINT);
+        List<String> expected = new ArrayList<>();
+        optimizer.setResultListener(result -> expected.add(TestData.describe(result)));
+        TestData.silently(optimizer, () -> optimizer.optimize(orders));
+
+        List<String> actual = new ArrayList<>();
+        allocator.forEachResult(result -> actual.add(TestData.describe(result)));
+        assertEquals(expected, actual, description);
+        assertEquals(TestData.normalize(optimizer.getMethodSpendings()), TestData.normalize(allocator.getMethodSpendings()), description);
+        assertEquals(TestData.normalize(optimizer.getRemainingLimits()), TestData.normalize(allocator.getRemainingLimits()), description);
+        assertEquals(0, optimizer.getTotalDiscount().compareTo(allocator.getTotalDiscount()), description);
+    }
+
+    private static String randomLimit(Random random) {
+        return BigDecimal.valueOf(random.nextInt(300_000), 2).toPlainString();
+    }
+
+    private static Order randomOrder(Random random, String id, int cards) {
+        String value = BigDecimal.valueOf(1 + random.nextInt(40_000), 2).toPlainString();
+        return switch (random.nextInt(3)) {
+            case 0 -> TestData.order(id, value);
+            case 1 -> TestData.order(id, value, "CARD" + random.nextInt(cards));
+            default -> TestData.order(id, value, "CARD" + random.nextInt(cards), "PUNKTY", "CARD" + random.nextInt(cards));
+        };
+    }
+}
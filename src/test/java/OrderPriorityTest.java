@@ -0,0 +1,90 @@
+import org.example.Algorithm;
+import org.example.Order;
+import org.example.OrderPriority;
+import org.example.PaymentMethod;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Klasa testowa sprawdzająca strategie kolejności alokacji zamówień.
+ */
+public class OrderPriorityTest {
+
+    /**
+     * Każda strategia zwraca permutację zamówień, a alokacja w tej kolejności daje to samo co Algorithm.optimize
+     * na ręcznie przestawionej liście – w obu arytmetykach; odbiorca wyników dostaje je w kolejności z wejścia.
+     */
+    @Test
+    public void testOptimizeFollowsPriority() {
+        Random random = new Random(17);
+        for (int scenario = 0; scenario < 50; scenario++) {
+            List<PaymentMethod> methods = new ArrayList<>();
+            int cards = 1 + random.nextInt(5);
+            for (int c = 0; c < cards; c++) {
+                methods.add(TestData.method("CARD" + c, String.valueOf(random.nextInt(20)), BigDecimal.valueOf(random.nextInt(100_000), 2).toPlainString()));
+            }
+            if (random.nextBoolean()) {
+                methods.add(TestData.method("PUNKTY", "15", BigDecimal.valueOf(random.nextInt(50_000), 2).toPlainString()));
+            }
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                String[] promotions = new String[random.nextInt(4)];
+                for (int p = 0; p < promotions.length; p++) {
+                    promotions[p] = "CARD" + random.nextInt(cards + 1);
+                }
+                orders.add(TestData.order("ORDER" + i, BigDecimal.valueOf(1 + random.nextInt(40_000), 2).toPlainString(), promotions));
+            }
+
+            for (OrderPriority priority : OrderPriority.values()) {
+                String description = "Scenariusz " + scenario + ", " + priority;
+                int[] sequence = priority.sort(methods, orders);
+                assertEquals(orders.size(), sequence.length, description);
+                assertEquals(orders.size(), Arrays.stream(sequence).distinct().filter(p -> p >= 0 && p < orders.size()).count(), description);
+                List<Order> reordered = new ArrayList<>();
+                for (int position : sequence) {
+                    reordered.add(orders.get(position));
+                }
+
+                for (Algorithm.Arithmetic arithmetic : Algorithm.Arithmetic.values()) {
+                    Algorithm expected = new Algorithm(TestData.copy(methods), arithmetic);
+                    TestData.silently(expected, () -> expected.optimize(reordered));
+                    Algorithm actual = new Algorithm(TestData.copy(methods), arithmetic);
+                    List<String> ids = new ArrayList<>();
+                    actual.setResultListener(result -> ids.add(result.orderId));
+                    TestData.silently(actual, () -> actual.optimize(orders, priority));
+                    assertEquals(TestData.normalize(expected.getMethodSpendings()), TestData.normalize(actual.getMethodSpendings()), description);
+                    assertEquals(0, expected.getTotalDiscount().compareTo(actual.getTotalDiscount()), description);
+                    assertEquals(orders.stream().map(o -> o.id).toList(), ids, description);
+                }
+            }
+        }
+    }
+
+    /**
+     * Kolejność wyznaczona przez strategie na małym, ręcznie policzonym przykładzie; remisy zachowują kolejność z wejścia.
+     */
+    @Test
+    public void testSampleOrdering() {
+        List<PaymentMethod> methods = TestData.sampleMethods();
+        List<Order> orders = Arrays.asList(
+                TestData.order("ORDER1", "100.00", "mZysk"),
+                TestData.order("ORDER2", "200.00", "BosBankrut"),
+                TestData.order("ORDER3", "150.00", "mZysk", "BosBankrut"),
+                TestData.order("ORDER4", "50.00"),
+                TestData.order("ORDER5", "100.00"));
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, OrderPriority.INPUT.sort(methods, orders));
+        assertArrayEquals(new int[]{1, 2, 0, 4, 3}, OrderPriority.VALUE.sort(methods, orders));
+        assertArrayEquals(new int[]{2, 0, 1, 4, 3}, OrderPriority.DISCOUNT.sort(methods, orders));
+        // mZysk: limit 180 / popyt 250 = 0.72, BosBankrut: 200 / 350 = 0.571.
+        assertArrayEquals(new int[]{1, 0, 2, 3, 4}, OrderPriority.SCARCITY.sort(methods, orders));
+        // Z punktami alternatywą jest 10% za częściową płatność – żadna promocja nie daje więcej, więc strat nie ma.
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, OrderPriority.REGRET.sort(methods, orders));
+        // Bez punktów strata to wartość razy (najlepszy - drugi rabat): 0, 150 * 5%, 200 * 5%, 100 * 10%.
+        assertArrayEquals(new int[]{2, 3, 1, 0}, OrderPriority.REGRET.sort(methods.subList(1, 3), Arrays.asList(
+                orders.get(3), orders.get(2), orders.get(1), orders.get(0))));
+        assertArrayEquals(new int[0], OrderPriority.VALUE.sort(methods, List.of()));
+    }
+}
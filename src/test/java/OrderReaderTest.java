@@ -0,0 +1,94 @@
+
+import org.example.Algorithm;
+import org.example.Main;
+import org.example.Order;
+import org.example.OrderReader;
+import org.example.PaymentMethod;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Klasa testowa sprawdzająca strumieniowy odczyt zamówień.
+ */
+public class OrderReaderTest {
+
+    private static final String ORDERS = "[{\"id\":\"ORDER1\",\"value\":\"100.00\",\"promotions\":[\"mZysk\"]},"
+            + "{\"id\":\"ORDER2\",\"value\":\"200.00\",\"promotions\":[\"BosBankrut\"]},"
+            + "{\"id\":\"ORDER3\",\"value\":\"150.00\",\"promotions\":[\"mZysk\",\"BosBankrut\"]},"
+            + "{\"id\":\"ORDER4\",\"value\":\"50.00\"}]";
+
+    private static final String METHODS = "[{\"id\":\"PUNKTY\",\"discount\":\"15\",\"limit\":\"100.00\"},"
+            + "{\"id\":\"mZysk\",\"discount\":\"10\",\"limit\":\"180.00\"},"
+            + "{\"id\":\"BosBankrut\",\"discount\":\"5\",\"limit\":\"200.00\"}]";
+
+    /**
+     * Odczyt strumieniowy musi zwrócić te same zamówienia, w tej samej kolejności, co odczyt całej tablicy.
+     */
+    @Test
+    public void testStreamingMatchesArrayRead() throws IOException {
+        ObjectMapper mapper = Main.createMapper();
+        File ordersFile = write(ORDERS);
+
+        List<Order> expected = Main.readOrders(mapper, ordersFile);
+        List<Order> actual = new ArrayList<>();
+        try (OrderReader reader = new OrderReader(mapper, ordersFile)) {
+            reader.forEachRemaining(actual::add);
+        }
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).id, actual.get(i).id);
+            assertEquals(expected.get(i).value, actual.get(i).value);
+            assertEquals(expected.get(i).promotions, actual.get(i).promotions);
+        }
+    }
+
+    /**
+     * Plik z pojedynczym obiektem (bez tablicy) jest akceptowany tak jak przez ACCEPT_SINGLE_VALUE_AS_ARRAY.
+     */
+    @Test
+    public void testSingleObjectFile() throws IOException {
+        File ordersFile = write("{\"id\":\"ORDER1\",\"value\":\"10.00\"}");
+
+        List<Order> actual = new ArrayList<>();
+        try (OrderReader reader = new OrderReader(Main.createMapper(), ordersFile)) {
+            reader.forEachRemaining(actual::add);
+        }
+
+        assertEquals(1, actual.size());
+        assertEquals("ORDER1", actual.get(0).id);
+    }
+
+    /**
+     * Alokacja ze strumienia daje ten sam wynik co alokacja z listy.
+     */
+    @Test
+    public void testStreamingOptimizeMatchesListOptimize() throws IOException {
+        ObjectMapper mapper = Main.createMapper();
+        File ordersFile = write(ORDERS);
+        File methodsFile = write(METHODS);
+
+        Algorithm fromList = new Algorithm(Main.readPaymentMethods(mapper, methodsFile));
+        fromList.optimize(Main.readOrders(mapper, ordersFile));
+
+        Algorithm fromStream = new Algorithm(Main.readPaymentMethods(mapper, methodsFile));
+        try (OrderReader reader = new OrderReader(mapper, ordersFile)) {
+            fromStream.optimize(reader);
+        }
+
+        assertEquals(fromList.getMethodSpendings(), fromStream.getMethodSpendings());
+    }
+
+    private static File write(String json) throws IOException {
+        File file = File.createTempFile("orders", ".json");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), json);
+        return file;
+    }
+}
@@ -0,0 +1,164 @@
+import org.example.Algorithm;
+import org.example.Order;
+import org.example.ReportWriter;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Klasa testowa sprawdzająca buforowane wyjście wydatków i komunikatów o nieopłaconych zamówieniach.
+ */
+public class ReportWriterTest {
+
+    /**
+     * Wiersze są bajt po bajcie takie same jak z printf("%s %.2f%n") i println w domyślnym locale i kodowaniu – dla kwot
+     * o różnych skalach i wielkościach (także większych niż long), z remisami przy zaokrąglaniu, ujemnych i dla
+     * identyfikatorów spoza ASCII; także przy locale z przecinkiem dziesiętnym i z cyframi spoza ASCII.
+     */
+    @Test
+    public void testMatchesPrintf() throws IOException {
+        Random random = new Random(23);
+        List<BigDecimal> amounts = new ArrayList<>(List.of(new BigDecimal("0.005"), new BigDecimal("0.004999"),
+                new BigDecimal("2.675"), new BigDecimal("-0.001"), new BigDecimal("-1.005"), BigDecimal.ZERO,
+                new BigDecimal("1E+3"), new BigDecimal("99999999999999999.995"), new BigDecimal("123456789012345678901234.567")));
+        for (int i = 0; i < 20_000; i++) {
+            BigInteger unscaled = new BigInteger(1 + random.nextInt(90), random);
+            amounts.add(new BigDecimal(random.nextBoolean() ? unscaled : unscaled.negate(), random.nextInt(9) - 2));
+        }
+
+        Locale original = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            for (Locale locale : List.of(original, Locale.ROOT, Locale.forLanguageTag("pl-PL"), Locale.forLanguageTag("ar-EG"))) {
+                Locale.setDefault(Locale.Category.FORMAT, locale);
+                ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                StringBuilder expected = new StringBuilder();
+                try (ReportWriter report = new ReportWriter(actual)) {
+                    for (BigDecimal amount : amounts) {
+                        report.spending("mZysk", amount);
+                        expected.append(String.format("%s %.2f%n", "mZysk", amount));
+                    }
+                    report.failure("ORDER1");
+                    report.failure("Zamówienie-ą");
+                    report.spending("Płatność", new BigDecimal("12.345"));
+                }
+                expected.append("Failed to pay for order: ORDER1").append(System.lineSeparator());
+                expected.append("Failed to pay for order: Zamówienie-ą").append(System.lineSeparator());
+                expected.append(String.format("%s %.2f%n", "Płatność", new BigDecimal("12.345")));
+                assertArrayEquals(expected.toString().getBytes(Charset.defaultCharset()), actual.toByteArray(), locale.toLanguageTag());
+            }
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, original);
+        }
+    }
+
+    /**
+     * standardOutput koduje tak jak println i printf na System.out – w System.out.charset(), a nie w kodowaniu domyślnym.
+     */
+    @Test
+    public void testStandardOutputUsesItsCharset() throws IOException {
+        PrintStream original = System.out;
+        try {
+            for (String name : List.of("UTF-8", "ISO-8859-2", "windows-1250", "US-ASCII")) {
+                Charset charset = Charset.forName(name);
+                ByteArrayOutputStream expected = new ByteArrayOutputStream();
+                PrintStream printStream = new PrintStream(expected, true, charset);
+                printStream.println("Failed to pay for order: Zamówienie-ą");
+                printStream.printf("%s %.2f%n", "Płatność", new BigDecimal("12.345"));
+
+                ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                System.setOut(new PrintStream(actual, true, charset));
+                try (ReportWriter report = ReportWriter.standardOutput()) {
+                    report.failure("Zamówienie-ą");
+                    report.spendings(Map.of("Płatność", new BigDecimal("12.345")));
+                }
+                assertArrayEquals(expected.toByteArray(), actual.toByteArray(), name);
+            }
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    /**
+     * Wydatki są wypisywane posortowane po identyfikatorze, bez metod z kwotą zero – także przez Algorithm.printResults
+     * (na System.out i do ustawionego wyjścia), a komunikaty o nieopłaconych zamówieniach poprzedzają wydatki.
+     */
+    @Test
+    public void testSortedOutputFromAlgorithm() throws IOException {
+        List<Order> orders = Arrays.asList(
+                TestData.order("ORDER1", "100.00", "mZysk"),
+                TestData.order("ORDER2", "200.00", "BosBankrut"),
+                TestData.order("ORDER3", "150.00", "mZysk", "BosBankrut"),
+                TestData.order("ORDER4", "5000.00"),
+                TestData.order("ORDER5", "50.00"));
+        String expected = String.join(System.lineSeparator(), "Failed to pay for order: ORDER4",
+                "BosBankrut 190.00", "PUNKTY 100.00", "mZysk 165.00", "");
+
+        for (Algorithm.Arithmetic arithmetic : Algorithm.Arithmetic.values()) {
+            Algorithm toStandardOutput = new Algorithm(TestData.sampleMethods(), arithmetic);
+            PrintStream original = System.out;
+            ByteArrayOutputStream captured = new ByteArrayOutputStream();
+            System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+            try {
+                toStandardOutput.optimize(orders);
+                toStandardOutput.printResults();
+            } finally {
+                System.setOut(original);
+            }
+            assertEquals(expected, captured.toString(StandardCharsets.UTF_8), arithmetic.name());
+
+            Path file = TestData.tempFile("report", ".txt");
+            Algorithm toFile = new Algorithm(TestData.sampleMethods(), arithmetic);
+            try (ReportWriter report = new ReportWriter(file)) {
+                toFile.setReportWriter(report);
+                toFile.optimize(orders);
+                toFile.printResults();
+            }
+            assertEquals(expected, Files.readString(file), arithmetic.name());
+        }
+
+        Map<String, BigDecimal> spendings = new HashMap<>();
+        spendings.put("b", new BigDecimal("1.50"));
+        spendings.put("A", new BigDecimal("2"));
+        spendings.put("a", BigDecimal.ZERO);
+        spendings.put("C", new BigDecimal("0.001"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ReportWriter report = new ReportWriter(out)) {
+            report.spendings(spendings);
+        }
+        assertEquals(String.join(System.lineSeparator(), "A 2.00", "C 0.00", "b 1.50", ""), out.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Zapis większy niż bufor daje to samo w pliku i w kanale; flush opróżnia bufor bez zamykania.
+     */
+    @Test
+    public void testFileAndChannel() throws IOException {
+        StringBuilder expected = new StringBuilder();
+        ByteArrayOutputStream channelTarget = new ByteArrayOutputStream();
+        Path file = TestData.tempFile("report", ".txt");
+        try (ReportWriter toFile = new ReportWriter(file); ReportWriter toChannel = new ReportWriter(Channels.newChannel(channelTarget))) {
+            for (int i = 0; i < 20_000; i++) {
+                toFile.failure("ORDER" + i);
+                toChannel.failure("ORDER" + i);
+                expected.append("Failed to pay for order: ORDER").append(i).append(System.lineSeparator());
+                if (i == 10) {
+                    toChannel.flush();
+                    assertEquals(expected.toString(), channelTarget.toString(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        assertEquals(expected.toString(), Files.readString(file));
+        assertEquals(expected.toString(), channelTarget.toString(StandardCharsets.UTF_8));
+    }
+}
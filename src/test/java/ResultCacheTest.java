@@ -0,0 +1,217 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.Algorithm;
+import org.example.Main;
+import org.example.Order;
+import org.example.OrderResult;
+import org.example.PaymentAllocation;
+import org.example.PaymentMethod;
+import org.example.ResultCache;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Klasa testowa sprawdzająca pamięć podręczną wyników alokacji.
+ */
+public class ResultCacheTest {
+
+    private static final ObjectMapper MAPPER = Main.createMapper();
+
+    /**
+     * Trafienie (z pamięci i z dysku, w nowej instancji) daje to samo co obliczenie: wydatki, rabat, wyniki zamówień,
+     * a na wyjściu – te same komunikaty o nieopłaconych zamówieniach i ten sam wydruk printResults.
+     */
+    @Test
+    public void testHitMatchesFreshRun() throws IOException {
+        Path directory = Files.createTempDirectory("cache");
+        for (Algorithm.Arithmetic arithmetic : Algorithm.Arithmetic.values()) {
+            List<PaymentMethod> methods = TestData.sampleMethods();
+            List<Order> orders = sampleOrders();
+            String key = ResultCache.key(methods, orders, arithmetic.name());
+
+            List<OrderResult> collected = new ArrayList<>();
+            Algorithm optimizer = new Algorithm(methods, arithmetic);
+            optimizer.setResultListener(collected::add);
+            String fresh = TestData.capture(optimizer, () -> {
+                optimizer.optimize(orders);
+                optimizer.printResults();
+            });
+            assertTrue(fresh.contains("Failed to pay for order: ORDER4"), arithmetic.name());
+
+            ResultCache cache = new ResultCache(MAPPER, directory);
+            assertNull(cache.get(key));
+            cache.put(key, ResultCache.Entry.of(optimizer, methods, collected));
+            ResultCache.Entry fromMemory = cache.get(key);
+            ResultCache.Entry fromDisk = new ResultCache(MAPPER, directory).get(key);
+            for (ResultCache.Entry entry : List.of(fromMemory, fromDisk)) {
+                assertEquals(TestData.normalize(optimizer.getMethodSpendings()), TestData.normalize(entry.getMethodSpendings()), arithmetic.name());
+                assertEquals(0, optimizer.getTotalDiscount().compareTo(entry.totalDiscount), arithmetic.name());
+                assertEquals(describe(collected), describe(entry.getResults()), arithmetic.name());
+                List<OrderResult> replayed = new ArrayList<>();
+                assertEquals(fresh, TestData.capture(report -> {
+                    entry.replay(report, replayed::add);
+                    entry.printResults(report);
+                }), arithmetic.name());
+                assertEquals(describe(collected), describe(replayed), arithmetic.name());
+            }
+        }
+    }
+
+    /**
+     * Klucz nie zależy od zapisu kwot ani od tego, czy brak promocji to null, czy pusta lista – ale zależy od
+     * wartości, kolejności zamówień i wariantu obliczeń.
+     */
+    @Test
+    public void testKeyNormalization() {
+        List<PaymentMethod> methods = TestData.sampleMethods();
+        List<Order> orders = sampleOrders();
+        String key = ResultCache.key(methods, orders, "v");
+
+        List<PaymentMethod> rescaled = TestData.sampleMethods();
+        rescaled.get(0).limit = new BigDecimal("100.0000");
+        List<Order> rewritten = sampleOrders();
+        rewritten.get(0).value = new BigDecimal("100.0");
+        rewritten.get(3).promotions = List.of();
+        assertEquals(key, ResultCache.key(rescaled, rewritten, "v"));
+
+        assertNotEquals(key, ResultCache.key(methods, orders, "w"));
+        List<Order> changed = sampleOrders();
+        changed.get(0).value = new BigDecimal("100.01");
+        assertNotEquals(key, ResultCache.key(methods, changed, "v"));
+        List<Order> reordered = new ArrayList<>(orders);
+        Collections.swap(reordered, 0, 1);
+        assertNotEquals(key, ResultCache.key(methods, reordered, "v"));
+    }
+
+    /**
+     * Poziom w pamięci usuwa najdawniej używane wpisy ponad limit bajtów, a poziom dyskowy – najdawniej używane pliki
+     * ponad limit rozmiaru katalogu; wpisy starsze niż maxAge nie są zwracane.
+     */
+    @Test
+    public void testEviction() throws IOException, InterruptedException {
+        ResultCache.Entry entry = new ResultCache.Entry(Map.of("PUNKTY", BigDecimal.TEN), BigDecimal.ONE, results(10));
+
+        ResultCache memory = new ResultCache(MAPPER, 0, null, 0, Duration.ofDays(1));
+        memory.put("a", entry);
+        assertNull(memory.get("a"));                                                    // Limit 0 – nic nie zostaje w pamięci.
+
+        ResultCache probe = new ResultCache(MAPPER, Long.MAX_VALUE, null, 0, Duration.ofDays(1));
+        probe.put("a", entry);
+        long limit = probe.memoryBytes() * 2;                                           // Miejsce na dokładnie dwa wpisy.
+        ResultCache lru = new ResultCache(MAPPER, limit, null, 0, Duration.ofDays(1));
+        lru.put("a", entry);
+        lru.put("b", entry);
+        assertNotNull(lru.get("a"));                                                    // "b" jest teraz najdawniej używany.
+        lru.put("c", entry);
+        assertNotNull(lru.get("a"));
+        assertNull(lru.get("b"));
+        assertNotNull(lru.get("c"));
+        assertEquals(2, lru.memorySize());
+        assertTrue(lru.memoryBytes() <= limit);
+
+        Path directory = Files.createTempDirectory("cache");
+        ResultCache disk = new ResultCache(MAPPER, 0, directory, Long.MAX_VALUE, Duration.ofDays(1));
+        disk.put("a", entry);
+        long fileSize = Files.size(directory.resolve("a.jsonl"));
+        disk = new ResultCache(MAPPER, 0, directory, fileSize * 2, Duration.ofDays(1));
+        Files.setLastModifiedTime(directory.resolve("a.jsonl"), FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        disk.put("b", entry);
+        Files.setLastModifiedTime(directory.resolve("b.jsonl"), FileTime.fromMillis(System.currentTimeMillis() - 30_000));
+        assertNotNull(disk.get("a"));                                                   // Odczyt odświeża czas użycia pliku "a".
+        disk.put("c", entry);
+        assertNotNull(disk.get("a"));
+        assertNull(disk.get("b"));
+        assertNotNull(disk.get("c"));
+
+        ResultCache expiring = new ResultCache(MAPPER, Long.MAX_VALUE, directory, Long.MAX_VALUE, Duration.ofMillis(50));
+        expiring.put("d", entry);
+        assertNotNull(expiring.get("d"));
+        Thread.sleep(100);
+        assertNull(expiring.get("d"));
+        assertFalse(Files.exists(directory.resolve("d.jsonl")));
+    }
+
+    /**
+     * Uszkodzony plik wpisu (niepełny lub z błędnym nagłówkiem) jest traktowany jak brak wpisu i usuwany.
+     */
+    @Test
+    public void testCorruptEntryIsDeleted() throws IOException {
+        Path directory = Files.createTempDirectory("cache");
+        for (String content : List.of("{\"key\":\"a\"", "{\"key\":\"a\"}\n", "{\"key\":\"a\",\"created\":1,\"totalDiscount\":\"x\",\"spendings\":{},\"unpaid\":[]}\n")) {
+            Path file = directory.resolve("a.jsonl");
+            Files.writeString(file, content);
+            assertNull(new ResultCache(MAPPER, directory).get("a"), content);
+            assertFalse(Files.exists(file), content);
+        }
+    }
+
+    /**
+     * Pliki tymczasowe porzucone przez przerwany zapis są usuwane przy porządkowaniu katalogu, a świeże (zapis w toku) zostają.
+     */
+    @Test
+    public void testStaleTempFilesAreDeleted() throws IOException {
+        Path directory = Files.createTempDirectory("cache");
+        Path stale = Files.createTempFile(directory, "a", ".tmp");
+        Path fresh = Files.createTempFile(directory, "b", ".tmp");
+        Files.setLastModifiedTime(stale, FileTime.fromMillis(System.currentTimeMillis() - Duration.ofHours(1).toMillis()));
+        ResultCache.Entry entry = new ResultCache.Entry(Map.of("PUNKTY", BigDecimal.TEN), BigDecimal.ONE, results(1));
+        new ResultCache(MAPPER, 0, directory, Long.MAX_VALUE, Duration.ofDays(1)).put("c", entry);
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(fresh));
+        assertTrue(Files.exists(directory.resolve("c.jsonl")));
+    }
+
+    /**
+     * Klucz plików zależy od ich bajtów, a alias prowadzi od niego do klucza treści – także w nowej instancji.
+     */
+    @Test
+    public void testFileKeyAlias() throws IOException {
+        Path directory = Files.createTempDirectory("cache");
+        Path orders = Files.createTempFile(directory, "orders", ".json");
+        Files.writeString(orders, "[{\"id\":\"ORDER1\",\"value\":\"100.00\"}]");
+        String fileKey = ResultCache.fileKey(List.of(orders), "v");
+        assertNotEquals(fileKey, ResultCache.fileKey(List.of(orders), "w"));
+
+        ResultCache cache = new ResultCache(MAPPER, directory);
+        assertNull(cache.resolve(fileKey));
+        cache.alias(fileKey, "content");
+        assertEquals("content", new ResultCache(MAPPER, directory).resolve(fileKey));
+
+        Files.writeString(orders, "[{\"id\":\"ORDER1\",\"value\":\"100.0\"}]");
+        assertNull(new ResultCache(MAPPER, directory).resolve(ResultCache.fileKey(List.of(orders), "v")));
+    }
+
+    private static List<OrderResult> results(int count) {
+        List<OrderResult> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            results.add(new OrderResult("ORDER" + i, OrderResult.Rule.CARD,
+                    List.of(new PaymentAllocation("mZysk", new BigDecimal("10.00"))), new BigDecimal("0.00")));
+        }
+        return results;
+    }
+
+    private static List<String> describe(List<OrderResult> results) {
+        List<String> lines = new ArrayList<>();
+        results.forEach(result -> lines.add(TestData.describe(result)));
+        return lines;
+    }
+
+    /**
+     * Przykładowe zamówienia z danych repozytorium i jedno, na które nie wystarczy środków.
+     */
+    private static List<Order> sampleOrders() {
+        return new ArrayList<>(Arrays.asList(
+                TestData.order("ORDER1", "100.00", "mZysk"),
+                TestData.order("ORDER2", "200.00", "BosBankrut"),
+                TestData.order("ORDER3", "150.00", "mZysk", "BosBankrut"),
+                TestData.order("ORDER4", "5000.00"),
+                TestData.order("ORDER5", "50.00")));
+    }
+}
@@ -0,0 +1,140 @@
+import org.example.Algorithm;
+import org.example.Main;
+import org.example.Order;
+import org.example.PaymentMethod;
+import org.example.ScenarioSweep;
+import org.example.Snapshot;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Klasa testowa sprawdzająca przeliczanie wielu scenariuszy metod płatności na wspólnych zamówieniach.
+ */
+public class ScenarioSweepTest {
+
+    /**
+     * Każdy scenariusz (z listy zamówień i z migawki, liczony równolegle) daje te same wydatki, rabat i liczbę
+     * nieopłaconych zamówień co Algorithm uruchomiony na zmienionych metodach płatności.
+     */
+    @Test
+    public void testScenariosMatchSeparateRuns() throws IOException {
+        Random random = new Random(13);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 20; round++) {
+                List<PaymentMethod> methods = new ArrayList<>();
+                int cards = 1 + random.nextInt(5);
+                for (int c = 0; c < cards; c++) {
+                    methods.add(TestData.method("CARD" + c, String.valueOf(random.nextInt(20)), BigDecimal.valueOf(random.nextInt(100_000), 2).toPlainString()));
+                }
+                if (random.nextBoolean()) {
+                    methods.add(TestData.method("PUNKTY", "15", BigDecimal.valueOf(random.nextInt(50_000), 2).toPlainString()));
+                }
+                List<Order> orders = new ArrayList<>();
+                for (int i = 0; i < 80; i++) {
+                    String[] promotions = new String[random.nextInt(4)];
+                    for (int p = 0; p < promotions.length; p++) {
+                        promotions[p] = "CARD" + random.nextInt(cards + 1);
+                    }
+                    orders.add(TestData.order("ORDER" + i, BigDecimal.valueOf(1 + random.nextInt(40_000), 2).toPlainString(), promotions));
+                }
+
+                List<ScenarioSweep.Scenario> scenarios = new ArrayList<>();
+                for (int s = 0; s < 10; s++) {
+                    ScenarioSweep.Scenario scenario = new ScenarioSweep.Scenario();
+                    scenario.name = "S" + s;
+                    scenario.methods = new HashMap<>();
+                    for (PaymentMethod pm : methods) {
+                        if (random.nextInt(3) == 0) {
+                            ScenarioSweep.MethodChange change = new ScenarioSweep.MethodChange();
+                            change.discount = random.nextBoolean() ? BigDecimal.valueOf(random.nextInt(250), 1) : null;
+                            change.limit = random.nextBoolean() ? BigDecimal.valueOf(random.nextInt(200_000), 2) : null;
+                            scenario.methods.put(pm.id, change);
+                        }
+                    }
+                    scenarios.add(scenario);
+                }
+
+                Path ordersFile = TestData.tempFile("sweep", ".snap");
+                Snapshot.writeOrders(orders.iterator(), ordersFile);
+                List<ScenarioSweep.Result> fromList = new ScenarioSweep(methods, orders).run(scenarios, pool);
+                List<ScenarioSweep.Result> fromSnapshot = new ScenarioSweep(methods, Snapshot.open(ordersFile)).run(scenarios, pool);
+                for (int s = 0; s < scenarios.size(); s++) {
+                    String description = "Runda " + round + ", scenariusz " + s;
+                    Algorithm optimizer = new Algorithm(apply(methods, scenarios.get(s)), Algorithm.Arithmetic.FIXED_POINT);
+                    String failures = TestData.capture(optimizer, () -> optimizer.optimize(orders));
+                    for (ScenarioSweep.Result result : Arrays.asList(fromList.get(s), fromSnapshot.get(s))) {
+                        assertEquals("S" + s, result.scenario, description);
+                        assertEquals(optimizer.getMethodSpendings(), new HashMap<>(result.spendings), description);
+                        assertEquals(optimizer.getTotalDiscount(), result.totalDiscount, description);
+                        assertEquals(failures.lines().count(), result.unpaid, description);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plik scenariuszy w postaci listy i siatki, zapis wyników oraz błędy danych.
+     */
+    @Test
+    public void testScenarioFileAndOutput() throws IOException {
+        Path grid = TestData.tempFile("sweep", ".json");
+        Files.writeString(grid, "{\"grid\":{\"mZysk\":{\"discount\":[10,12]},\"PUNKTY\":{\"limit\":[\"100.00\",200,300]}}}");
+        List<ScenarioSweep.Scenario> scenarios = ScenarioSweep.readScenarios(Main.createMapper(), grid.toFile());
+        assertEquals(6, scenarios.size());
+        assertEquals("mZysk.discount=10 PUNKTY.limit=100.00", scenarios.get(0).name);
+        assertEquals("mZysk.discount=12 PUNKTY.limit=300", scenarios.get(5).name);
+
+        Path list = TestData.tempFile("sweep", ".json");
+        Files.writeString(list, "[{\"name\":\"base\"},{\"methods\":{\"mZysk\":{\"discount\":\"12\"}}}]");
+        List<ScenarioSweep.Scenario> listed = ScenarioSweep.readScenarios(Main.createMapper(), list.toFile());
+        assertEquals(List.of("base", "scenario2"), Arrays.asList(listed.get(0).name, listed.get(1).name));
+
+        List<PaymentMethod> methods = TestData.sampleMethods();
+        ScenarioSweep sweep = new ScenarioSweep(methods, TestData.sampleOrders());
+        List<ScenarioSweep.Result> results = sweep.run(listed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ScenarioSweep.write(Main.createMapper(), results, out);
+        assertEquals("{\"scenario\":\"base\",\"totalDiscount\":45.00,\"unpaid\":0,\"spendings\":{\"PUNKTY\":100.00,\"mZysk\":165.00,\"BosBankrut\":190.00}}\n"
+                + "{\"scenario\":\"scenario2\",\"totalDiscount\":48.00,\"unpaid\":0,\"spendings\":{\"PUNKTY\":100.00,\"mZysk\":162.00,\"BosBankrut\":190.00}}\n",
+                out.toString(StandardCharsets.UTF_8));
+
+        ScenarioSweep.Scenario unknown = new ScenarioSweep.Scenario();
+        unknown.name = "BLIK";
+        unknown.methods = Map.of("BLIK", new ScenarioSweep.MethodChange());
+        assertThrows(IllegalArgumentException.class, () -> sweep.run(List.of(listed.get(0), unknown)));
+        ScenarioSweep.Scenario inexact = new ScenarioSweep.Scenario();
+        inexact.methods = Map.of("mZysk", new ScenarioSweep.MethodChange());
+        inexact.methods.get("mZysk").limit = new BigDecimal("1.0001");
+        assertThrows(ArithmeticException.class, () -> sweep.run(List.of(listed.get(0), inexact)));
+        for (String content : List.of("{\"scenarios\":[]}", "{\"grid\":{\"mZysk\":{\"discount\":[]}}}",
+                "{\"grid\":{\"mZysk\":{\"discount\":[10],\"limit\":[]}}}", "{\"grid\":{\"mZysk\":{}}}")) {
+            Path invalid = TestData.tempFile("sweep", ".json");
+            Files.writeString(invalid, content);
+            assertThrows(IOException.class, () -> ScenarioSweep.readScenarios(Main.createMapper(), invalid.toFile()), content);
+        }
+    }
+
+    private static List<PaymentMethod> apply(List<PaymentMethod> methods, ScenarioSweep.Scenario scenario) {
+        List<PaymentMethod> result = new ArrayList<>();
+        for (PaymentMethod pm : methods) {
+            ScenarioSweep.MethodChange change = scenario.methods.get(pm.id);
+            BigDecimal discount = change != null && change.discount != null ? change.discount : pm.discount;
+            BigDecimal limit = change != null && change.limit != null ? change.limit : pm.limit;
+            result.add(TestData.method(pm.id, discount.toPlainString(), limit.toPlainString()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,124 @@
+import org.example.Algorithm;
+import org.example.Main;
+import org.example.Order;
+import org.example.PaymentMethod;
+import org.example.ResultWriter;
+import org.example.Snapshot;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Klasa testowa sprawdzająca binarne migawki zamówień i metod płatności.
+ */
+public class SnapshotTest {
+
+    /**
+     * Zamówienia i metody płatności odczytane z migawki są takie same jak zapisane.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<Order> orders = Arrays.asList(
+                TestData.order("ORDER1", "100.00", "mZysk"),
+                TestData.order("ZAMÓWIENIE-ż", "0.05"),
+                TestData.order("ORDER3", "150.10", "mZysk", "BosBankrut", "mZysk"),
+                TestData.order("ORDER4", "7", "NIEZNANA"));
+        Path ordersFile = TestData.tempFile("snapshot", ".snap");
+        assertEquals(4, Snapshot.writeOrders(orders.iterator(), ordersFile));
+
+        Snapshot snapshot = Snapshot.open(ordersFile);
+        assertEquals(4, snapshot.size());
+        assertEquals(3, snapshot.maxPromotions());
+        assertEquals(List.of("mZysk", "BosBankrut", "NIEZNANA"), snapshot.promotionIds());
+        assertEquals(15010, snapshot.valueInGrosze(2));
+        for (int i = 0; i < orders.size(); i++) {
+            Order actual = snapshot.order(i);
+            assertEquals(orders.get(i).id, actual.id);
+            assertEquals(0, orders.get(i).value.compareTo(actual.value), actual.id);
+            assertEquals(orders.get(i).promotions, actual.promotions, actual.id);
+        }
+        int[] promotions = new int[snapshot.maxPromotions()];
+        assertEquals(3, snapshot.promotions(2, new int[]{10, 20, 30}, promotions));
+        assertArrayEquals(new int[]{10, 20, 10}, promotions);
+
+        List<PaymentMethod> methods = Arrays.asList(TestData.method("PUNKTY", "15", "100.00"), TestData.method("mZysk", "12.5", "180.125"));
+        Path methodsFile = TestData.tempFile("snapshot", ".snap");
+        Snapshot.writePaymentMethods(methods, methodsFile);
+        List<PaymentMethod> read = Snapshot.readPaymentMethods(methodsFile);
+        assertEquals(2, read.size());
+        for (int i = 0; i < methods.size(); i++) {
+            assertEquals(methods.get(i).id, read.get(i).id);
+            assertEquals(0, methods.get(i).discount.compareTo(read.get(i).discount));
+            assertEquals(0, methods.get(i).limit.compareTo(read.get(i).limit));
+        }
+
+        assertThrows(IOException.class, () -> Snapshot.open(methodsFile));
+        assertThrows(IOException.class, () -> Snapshot.readPaymentMethods(ordersFile));
+        Path json = TestData.tempFile("snapshot", ".snap");
+        Files.writeString(json, "[{\"id\":\"ORDER1\",\"value\":\"10.00\"}]");
+        assertThrows(IOException.class, () -> Snapshot.open(json));
+        assertThrows(IllegalStateException.class, () -> new Algorithm(methods).optimize(snapshot));
+    }
+
+    /**
+     * Alokacja z migawki daje te same wyniki zamówień, wydatki, komunikaty i rabat co alokacja z listy.
+     */
+    @Test
+    public void testOptimizeFromSnapshotMatchesList() throws IOException {
+        Random random = new Random(5);
+        for (int scenario = 0; scenario < 100; scenario++) {
+            List<PaymentMethod> methods = new ArrayList<>();
+            for (int c = 0; c < 1 + random.nextInt(5); c++) {
+                methods.add(TestData.method("CARD" + c, String.valueOf(random.nextInt(20)), BigDecimal.valueOf(random.nextInt(100_000), 2).toPlainString()));
+            }
+            if (random.nextBoolean()) {
+                methods.add(TestData.method("PUNKTY", "15", BigDecimal.valueOf(random.nextInt(50_000), 2).toPlainString()));
+            }
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                String[] promotions = new String[random.nextInt(4)];
+                for (int p = 0; p < promotions.length; p++) {
+                    promotions[p] = "CARD" + random.nextInt(methods.size() + 1);
+                }
+                orders.add(TestData.order("ORDER" + i, BigDecimal.valueOf(1 + random.nextInt(40_000), 2).toPlainString(), promotions));
+            }
+            Path ordersFile = TestData.tempFile("snapshot", ".snap");
+            Snapshot.writeOrders(orders.iterator(), ordersFile);
+            Snapshot snapshot = Snapshot.open(ordersFile);
+
+            Algorithm fromList = new Algorithm(TestData.copy(methods), Algorithm.Arithmetic.FIXED_POINT);
+            Algorithm fromSnapshot = new Algorithm(TestData.copy(methods), Algorithm.Arithmetic.FIXED_POINT);
+            String expected = run(fromList, () -> fromList.optimize(orders));
+            String actual = run(fromSnapshot, () -> fromSnapshot.optimize(snapshot));
+            assertEquals(expected, actual, "Scenariusz " + scenario);
+            assertEquals(fromList.getMethodSpendings(), fromSnapshot.getMethodSpendings(), "Scenariusz " + scenario);
+            assertEquals(fromList.getTotalDiscount(), fromSnapshot.getTotalDiscount(), "Scenariusz " + scenario);
+        }
+    }
+
+    /**
+     * Zwraca wiersze wyników oraz wszystko, co alokacja wypisała na standardowe wyjście.
+     */
+    private static String run(Algorithm optimizer, Runnable optimize) throws IOException {
+        ByteArrayOutputStream results = new ByteArrayOutputStream();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream original = System.out;
+        try (ResultWriter writer = new ResultWriter(Main.createMapper(), results)) {
+            optimizer.setResultListener(writer);
+            System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+            optimize.run();
+            optimizer.printResults();
+        } finally {
+            System.setOut(original);
+        }
+        return results.toString(StandardCharsets.UTF_8) + output.toString(StandardCharsets.UTF_8);
+    }
+}
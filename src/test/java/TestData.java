@@ -0,0 +1,162 @@
+import org.example.Algorithm;
+import org.example.Order;
+import org.example.OrderResult;
+import org.example.PaymentAllocation;
+import org.example.PaymentMethod;
+import org.example.ReportWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Wspólne dane i pomocnicze metody testów: fabryki zamówień i metod płatności, przykładowe metody płatności
+ * z danych repozytorium, przechwytywanie raportu (ReportWriter) i porównywalne postacie kwot oraz wyników.
+ */
+final class TestData {
+
+    private TestData() {
+    }
+
+    /**
+     * Przykładowe metody płatności z danych repozytorium (lista modyfikowalna).
+     */
+    static List<PaymentMethod> sampleMethods() {
+        return new ArrayList<>(Arrays.asList(
+                method("PUNKTY", "15", "100.00"),
+                method("mZysk", "10", "180.00"),
+                method("BosBankrut", "5", "200.00")));
+    }
+
+    /**
+     * Przykładowe zamówienia z danych repozytorium (lista modyfikowalna).
+     */
+    static List<Order> sampleOrders() {
+        return new ArrayList<>(Arrays.asList(
+                order("ORDER1", "100.00", "mZysk"),
+                order("ORDER2", "200.00", "BosBankrut"),
+                order("ORDER3", "150.00", "mZysk", "BosBankrut"),
+                order("ORDER4", "50.00")));
+    }
+
+    static Order order(String id, String value, String... promotions) {
+        Order order = new Order();
+        order.id = id;
+        order.value = new BigDecimal(value);
+        order.promotions = promotions.length == 0 ? null : Arrays.asList(promotions);
+        return order;
+    }
+
+    static PaymentMethod method(String id, String discount, String limit) {
+        PaymentMethod pm = new PaymentMethod();
+        pm.id = id;
+        pm.discount = new BigDecimal(discount);
+        pm.limit = new BigDecimal(limit);
+        return pm;
+    }
+
+    /**
+     * Zwraca świeżą kopię metod płatności – Algorithm zmniejsza limity na przekazanych obiektach.
+     */
+    static List<PaymentMethod> copy(List<PaymentMethod> methods) {
+        List<PaymentMethod> copy = new ArrayList<>();
+        for (PaymentMethod pm : methods) {
+            copy.add(method(pm.id, pm.discount.toPlainString(), pm.limit.toPlainString()));
+        }
+        return copy;
+    }
+
+    /**
+     * Losowa kwota od 0.01 do max z groszami, jako tekst.
+     */
+    static String amount(Random random, int max) {
+        return amount(random, 1, max);
+    }
+
+    /**
+     * Losowa kwota z groszami, jako tekst: minCents groszy plus losowo od 0 do max * 100 - 1 groszy
+     * (minCents = 0 dopuszcza kwotę 0.00).
+     */
+    static String amount(Random random, int minCents, int max) {
+        return BigDecimal.valueOf(minCents + random.nextInt(max * 100), 2).toPlainString();
+    }
+
+    /**
+     * Kwoty bez końcowych zer, posortowane po identyfikatorze – do porównań niezależnych od skali.
+     */
+    static Map<String, String> normalize(Map<String, BigDecimal> amounts) {
+        Map<String, String> result = new TreeMap<>();
+        amounts.forEach((id, amount) -> result.put(id, amount.stripTrailingZeros().toPlainString()));
+        return result;
+    }
+
+    /**
+     * Jednowierszowy opis wyniku zamówienia (reguła, kwoty metod, rabat) – do porównań niezależnych od skali.
+     */
+    static String describe(OrderResult result) {
+        StringBuilder out = new StringBuilder(result.orderId).append(' ').append(result.rule);
+        for (PaymentAllocation allocation : result.allocations) {
+            out.append(' ').append(allocation.methodId).append('=').append(allocation.amount.stripTrailingZeros().toPlainString());
+        }
+        return out.append(" -").append(result.discount.stripTrailingZeros().toPlainString()).toString();
+    }
+
+    /**
+     * Wykonuje akcję z raportem algorytmu (komunikaty "Failed to pay" i wydatki) skierowanym do pustego strumienia.
+     */
+    static void silently(Algorithm optimizer, Runnable action) {
+        withReport(optimizer, new ReportWriter(OutputStream.nullOutputStream()), action);
+    }
+
+    /**
+     * Wykonuje akcję i zwraca raport, który w tym czasie wypisał algorytm.
+     */
+    static String capture(Algorithm optimizer, Runnable action) {
+        return capture(report -> withReport(optimizer, report, action));
+    }
+
+    /**
+     * Przekazuje akcji raport nad buforem w pamięci i zwraca jego treść (w domyślnym kodowaniu, jak ReportWriter).
+     */
+    static String capture(Consumer<ReportWriter> action) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ReportWriter report = new ReportWriter(output);
+        action.accept(report);
+        close(report);
+        return output.toString(Charset.defaultCharset());
+    }
+
+    private static void withReport(Algorithm optimizer, ReportWriter report, Runnable action) {
+        optimizer.setReportWriter(report);
+        try {
+            action.run();
+        } finally {
+            optimizer.setReportWriter(null);
+            close(report);
+        }
+    }
+
+    private static void close(ReportWriter report) {
+        try {
+            report.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Tworzy plik tymczasowy usuwany po zakończeniu testów.
+     */
+    static Path tempFile(String prefix, String suffix) throws IOException {
+        File file = File.createTempFile(prefix, suffix);
+        file.deleteOnExit();
+        return file.toPath();
+    }
+}